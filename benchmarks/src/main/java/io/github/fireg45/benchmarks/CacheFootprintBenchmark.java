@@ -0,0 +1,94 @@
+package io.github.fireg45.benchmarks;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+import io.github.fireg45.openweathersdk.cache.CompactWeatherCache;
+import io.github.fireg45.openweathersdk.cache.ConcurrentWeatherCache;
+import io.github.fireg45.openweathersdk.cache.WeatherCache;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap retained by a full cache, reported as the {@code bytesPerCity} counter, and the time to
+ * fill it. Every city is parsed from its own response body, like entries cached from separate API responses,
+ * and only the cache keeps a reference to it. The keys are allocated up front and are not counted.
+ * <p>
+ * Run it with {@code java -jar benchmarks/target/benchmarks.jar CacheFootprintBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class CacheFootprintBenchmark {
+
+    @Param({"concurrent", "compact"})
+    private String cacheType;
+
+    @Param({"100000"})
+    private int cities;
+
+    private String[] keys;
+
+    private byte[][] bodies;
+
+    private WeatherCache cache;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerCity;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new String[cities];
+        bodies = new byte[cities][];
+        for (int i = 0; i < cities; i++) {
+            keys[i] = "id=" + i;
+            bodies[i] = Payloads.WEATHER.replace("\"id\":551487", "\"id\":" + i).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropCache() {
+        cache = null;
+    }
+
+    @Benchmark
+    public WeatherCache fill(Footprint footprint) {
+        long before = usedHeap();
+        cache = cacheType.equals("compact") ? new CompactWeatherCache(cities) : new ConcurrentWeatherCache(cities);
+        for (int i = 0; i < cities; i++) {
+            cache.put(keys[i], new CachedWeather(WeatherInfo.fromJson(bodies[i])));
+        }
+        footprint.bytesPerCity = (usedHeap() - before) / cities;
+        return cache;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.fireg45.benchmarks;
+
+import io.github.fireg45.openweathersdk.OpenWeatherSDK;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKConfig;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKMode;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures getWeatherInfo and getWeatherAsJsonString when every requested city is cached,
+ * single-threaded and with many threads reading the same hot cities.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheHitBenchmark {
+
+    @Param({"1", "100"})
+    private int cities;
+
+    @Param({"ON_DEMAND", "POLLING"})
+    private OpenWeatherSDKMode mode;
+
+    private OpenWeatherSDK openWeatherSDK;
+
+    private String[] cityNames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        openWeatherSDK = OpenWeatherSDK.factory("BENCHMARK_API_KEY", mode,
+                OpenWeatherSDKConfig.builder().weatherCacheMaxSize(cities).build());
+        openWeatherSDK.setHttpClient(new StubHttpClient(Payloads.WEATHER));
+        cityNames = new String[cities];
+        for (int i = 0; i < cities; i++) {
+            cityNames[i] = "city" + i;
+            openWeatherSDK.getWeatherInfo(cityNames[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Benchmark
+    public WeatherInfo getWeatherInfo() {
+        return openWeatherSDK.getWeatherInfo(nextCity());
+    }
+
+    @Benchmark
+    public String getWeatherAsJsonString() {
+        return openWeatherSDK.getWeatherAsJsonString(nextCity());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public WeatherInfo getWeatherInfoContended() {
+        return openWeatherSDK.getWeatherInfo(nextCity());
+    }
+
+    private String nextCity() {
+        return cityNames[ThreadLocalRandom.current().nextInt(cityNames.length)];
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.fireg45.benchmarks;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+import io.github.fireg45.openweathersdk.cache.ConcurrentWeatherCache;
+import io.github.fireg45.openweathersdk.cache.WeatherCache;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures inserting new cities into a full cache, so that every insert evicts a city,
+ * which is what the SDK does on every cache miss once the cache is full.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvictionBenchmark {
+
+    private static final int KEY_SPACE = 1 << 20;
+
+    @Param({"10", "1000", "100000"})
+    private int maximumSize;
+
+    private WeatherCache cache;
+
+    private String[] keys;
+
+    private CachedWeather cachedWeather;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new ConcurrentWeatherCache(maximumSize);
+        keys = new String[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = "city" + i;
+        }
+        cachedWeather = new CachedWeather(WeatherInfo.fromJson(Payloads.WEATHER));
+        for (int i = 0; i < maximumSize; i++) {
+            cache.put(keys[i], cachedWeather);
+        }
+    }
+
+    @Benchmark
+    public void putEvicting() {
+        cache.put(keys[ThreadLocalRandom.current().nextInt(KEY_SPACE)], cachedWeather);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void putEvictingContended() {
+        cache.put(keys[ThreadLocalRandom.current().nextInt(KEY_SPACE)], cachedWeather);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CachedWeather mixedReadWrite() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String key = keys[random.nextInt(KEY_SPACE)];
+        if (random.nextInt(10) == 0) {
+            cache.put(key, cachedWeather);
+            return cachedWeather;
+        }
+        return cache.get(key);
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.fireg45.benchmarks;
+
+import io.github.fireg45.openweathersdk.OpenWeatherSDK;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKConfig;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKMode;
+import io.github.fireg45.openweathersdk.WeatherBatchResult;
+import io.github.fireg45.openweathersdk.cache.ConcurrentWeatherCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a batch of cache misses against a local stub HTTP server with the HTTP client executors offered by
+ * OpenWeatherSDKConfig. The "virtual" executor falls back to a processor-sized pool on JVMs without virtual
+ * threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpClientConfigBenchmark {
+
+    @Param({"default", "pool", "virtual"})
+    private String executor;
+
+    @Param({"256"})
+    private int cities;
+
+    @Param({"64"})
+    private int concurrency;
+
+    private StubHttpServer server;
+
+    private OpenWeatherSDK openWeatherSDK;
+
+    private ConcurrentWeatherCache weatherCache;
+
+    private List<String> cityNames;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubHttpServer(Payloads.WEATHER);
+        weatherCache = new ConcurrentWeatherCache(cities);
+        OpenWeatherSDKConfig.OpenWeatherSDKConfigBuilder config = OpenWeatherSDKConfig.builder()
+                .baseUri(server.baseUri())
+                .httpVersion(HttpClient.Version.HTTP_1_1)
+                .weatherCacheFactory(() -> weatherCache);
+        switch (executor) {
+            case "pool" -> config.threadPoolSize(concurrency);
+            case "virtual" -> config.virtualThreads(true);
+            default -> {
+            }
+        }
+        openWeatherSDK = OpenWeatherSDK.factory("HTTP_BENCHMARK_API_KEY_" + executor, OpenWeatherSDKMode.ON_DEMAND,
+                config.build());
+        cityNames = new ArrayList<>(cities);
+        for (int i = 0; i < cities; i++) {
+            cityNames.add("city" + i);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        weatherCache.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        openWeatherSDK.releaseSDKObject();
+        server.close();
+    }
+
+    @Benchmark
+    public WeatherBatchResult batchOfMisses() {
+        return openWeatherSDK.getWeatherInfo(cityNames, concurrency, Duration.ofSeconds(30));
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.fireg45.benchmarks;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.json.WeatherJsonWriter;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways the SDK can turn a WeatherInfo into JSON.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private final WeatherInfo weatherInfo = WeatherInfo.fromJson(Payloads.WEATHER);
+
+    private final CachedWeather cachedWeather = new CachedWeather(weatherInfo);
+
+    private final StringBuilder builder = new StringBuilder(256);
+
+    @Benchmark
+    public String reflectiveJsonObject() {
+        return new JSONObject(weatherInfo).toString();
+    }
+
+    @Benchmark
+    public String toJSON() {
+        return weatherInfo.toJSON().toString();
+    }
+
+    @Benchmark
+    public String writerToString() {
+        return WeatherJsonWriter.toJsonString(weatherInfo);
+    }
+
+    @Benchmark
+    public StringBuilder writerToReusedBuilder() {
+        builder.setLength(0);
+        WeatherJsonWriter.write(weatherInfo, builder);
+        return builder;
+    }
+
+    @Benchmark
+    public String memoizedCachedWeather() {
+        return cachedWeather.getJson();
+    }
+}
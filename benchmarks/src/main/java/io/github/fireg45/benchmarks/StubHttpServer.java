@@ -0,0 +1,52 @@
+package io.github.fireg45.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP server answering every request with the same canned response, so benchmarks exercise a real
+ * HttpClient, sockets included, without network access or an API key.
+ */
+final class StubHttpServer implements AutoCloseable {
+    static {
+        // Without TCP_NODELAY, delayed ACKs add about 40 ms to every response of the JDK server.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    StubHttpServer(String body) throws IOException {
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    URI baseUri() {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.fireg45.benchmarks;
+
+import io.github.fireg45.openweathersdk.dto.Sys;
+import io.github.fireg45.openweathersdk.dto.Temperature;
+import io.github.fireg45.openweathersdk.dto.Weather;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.dto.Wind;
+import io.github.fireg45.openweathersdk.json.WeatherJsonReader;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming WeatherInfo parser with the org.json tree the SDK used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeatherInfoParseBenchmark {
+
+    private final String body = Payloads.WEATHER;
+
+    private final byte[] bodyBytes = Payloads.WEATHER.getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] notFoundBytes = Payloads.NOT_FOUND.getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public WeatherInfo streamingFromString() {
+        return WeatherInfo.fromJson(body);
+    }
+
+    @Benchmark
+    public WeatherInfo streamingFromBytes() {
+        return WeatherInfo.fromJson(bodyBytes);
+    }
+
+    @Benchmark
+    public WeatherInfo jsonObjectTree() {
+        JSONObject jsonObject = new JSONObject(body);
+        WeatherInfo weatherInfo = new WeatherInfo();
+        weatherInfo.setWeather(new Weather(
+                jsonObject.getJSONArray("weather").getJSONObject(0).getString("main"),
+                jsonObject.getJSONArray("weather").getJSONObject(0).getString("description"))
+        );
+        weatherInfo.setTemperature(new Temperature(
+                jsonObject.getJSONObject("main").getDouble("temp"),
+                jsonObject.getJSONObject("main").getDouble("feels_like")
+        ));
+        weatherInfo.setVisibility(jsonObject.getInt("visibility"));
+        weatherInfo.setWind(new Wind(
+                jsonObject.getJSONObject("wind").getInt("speed")
+        ));
+        weatherInfo.setDatetime(jsonObject.getLong("dt"));
+        weatherInfo.setTimezone(jsonObject.getInt("timezone"));
+        weatherInfo.setSys(new Sys(
+                jsonObject.getJSONObject("sys").getLong("sunrise"),
+                jsonObject.getJSONObject("sys").getLong("sunset")
+        ));
+        weatherInfo.setName(jsonObject.getString("name"));
+        return weatherInfo;
+    }
+
+    @Benchmark
+    public String errorMessageStreaming() {
+        return WeatherJsonReader.readErrorMessage(notFoundBytes);
+    }
+
+    @Benchmark
+    public String errorMessageJsonObjectTree() {
+        return new JSONObject(Payloads.NOT_FOUND).getString("message");
+    }
+}
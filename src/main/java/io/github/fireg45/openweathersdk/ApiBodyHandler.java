@@ -0,0 +1,176 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.json.JsonReader;
+import io.github.fireg45.openweathersdk.json.WeatherJsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads API responses straight from the received bytes into parsed values.
+ * <p>
+ * The body chunks are copied once into a byte array, sized from the {@code Content-Length} header when the
+ * server sends one, and parsed with the pull parser when the last chunk arrives, on the thread delivering the
+ * response. No String of the body is ever created: successful responses go through the parser of the handler
+ * and error responses only have their {@code message} read. Bodies sent with {@code Content-Encoding: gzip}
+ * are decompressed first.
+ * <p>
+ * Successful bodies larger than {@value #MAX_BODY_SIZE} bytes fail the response with an IOException. Error
+ * bodies are only read for their message, so they are truncated to {@value #MAX_ERROR_BODY_SIZE} bytes, and an
+ * error body without a readable message, like the HTML or empty bodies proxies answer with, has a null message
+ * instead of failing the response.
+ *
+ * @param <T> The type of the parsed value of a successful response.
+ */
+final class ApiBodyHandler<T> implements HttpResponse.BodyHandler<ApiResponseBody<T>> {
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+    static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+    static final int MAX_ERROR_BODY_SIZE = 4096;
+
+    private final Function<JsonReader, T> parser;
+
+    /**
+     * Creates a handler parsing successful responses with the given parser.
+     *
+     * @param parser The parser reading the body of a successful response.
+     */
+    ApiBodyHandler(Function<JsonReader, T> parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<ApiResponseBody<T>> apply(HttpResponse.ResponseInfo responseInfo) {
+        return new Subscriber(responseInfo);
+    }
+
+    private final class Subscriber implements HttpResponse.BodySubscriber<ApiResponseBody<T>> {
+        private final CompletableFuture<ApiResponseBody<T>> body = new CompletableFuture<>();
+        private final int statusCode;
+        private final boolean gzip;
+        private final int maxSize;
+        private Flow.Subscription subscription;
+        private byte[] buffer;
+        private int length;
+
+        private Subscriber(HttpResponse.ResponseInfo responseInfo) {
+            statusCode = responseInfo.statusCode();
+            gzip = responseInfo.headers().firstValue("Content-Encoding")
+                    .map(encoding -> encoding.trim().equalsIgnoreCase("gzip"))
+                    .orElse(false);
+            maxSize = statusCode == 200 ? MAX_BODY_SIZE : MAX_ERROR_BODY_SIZE;
+            long contentLength = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1);
+            buffer = new byte[contentLength > 0 && contentLength <= maxSize
+                    ? (int) contentLength
+                    : Math.min(DEFAULT_BUFFER_SIZE, maxSize)];
+        }
+
+        @Override
+        public CompletionStage<ApiResponseBody<T>> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+            if (body.isDone()) {
+                return;
+            }
+            for (ByteBuffer chunk : chunks) {
+                int remaining = chunk.remaining();
+                if (length + remaining > maxSize) {
+                    if (statusCode == 200) {
+                        subscription.cancel();
+                        body.completeExceptionally(new IOException("Response body exceeds " + maxSize + " bytes"));
+                        return;
+                    }
+                    // Only the start of an error body is kept, the message is read from it.
+                    remaining = maxSize - length;
+                    if (remaining == 0) {
+                        return;
+                    }
+                    chunk.limit(chunk.position() + remaining);
+                }
+                if (length + remaining > buffer.length) {
+                    buffer = Arrays.copyOf(buffer,
+                            Math.min(maxSize, Math.max(length + remaining, buffer.length * 2)));
+                }
+                chunk.get(buffer, length, remaining);
+                length += remaining;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (body.isDone()) {
+                return;
+            }
+            byte[] bytes = buffer;
+            int size = length;
+            buffer = null;
+            if (gzip) {
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes, 0, size))) {
+                    bytes = in.readNBytes(maxSize + 1);
+                    size = bytes.length;
+                } catch (IOException e) {
+                    if (statusCode == 200) {
+                        body.completeExceptionally(new UncheckedIOException("Invalid gzip response body", e));
+                    } else {
+                        body.complete(ApiResponseBody.ofErrorMessage(null));
+                    }
+                    return;
+                }
+                if (size > maxSize) {
+                    if (statusCode == 200) {
+                        body.completeExceptionally(new IOException("Response body exceeds " + maxSize + " bytes"));
+                        return;
+                    }
+                    size = maxSize;
+                }
+            }
+            JsonReader reader = new JsonReader(bytes, 0, size);
+            if (statusCode != 200) {
+                body.complete(ApiResponseBody.ofErrorMessage(readErrorMessage(reader)));
+                return;
+            }
+            try {
+                body.complete(ApiResponseBody.ofValue(parser.apply(reader)));
+            } catch (RuntimeException e) {
+                body.complete(ApiResponseBody.ofFailure(e));
+            }
+        }
+
+        /**
+         * Read the message of an error body, which may not be JSON when a proxy or gateway answered.
+         *
+         * @param reader The reader of the body.
+         * @return The message, or null if the body has no readable message.
+         */
+        private String readErrorMessage(JsonReader reader) {
+            try {
+                return WeatherJsonReader.readErrorMessage(reader);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.fireg45.openweathersdk;
+
+/**
+ * Body of an API response read by {@link ApiBodyHandler}: the parsed value of a successful response, or the
+ * error message of a failed one. A successful body that could not be parsed keeps the parse exception and
+ * throws it when it is read, like parsing the body at that point would have.
+ *
+ * @param <T> The type of the parsed value.
+ */
+final class ApiResponseBody<T> {
+    private final T value;
+    private final String errorMessage;
+    private final RuntimeException failure;
+
+    private ApiResponseBody(T value, String errorMessage, RuntimeException failure) {
+        this.value = value;
+        this.errorMessage = errorMessage;
+        this.failure = failure;
+    }
+
+    static <T> ApiResponseBody<T> ofValue(T value) {
+        return new ApiResponseBody<>(value, null, null);
+    }
+
+    static <T> ApiResponseBody<T> ofErrorMessage(String errorMessage) {
+        return new ApiResponseBody<>(null, errorMessage, null);
+    }
+
+    static <T> ApiResponseBody<T> ofFailure(RuntimeException failure) {
+        return new ApiResponseBody<>(null, null, failure);
+    }
+
+    /**
+     * Get the parsed value of a successful response.
+     *
+     * @return The parsed value.
+     * @throws RuntimeException The exception raised while parsing the body.
+     */
+    T value() {
+        if (failure != null) {
+            throw failure;
+        }
+        return value;
+    }
+
+    /**
+     * Get the error message of a failed response.
+     *
+     * @return The error message, or null if the body had no readable message.
+     */
+    String errorMessage() {
+        return errorMessage;
+    }
+}
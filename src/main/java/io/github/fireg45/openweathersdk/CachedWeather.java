@@ -1,6 +1,12 @@
 package io.github.fireg45.openweathersdk;
 
+import io.github.fireg45.openweathersdk.json.WeatherJsonWriter;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import io.github.fireg45.openweathersdk.dto.WeatherInfo;
 
 
@@ -8,9 +14,38 @@ import io.github.fireg45.openweathersdk.dto.WeatherInfo;
 public class CachedWeather {
     private WeatherInfo weatherInfo;
     private long timestampInMillis;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile String json;
 
     public CachedWeather(WeatherInfo weatherInfo) {
+        this(weatherInfo, System.currentTimeMillis());
+    }
+
+    public CachedWeather(WeatherInfo weatherInfo, long timestampInMillis) {
         this.weatherInfo = weatherInfo;
-        timestampInMillis = System.currentTimeMillis();
+        this.timestampInMillis = timestampInMillis;
+    }
+
+    public void setWeatherInfo(WeatherInfo weatherInfo) {
+        this.weatherInfo = weatherInfo;
+        json = null;
+    }
+
+    /**
+     * Get the weather information rendered as a JSON string. The string is rendered on first use and
+     * reused afterwards, so it does not reflect later changes made directly to the WeatherInfo object.
+     *
+     * @return Weather information as a JSON string.
+     */
+    public String getJson() {
+        String rendered = json;
+        if (rendered == null) {
+            rendered = WeatherJsonWriter.toJsonString(weatherInfo);
+            json = rendered;
+        }
+        return rendered;
     }
 }
@@ -0,0 +1,86 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.dto.Temperature;
+import io.github.fireg45.openweathersdk.dto.Weather;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.dto.Wind;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Objects;
+
+/**
+ * Changes of the weather that are pushed to a subscription.
+ * <p>
+ * Refreshed weather information is compared with the last weather information pushed to the subscription, so
+ * slow drifts are pushed once they add up to a threshold. Temperatures are compared in the units of the API
+ * responses, Kelvin by default. A field that appears or disappears always counts as a change.
+ */
+@Getter
+@ToString
+@Builder(toBuilder = true)
+public class ChangeThresholds {
+    /**
+     * Smallest change of the temperature that is pushed.
+     */
+    @Builder.Default
+    private final double temperatureDelta = 0.5;
+    /**
+     * Smallest change of the wind speed, in meters per second, that is pushed.
+     */
+    @Builder.Default
+    private final double windSpeedDelta = 1.0;
+    /**
+     * Push a change of the weather condition group, such as Clouds turning into Rain.
+     */
+    @Builder.Default
+    private final boolean weatherMainChange = true;
+
+    /**
+     * Get the default thresholds.
+     *
+     * @return ChangeThresholds with every option at its default value.
+     */
+    public static ChangeThresholds defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Check if the weather changed beyond these thresholds.
+     *
+     * @param previous The weather information pushed last, or null if none was pushed yet.
+     * @param current  The refreshed weather information.
+     * @return True if the refreshed weather information should be pushed.
+     */
+    boolean isSignificant(WeatherInfo previous, WeatherInfo current) {
+        if (previous == null) {
+            return true;
+        }
+        Temperature previousTemperature = previous.getTemperature();
+        Temperature currentTemperature = current.getTemperature();
+        if (previousTemperature == null || currentTemperature == null) {
+            if (previousTemperature != currentTemperature) {
+                return true;
+            }
+        } else if (Math.abs(currentTemperature.getTemp() - previousTemperature.getTemp()) >= temperatureDelta) {
+            return true;
+        }
+        Wind previousWind = previous.getWind();
+        Wind currentWind = current.getWind();
+        if (previousWind == null || currentWind == null) {
+            if (previousWind != currentWind) {
+                return true;
+            }
+        } else if (Math.abs(currentWind.getSpeed() - previousWind.getSpeed()) >= windSpeedDelta) {
+            return true;
+        }
+        if (weatherMainChange) {
+            Weather previousWeather = previous.getWeather();
+            Weather currentWeather = current.getWeather();
+            return !Objects.equals(previousWeather != null ? previousWeather.getMain() : null,
+                    currentWeather != null ? currentWeather.getMain() : null);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,214 @@
+package io.github.fireg45.openweathersdk;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-based circuit breaker guarding the requests sent with one SDK object.
+ * <p>
+ * Outcomes are kept in a ring buffer of the configured window size. Every request takes a permit with
+ * {@link #tryAcquire()} and reports its outcome with {@link #onSuccess(long)}, {@link #onFailure(long)} or
+ * {@link #onCancelled(long)}, along with the {@link #generation()} in effect when it was sent. The generation
+ * changes with every state change, and outcomes of requests sent in an earlier generation are ignored, so a
+ * request sent while the circuit was closed cannot re-open it or count as a probe once it is half-open.
+ */
+final class CircuitBreaker {
+    private final CircuitBreakerConfig config;
+    private final boolean[] failures;
+    private int nextOutcome;
+    private int outcomeCount;
+    private int failureCount;
+    private CircuitBreakerStats.State state = CircuitBreakerStats.State.CLOSED;
+    private long openUntilNanos;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long openedCount;
+    private long generation;
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder staleServedCount = new LongAdder();
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param config The thresholds of the breaker, or null for a breaker that never opens.
+     */
+    CircuitBreaker(CircuitBreakerConfig config) {
+        if (config != null) {
+            if (config.getSlidingWindowSize() <= 0 || config.getHalfOpenProbes() <= 0) {
+                throw new IllegalArgumentException("Invalid circuit breaker configuration: " + config);
+            }
+            if (config.getMinimumCalls() > config.getSlidingWindowSize()) {
+                throw new IllegalArgumentException("minimumCalls must not exceed slidingWindowSize, or the circuit "
+                        + "never opens: " + config);
+            }
+            if (!(config.getFailureRateThreshold() > 0 && config.getFailureRateThreshold() <= 1)) {
+                throw new IllegalArgumentException("failureRateThreshold must be in (0, 1]: "
+                        + config.getFailureRateThreshold());
+            }
+        }
+        this.config = config;
+        this.failures = new boolean[config != null ? config.getSlidingWindowSize() : 0];
+    }
+
+    /**
+     * Take the permit to send a request.
+     *
+     * @return True if the request may be sent, false if the circuit is open.
+     */
+    synchronized boolean tryAcquire() {
+        if (config == null) {
+            return true;
+        }
+        if (state == CircuitBreakerStats.State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                rejectedCount.increment();
+                return false;
+            }
+            state = CircuitBreakerStats.State.HALF_OPEN;
+            generation++;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == CircuitBreakerStats.State.HALF_OPEN) {
+            if (probesStarted >= config.getHalfOpenProbes()) {
+                rejectedCount.increment();
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Check if the circuit is closed, so requests beyond the ones that were permitted may be sent.
+     *
+     * @return True if the circuit is closed.
+     */
+    synchronized boolean isClosed() {
+        return state == CircuitBreakerStats.State.CLOSED;
+    }
+
+    /**
+     * Get the generation of the current state, to report with the outcome of a request sent now.
+     *
+     * @return The generation.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Record a request answered by the API.
+     *
+     * @param sentGeneration The generation in effect when the request was sent.
+     */
+    synchronized void onSuccess(long sentGeneration) {
+        if (config == null || sentGeneration != generation) {
+            return;
+        }
+        switch (state) {
+            case CLOSED -> record(false);
+            case HALF_OPEN -> {
+                if (probesSucceeded < probesStarted && ++probesSucceeded == config.getHalfOpenProbes()) {
+                    state = CircuitBreakerStats.State.CLOSED;
+                    generation++;
+                    resetWindow();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Record a request that failed, timed out or was answered with a server error.
+     *
+     * @param sentGeneration The generation in effect when the request was sent.
+     */
+    synchronized void onFailure(long sentGeneration) {
+        if (config == null || sentGeneration != generation) {
+            return;
+        }
+        switch (state) {
+            case CLOSED -> {
+                record(true);
+                if (outcomeCount >= config.getMinimumCalls()
+                        && failureCount >= config.getFailureRateThreshold() * outcomeCount) {
+                    open();
+                }
+            }
+            case HALF_OPEN -> open();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Give back the permit of a request that was not sent, taken in the current generation.
+     */
+    synchronized void onCancelled() {
+        onCancelled(generation);
+    }
+
+    /**
+     * Give back the permit of a request whose outcome is unknown.
+     *
+     * @param sentGeneration The generation in effect when the request was sent.
+     */
+    synchronized void onCancelled(long sentGeneration) {
+        if (sentGeneration == generation && state == CircuitBreakerStats.State.HALF_OPEN
+                && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * Count a rejected request answered from the cache.
+     */
+    void onStaleServed() {
+        staleServedCount.increment();
+    }
+
+    /**
+     * Get the state and counters of this breaker.
+     *
+     * @return CircuitBreakerStats snapshot.
+     */
+    synchronized CircuitBreakerStats stats() {
+        CircuitBreakerStats.State currentState = state;
+        if (currentState == CircuitBreakerStats.State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+            currentState = CircuitBreakerStats.State.HALF_OPEN;
+        }
+        double failureRate = outcomeCount == 0 ? 0 : (double) failureCount / outcomeCount;
+        return new CircuitBreakerStats(currentState, failureRate, openedCount, rejectedCount.sum(),
+                staleServedCount.sum());
+    }
+
+    private void record(boolean failure) {
+        if (outcomeCount == failures.length) {
+            if (failures[nextOutcome]) {
+                failureCount--;
+            }
+        } else {
+            outcomeCount++;
+        }
+        failures[nextOutcome] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        nextOutcome = (nextOutcome + 1) % failures.length;
+    }
+
+    private void open() {
+        state = CircuitBreakerStats.State.OPEN;
+        openUntilNanos = System.nanoTime() + config.getOpenDuration().toNanos();
+        generation++;
+        openedCount++;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        nextOutcome = 0;
+        outcomeCount = 0;
+        failureCount = 0;
+    }
+}
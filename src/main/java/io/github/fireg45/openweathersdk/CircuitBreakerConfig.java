@@ -0,0 +1,57 @@
+package io.github.fireg45.openweathersdk;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * Thresholds of the circuit breaker that stops sending requests while the API is failing.
+ * <p>
+ * The breaker records the outcome of the last {@code slidingWindowSize} requests. A request fails when it
+ * times out, cannot be sent or is answered with a 5xx status; any other answer, including 4xx statuses,
+ * shows the API is up. Once at least {@code minimumCalls} outcomes are recorded and the share of failures
+ * reaches {@code failureRateThreshold}, the circuit opens: no request is sent for {@code openDuration}.
+ * The circuit then lets {@code halfOpenProbes} requests through and closes again if they all succeed, or
+ * opens again on the first failure.
+ */
+@Getter
+@ToString
+@Builder(toBuilder = true)
+public class CircuitBreakerConfig {
+    /**
+     * Share of failed requests, between 0 and 1, that opens the circuit.
+     */
+    @Builder.Default
+    private final double failureRateThreshold = 0.5;
+    /**
+     * Number of most recent request outcomes the failure rate is computed on.
+     */
+    @Builder.Default
+    private final int slidingWindowSize = 20;
+    /**
+     * Number of recorded outcomes needed before the circuit can open.
+     */
+    @Builder.Default
+    private final int minimumCalls = 10;
+    /**
+     * Time the circuit stays open before probing the API again.
+     */
+    @Builder.Default
+    private final Duration openDuration = Duration.ofSeconds(30);
+    /**
+     * Number of successful probe requests needed to close the circuit.
+     */
+    @Builder.Default
+    private final int halfOpenProbes = 3;
+
+    /**
+     * Get the default thresholds.
+     *
+     * @return CircuitBreakerConfig with every option at its default value.
+     */
+    public static CircuitBreakerConfig defaults() {
+        return builder().build();
+    }
+}
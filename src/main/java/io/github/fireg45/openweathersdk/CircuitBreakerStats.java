@@ -0,0 +1,48 @@
+package io.github.fireg45.openweathersdk;
+
+import lombok.Value;
+
+/**
+ * Point-in-time state and counters of the circuit breaker.
+ */
+@Value
+public class CircuitBreakerStats {
+    /**
+     * State of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Requests are sent and their outcomes recorded.
+         */
+        CLOSED,
+        /**
+         * Requests are rejected without being sent.
+         */
+        OPEN,
+        /**
+         * A limited number of probe requests are sent to check if the API has recovered.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Current state of the circuit.
+     */
+    State state;
+    /**
+     * Share of failures among the recorded outcomes, between 0 and 1.
+     */
+    double failureRate;
+    /**
+     * Number of times the circuit opened.
+     */
+    long openedCount;
+    /**
+     * Requests that were rejected because the circuit was open.
+     */
+    long rejectedCount;
+    /**
+     * Rejected requests that were answered from the last cached weather information instead of failing.
+     */
+    long staleServedCount;
+}
@@ -0,0 +1,118 @@
+package io.github.fireg45.openweathersdk;
+
+import lombok.Getter;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Canonical key of a city looked up by name.
+ * <p>
+ * Spellings of a city name that the API resolves to the same city share one key: surrounding whitespace is
+ * trimmed, inner whitespace is collapsed to single spaces, letters are lowercased and trailing apostrophes are
+ * dropped, so {@code "Kazan'"}, {@code " kazan"} and {@code "KAZAN"} are one cache entry and one API call. The
+ * name is percent-encoded once, and the key holds the request sent for it, built from the spelling it was first
+ * created with.
+ */
+final class CityKey {
+    private static final String QUERY_PREFIX = "q=";
+
+    /**
+     * The city name as given, with whitespace trimmed and collapsed.
+     */
+    @Getter
+    private final String name;
+    /**
+     * The cache key of the city: the API query of the canonical name.
+     */
+    @Getter
+    private final String query;
+    /**
+     * The API query of the city name as given, which the requests of the city are sent with.
+     */
+    @Getter
+    private final String nameQuery;
+    /**
+     * The prebuilt request for the weather of the city.
+     */
+    @Getter
+    private final HttpRequest request;
+
+    /**
+     * Creates the key of a city name.
+     *
+     * @param cityName       The name of the city.
+     * @param requestFactory Builds the weather request of an encoded API query.
+     * @throws IllegalArgumentException If the city name is blank.
+     */
+    CityKey(String cityName, Function<String, HttpRequest> requestFactory) {
+        name = collapseWhitespace(cityName);
+        String canonicalName = canonicalName(name);
+        if (canonicalName.isEmpty()) {
+            throw new IllegalArgumentException("Invalid city name: \"" + cityName + "\"");
+        }
+        query = toQuery(canonicalName);
+        nameQuery = toQuery(name);
+        request = requestFactory.apply(nameQuery);
+    }
+
+    @Override
+    public String toString() {
+        return query;
+    }
+
+    /**
+     * Trim a city name and collapse its inner whitespace to single spaces.
+     *
+     * @param cityName The name of the city.
+     * @return The trimmed name.
+     */
+    private static String collapseWhitespace(String cityName) {
+        StringBuilder collapsed = new StringBuilder(cityName.length());
+        boolean space = false;
+        for (int i = 0; i < cityName.length(); i++) {
+            char c = cityName.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space = collapsed.length() > 0;
+            } else {
+                if (space) {
+                    collapsed.append(' ');
+                    space = false;
+                }
+                collapsed.append(c);
+            }
+        }
+        return collapsed.toString();
+    }
+
+    /**
+     * Lowercase a trimmed city name and drop its trailing apostrophes.
+     *
+     * @param name The trimmed name of the city.
+     * @return The canonical name, empty if nothing but apostrophes was given.
+     */
+    private static String canonicalName(String name) {
+        int end = name.length();
+        while (end > 0 && isApostrophe(name.charAt(end - 1))) {
+            end--;
+        }
+        return name.substring(0, end).stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isApostrophe(char c) {
+        return c == '\'' || c == '’' || c == 'ʼ';
+    }
+
+    /**
+     * Build the API query of a city name, percent-encoded as UTF-8.
+     *
+     * @param name The name of the city.
+     * @return The API query.
+     */
+    private static String toQuery(String name) {
+        return QUERY_PREFIX + URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.fireg45.openweathersdk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the keys of recently used city names, so each spelling is only normalized and encoded once, and
+ * finds the key of an API query to reuse its prebuilt request.
+ * <p>
+ * Every city lookup goes through this cache, so lookups are lock-free: both maps are ConcurrentHashMaps and a
+ * lookup only stamps the entry it found with the current time. Both maps hold a bounded number of entries.
+ * When a put takes one over its limit, the thread that gets the eviction lock drops the least recently used
+ * tenth of the entries at once, which keeps the cost of a put amortized constant; threads finding the lock
+ * taken skip eviction, so the bound and the LRU order are approximate under contention.
+ */
+final class CityKeyCache {
+    private final int maximumSize;
+    private final ConcurrentHashMap<String, Entry> keysByName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> keysByQuery = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Creates a cache holding at most the given number of names and of queries.
+     *
+     * @param maximumSize The maximum number of cached names and of cached queries.
+     */
+    CityKeyCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Get the key of a city name as given.
+     *
+     * @param cityName The name of the city.
+     * @return The key, or null if the name is not cached.
+     */
+    CityKey getByName(String cityName) {
+        return get(keysByName, cityName);
+    }
+
+    /**
+     * Get the key of an API query.
+     *
+     * @param query The API query of the canonical city name.
+     * @return The key, or null if the query is not cached.
+     */
+    CityKey getByQuery(String query) {
+        return get(keysByQuery, query);
+    }
+
+    /**
+     * Cache the key of a city name. The key already cached for the same query is kept, so every spelling of a
+     * city shares the request of the first one.
+     *
+     * @param cityName The name of the city as given.
+     * @param cityKey  The key created for the name.
+     * @return The key cached for the name.
+     */
+    CityKey put(String cityName, CityKey cityKey) {
+        Entry shared = keysByQuery.computeIfAbsent(cityKey.getQuery(), query -> new Entry(cityKey));
+        shared.touch();
+        keysByName.put(cityName, new Entry(shared.cityKey));
+        evictIfFull(keysByQuery);
+        evictIfFull(keysByName);
+        return shared.cityKey;
+    }
+
+    private static CityKey get(Map<String, Entry> keys, String key) {
+        Entry entry = keys.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.touch();
+        return entry.cityKey;
+    }
+
+    /**
+     * Drop the least recently used tenth of the entries of a map over its limit.
+     *
+     * @param keys The map.
+     */
+    private void evictIfFull(Map<String, Entry> keys) {
+        if (keys.size() <= maximumSize || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (keys.size() <= maximumSize) {
+                return;
+            }
+            int excess = keys.size() - maximumSize + maximumSize / 10;
+            List<Map.Entry<String, Entry>> entries = new ArrayList<>(keys.entrySet());
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastUsedNanos));
+            for (int i = 0; i < Math.min(excess, entries.size()); i++) {
+                Map.Entry<String, Entry> eldest = entries.get(i);
+                keys.remove(eldest.getKey(), eldest.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final CityKey cityKey;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private Entry(CityKey cityKey) {
+            this.cityKey = cityKey;
+        }
+
+        private void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+    }
+}
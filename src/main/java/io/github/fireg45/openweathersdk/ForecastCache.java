@@ -0,0 +1,79 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.dto.ForecastSeries;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the forecasts of the cities, separately from the weather cache, since a forecast changes far less
+ * often than the current weather and has its own TTL.
+ * <p>
+ * The cache holds a bounded number of cities and evicts the least recently used one. Expired forecasts stay
+ * cached until they are replaced, so they can be served while requests are throttled.
+ */
+final class ForecastCache {
+    private final int maximumSize;
+    private final LinkedHashMap<String, CachedForecast> forecasts;
+
+    /**
+     * Creates a cache holding at most the given number of cities.
+     *
+     * @param maximumSize The maximum number of cached cities.
+     */
+    ForecastCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.forecasts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedForecast> eldest) {
+                return size() > ForecastCache.this.maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Cache the forecast of a city.
+     *
+     * @param city     The API query of the city.
+     * @param forecast The forecast.
+     */
+    synchronized void put(String city, ForecastSeries forecast) {
+        forecasts.put(city, new CachedForecast(forecast, System.currentTimeMillis()));
+    }
+
+    /**
+     * Get the forecast of a city if it was cached within the TTL.
+     *
+     * @param city        The API query of the city.
+     * @param ttlInMillis The time a cached forecast is used.
+     * @return The forecast, or null if the city is not cached or its forecast expired.
+     */
+    synchronized ForecastSeries get(String city, long ttlInMillis) {
+        CachedForecast cachedForecast = forecasts.get(city);
+        if (cachedForecast == null || System.currentTimeMillis() - cachedForecast.fetchedAtMillis >= ttlInMillis) {
+            return null;
+        }
+        return cachedForecast.forecast;
+    }
+
+    /**
+     * Get the forecast of a city, expired or not.
+     *
+     * @param city The API query of the city.
+     * @return The forecast, or null if the city is not cached.
+     */
+    synchronized ForecastSeries getStale(String city) {
+        CachedForecast cachedForecast = forecasts.get(city);
+        return cachedForecast != null ? cachedForecast.forecast : null;
+    }
+
+    private static final class CachedForecast {
+        private final ForecastSeries forecast;
+        private final long fetchedAtMillis;
+
+        private CachedForecast(ForecastSeries forecast, long fetchedAtMillis) {
+            this.forecast = forecast;
+            this.fetchedAtMillis = fetchedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.exception.OpenWeatherSDKBadRequestException;
+import io.github.fireg45.openweathersdk.exception.OpenWeatherSDKNotFoundException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the cities the API rejected as unknown or invalid, so repeated lookups of the same bad city name
+ * fail without a request until the negative TTL elapses.
+ * <p>
+ * The cache holds a bounded number of cities and evicts the least recently used one, so arbitrary user input
+ * cannot grow it without limit.
+ */
+final class NegativeResultCache {
+    private final int maximumSize;
+    private final LinkedHashMap<String, NegativeResult> results;
+
+    /**
+     * Creates a cache holding at most the given number of cities.
+     *
+     * @param maximumSize The maximum number of cached cities.
+     */
+    NegativeResultCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NegativeResult> eldest) {
+                return size() > NegativeResultCache.this.maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Remember that the API rejected the city.
+     *
+     * @param city        The name of the city.
+     * @param statusCode  The status code of the response, 400 or 404.
+     * @param message     The error message of the response.
+     * @param ttlInMillis The time to remember the result.
+     */
+    synchronized void put(String city, int statusCode, String message, long ttlInMillis) {
+        if (ttlInMillis > 0) {
+            results.put(city, new NegativeResult(statusCode, message, System.currentTimeMillis() + ttlInMillis));
+        }
+    }
+
+    /**
+     * Get the exception the API answered for the city, if it is still remembered.
+     *
+     * @param city The name of the city.
+     * @return OpenWeatherSDKNotFoundException or OpenWeatherSDKBadRequestException matching the remembered
+     * response, or null if the city is not remembered.
+     */
+    RuntimeException lookup(String city) {
+        NegativeResult result;
+        synchronized (this) {
+            if (results.isEmpty()) {
+                return null;
+            }
+            result = results.get(city);
+            if (result == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= result.expiresAtMillis) {
+                results.remove(city);
+                return null;
+            }
+        }
+        if (result.statusCode == 404) {
+            return new OpenWeatherSDKNotFoundException(result.message);
+        }
+        return new OpenWeatherSDKBadRequestException(result.message);
+    }
+
+    private static final class NegativeResult {
+        private final int statusCode;
+        private final String message;
+        private final long expiresAtMillis;
+
+        private NegativeResult(int statusCode, String message, long expiresAtMillis) {
+            this.statusCode = statusCode;
+            this.message = message;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -3,83 +3,665 @@
  */
 package io.github.fireg45.openweathersdk;
 
+import io.github.fireg45.openweathersdk.cache.CacheStats;
+import io.github.fireg45.openweathersdk.cache.ConcurrentWeatherCache;
+import io.github.fireg45.openweathersdk.cache.WeatherCache;
+import io.github.fireg45.openweathersdk.cache.WeatherCachePersistence;
+import io.github.fireg45.openweathersdk.cache.WeatherStore;
 import io.github.fireg45.openweathersdk.exception.*;
+import io.github.fireg45.openweathersdk.geo.GridIndex;
+import io.github.fireg45.openweathersdk.json.JsonReader;
+import io.github.fireg45.openweathersdk.json.WeatherJsonReader;
+import io.github.fireg45.openweathersdk.metrics.SdkMetrics;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.json.JSONObject;
+import io.github.fireg45.openweathersdk.dto.Coord;
+import io.github.fireg45.openweathersdk.dto.ForecastSeries;
 import io.github.fireg45.openweathersdk.dto.WeatherInfo;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.HashMap;
-import java.util.Objects;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The OpenWeatherSDK class acts as interface for interacting with the OpenWeatherMap API.
+ * <p>
+ * An object is shared by every holder of its API key and mode, so the settings changed through its setters
+ * apply to all of them. The mode and the weather cache, which identify and hold the shared state, are fixed
+ * when the object is created.
  */
 public class OpenWeatherSDK {
+    @Getter(AccessLevel.PACKAGE)
     private final String apiKey;
+    private final OpenWeatherSDKRegistry registry;
+    private final OpenWeatherSDKConfig config;
+    private final ExecutorService httpExecutor;
+    private final String weatherEndpoint;
+    private final String groupEndpoint;
+    private final String forecastEndpoint;
     @Setter
-    private HttpClient httpClient;
+    private volatile HttpClient httpClient;
+    @Getter
+    private final OpenWeatherSDKMode mode;
+    @Getter
+    private final boolean polling;
+    private volatile WeatherCache weatherCache;
+    private volatile WeatherStore weatherStore;
+    private final String storeOwner = UUID.randomUUID().toString();
+    @Getter
+    private volatile SdkMetrics metrics = SdkMetrics.NOOP;
+    @Setter
+    @Getter
+    private volatile Duration softTtl = Duration.ofMinutes(10);
+    @Setter
+    @Getter
+    private volatile Duration hardTtl = Duration.ofMinutes(10);
+    @Setter
+    @Getter
+    private volatile Duration negativeTtl = Duration.ofSeconds(60);
+    @Setter
+    @Getter
+    private volatile Duration forecastTtl = Duration.ofMinutes(30);
+    @Setter
+    @Getter
+    private volatile double nearbyRadiusMeters = 2000;
+    @Setter
+    @Getter
+    private volatile Duration refreshInterval = Duration.ofMinutes(5);
+    @Setter
+    @Getter
+    private volatile Duration refreshJitter = Duration.ofSeconds(30);
+    @Setter
+    @Getter
+    private volatile int maxConcurrentRefreshes = 4;
     @Setter
     @Getter
-    private OpenWeatherSDKMode mode;
+    private volatile int batchConcurrency = 16;
     @Setter
     @Getter
-    private  boolean polling;
-    private final HashMap<String, CachedWeather> weatherCash;
-    private final int CACHE_MAX_SIZE = 10;
-    private final long WEATHER_ACTUALITY_TIME = TimeUnit.MINUTES.toMillis(10);
-    private static final HashMap<String, OpenWeatherSDK> objectPool = new HashMap<>();
+    private volatile Duration batchTimeout = Duration.ofSeconds(30);
+    private volatile WeatherRefresher refresher;
+    private boolean shutDown;
+    private WeatherCachePersistence persistence;
+    private final SharedRateLimit rateLimit;
+    private final CircuitBreaker circuitBreaker;
+    private final SingleFlight<String, CachedWeather> inFlightRequests = new SingleFlight<>();
+    private final SingleFlight<String, ForecastSeries> inFlightForecasts = new SingleFlight<>();
+    private final ForecastCache forecastCache = new ForecastCache(FORECAST_CACHE_MAX_SIZE);
+    private final NegativeResultCache negativeResults = new NegativeResultCache(NEGATIVE_CACHE_MAX_SIZE);
+    private final GridIndex locationIndex = new GridIndex();
+    private final WeatherChangeNotifier changeNotifier;
+    private final CityKeyCache cityKeys = new CityKeyCache(CITY_KEYS_MAX_SIZE);
+    private final ApiBodyHandler<WeatherInfo> weatherBodyHandler = new ApiBodyHandler<>(this::readWeatherInfo);
+    private final ApiBodyHandler<List<WeatherInfo>> groupBodyHandler = new ApiBodyHandler<>(this::readWeatherInfoList);
+    private final ApiBodyHandler<ForecastSeries> forecastBodyHandler = new ApiBodyHandler<>(this::readForecast);
+    private static final int NEGATIVE_CACHE_MAX_SIZE = 1000;
+    private static final int FORECAST_CACHE_MAX_SIZE = 1000;
+    private static final int CITY_KEYS_MAX_SIZE = 10_000;
+    private static final int GROUP_MAX_SIZE = 20;
+    private static final String CITY_ID_QUERY_PREFIX = "id=";
+    static final Duration DEFAULT_MAX_RATE_LIMIT_WAIT = Duration.ofSeconds(5);
 
     /**
-     * Factory method to create or get (from pool) an instance of OpenWeatherSDK.
+     * Factory method to create or get (from the default registry) an instance of OpenWeatherSDK.
+     * Each call counts one reference to the returned object, to be given back with {@link #releaseSDKObject()}.
      *
      * @param apiKey The API key for accessing the OpenWeatherMap API.
      * @param mode   The mode of operation for the SDK. (Polling or On Demand)
      * @return An instance of OpenWeatherSDK.
      */
     public static OpenWeatherSDK factory(String apiKey, OpenWeatherSDKMode mode) {
-        OpenWeatherSDK weatherSDK;
-        if (objectPool.containsKey(apiKey)) {
-            weatherSDK = objectPool.get(apiKey);
-            weatherSDK.setMode(mode);
-            weatherSDK.setPolling(mode == OpenWeatherSDKMode.POLLING);
-        } else {
-            weatherSDK = new OpenWeatherSDK(apiKey, mode);
-            objectPool.put(apiKey, weatherSDK);
-        }
-        return weatherSDK;
+        return factory(apiKey, mode, OpenWeatherSDKConfig.defaults());
+    }
+
+    /**
+     * Factory method to create or get (from the default registry) an instance of OpenWeatherSDK with the given
+     * network and threading configuration. The configuration only applies when a new instance is created.
+     *
+     * @param apiKey The API key for accessing the OpenWeatherMap API.
+     * @param mode   The mode of operation for the SDK. (Polling or On Demand)
+     * @param config The configuration of the HTTP client.
+     * @return An instance of OpenWeatherSDK.
+     */
+    public static OpenWeatherSDK factory(String apiKey, OpenWeatherSDKMode mode, OpenWeatherSDKConfig config) {
+        return OpenWeatherSDKRegistry.getDefault().acquire(apiKey, mode, config);
     }
 
-    private OpenWeatherSDK(String apiKey, OpenWeatherSDKMode mode) {
+    OpenWeatherSDK(OpenWeatherSDKRegistry registry, String apiKey, OpenWeatherSDKMode mode,
+                   OpenWeatherSDKConfig config, SharedRateLimit rateLimit) {
+        this.registry = registry;
+        this.rateLimit = rateLimit;
         this.apiKey = apiKey;
         this.mode = mode;
-        httpClient = HttpClient.newBuilder().build();
-        weatherCash = new HashMap<>();
+        this.config = config;
+        // Validated before any thread is created, so a rejected configuration leaks nothing.
+        circuitBreaker = new CircuitBreaker(config.getCircuitBreaker());
+        httpExecutor = config.createExecutor();
+        httpClient = config.createHttpClient(httpExecutor);
+        String baseUri = config.getBaseUri().toString();
+        String apiUri = baseUri.endsWith("/") ? baseUri.substring(0, baseUri.length() - 1) : baseUri;
+        weatherEndpoint = apiUri + "/data/2.5/weather?";
+        groupEndpoint = apiUri + "/data/2.5/group?id=";
+        forecastEndpoint = apiUri + "/data/2.5/forecast?";
+        changeNotifier = new WeatherChangeNotifier(config.getNotifierThreads());
+        setWeatherCache(config.getWeatherCacheFactory() != null
+                ? config.getWeatherCacheFactory().get()
+                : new ConcurrentWeatherCache(config.getWeatherCacheMaxSize()));
         polling = mode == OpenWeatherSDKMode.POLLING;
     }
 
     /**
-     * Releases the SDK object and removes it from the object pool.
+     * Releases one reference to the SDK object. When the last reference is released, the object is removed from
+     * its registry, the background refresh stops, a final cache snapshot is written if persistence is enabled
+     * and the HTTP client threads created for it are shut down. The object cannot start polling again after that.
      */
     public void releaseSDKObject() {
-        objectPool.remove(apiKey);
-        System.gc();
+        registry.release(this);
+    }
+
+    /**
+     * Stop all background work of this SDK object. Called by the registry once the object is unregistered.
+     */
+    void shutdown() {
+        WeatherRefresher currentRefresher;
+        synchronized (this) {
+            shutDown = true;
+            currentRefresher = refresher;
+            refresher = null;
+        }
+        // Every step runs even if an earlier one fails, so a failed final snapshot does not leak threads.
+        RuntimeException failure = null;
+        try {
+            if (currentRefresher != null) {
+                currentRefresher.shutdown();
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        try {
+            changeNotifier.shutdown();
+        } catch (RuntimeException e) {
+            failure = addFailure(failure, e);
+        }
+        try {
+            disablePersistence();
+        } catch (RuntimeException e) {
+            failure = addFailure(failure, e);
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdown();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Keep the first failure of a sequence of steps, attaching the later ones to it.
+     *
+     * @param failure The first failure, or null if no step failed yet.
+     * @param e       The failure of the last step.
+     * @return The first failure.
+     */
+    static RuntimeException addFailure(RuntimeException failure, RuntimeException e) {
+        if (failure == null) {
+            return e;
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    /**
+     * Restores the weather cache from a snapshot file and then saves the cache to that file periodically,
+     * so a restarted application does not have to query every city again. Entries older than the hard TTL
+     * are not restored. A final snapshot is written when the SDK object is released.
+     *
+     * @param snapshotFile     The snapshot file.
+     * @param snapshotInterval The time between two snapshots.
+     * @return The number of cities restored from the snapshot file.
+     * @throws UncheckedIOException If the snapshot file exists but cannot be read.
+     */
+    public synchronized int enablePersistence(Path snapshotFile, Duration snapshotInterval) {
+        disablePersistence();
+        // The snapshots read the weather cache field, so they follow a cache replaced within the package.
+        WeatherCachePersistence cachePersistence = new WeatherCachePersistence(() -> weatherCache, snapshotFile,
+                maxTtl());
+        int restored;
+        try {
+            restored = cachePersistence.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indexLocations();
+        if (polling) {
+            for (String cityName : weatherCache.keys()) {
+                getRefresher().track(cityName);
+            }
+        }
+        cachePersistence.start(snapshotInterval);
+        persistence = cachePersistence;
+        return restored;
+    }
+
+    /**
+     * Stops the periodic cache snapshots, writing a final snapshot first.
+     * Does nothing if persistence is not enabled.
+     *
+     * @throws UncheckedIOException If the final snapshot cannot be written.
+     */
+    public synchronized void disablePersistence() {
+        if (persistence != null) {
+            WeatherCachePersistence cachePersistence = persistence;
+            persistence = null;
+            cachePersistence.close();
+        }
+    }
+
+    /**
+     * Replaces the weather cache of this SDK object. Cached weather information is not copied. When
+     * persistence is enabled, the new cache is the one saved from now on. The cache is chosen when the object
+     * is created, with {@link OpenWeatherSDKConfig#getWeatherCacheFactory()}, since every holder of the shared
+     * object uses it.
+     *
+     * @param weatherCache The new weather cache.
+     */
+    void setWeatherCache(WeatherCache weatherCache) {
+        weatherCache.setEvictionListener(query -> {
+            locationIndex.remove(query);
+            metrics.cacheEviction();
+        });
+        this.weatherCache = weatherCache;
+        indexLocations();
+    }
+
+    /**
+     * Puts a weather store shared with other SDK objects, typically the other replicas of a service, behind the
+     * weather cache of this SDK object. Cities missing from the cache are looked up in the store before the API
+     * is queried, and weather information received from the API is written to the store. A city is only
+     * refreshed by the SDK object holding its lease in the store, once per TTL window: the soft TTL, or the
+     * refresh interval in polling mode. The other SDK objects keep serving the weather information they have
+     * meanwhile.
+     *
+     * @param weatherStore The shared weather store, or null to stop using one.
+     * @see io.github.fireg45.openweathersdk.cache.FileWeatherStore
+     */
+    public void setWeatherStore(WeatherStore weatherStore) {
+        this.weatherStore = weatherStore;
+    }
+
+    /**
+     * Sets the listener recording requests, response parsing and cache lookups of this SDK object.
+     * Use a {@link io.github.fireg45.openweathersdk.metrics.DefaultSdkMetrics} to read the metrics through
+     * its snapshot API.
+     *
+     * @param metrics The metrics listener, or null to stop recording.
+     */
+    public void setMetrics(SdkMetrics metrics) {
+        this.metrics = metrics != null ? metrics : SdkMetrics.NOOP;
+    }
+
+    /**
+     * Limits the rate of requests sent to the API with this API key. Requests are delayed to stay within the
+     * limit, short bursts are allowed, and a request that would wait longer than 5 seconds is rejected.
+     *
+     * @param requestsPerMinute The maximum number of requests per minute, or 0 for no limit.
+     * @see #setRateLimit(int, Duration)
+     */
+    public void setRateLimit(int requestsPerMinute) {
+        setRateLimit(requestsPerMinute, DEFAULT_MAX_RATE_LIMIT_WAIT);
+    }
+
+    /**
+     * Limits the rate of requests sent to the API with this API key.
+     * A request that is rejected by the limit, or sent while the API asks to back off after a 429 response,
+     * is answered with the cached weather information of the city if there is any, even if it has expired.
+     * Otherwise an OpenWeatherSDKTooManyRequestsException is thrown. The counters of the previous limit are
+     * reset. The limit and the 429 backoff are shared with the SDK object of the other mode registered for this
+     * API key in the same registry, so together they stay within the quota of the key.
+     *
+     * @param requestsPerMinute The maximum number of requests per minute, or 0 for no limit.
+     * @param maxWait           The longest time a request may be delayed before it is rejected.
+     */
+    public void setRateLimit(int requestsPerMinute, Duration maxWait) {
+        rateLimit.set(new RequestRateLimiter(requestsPerMinute, maxWait));
+    }
+
+    /**
+     * Returns the queued, throttled and shed request counters of the rate limiter.
+     *
+     * @return RateLimiterStats snapshot of the rate limiter.
+     */
+    public RateLimiterStats getRateLimiterStats() {
+        return rateLimit.get().stats();
+    }
+
+    /**
+     * Returns the state of the circuit breaker and its rejected request counters. While the circuit is open,
+     * requests are answered with the cached weather information of the city if there is any, even if it has
+     * expired. Otherwise an OpenWeatherSDKCircuitOpenException is thrown. The circuit of an SDK object created
+     * without a circuit breaker is always closed.
+     *
+     * @return CircuitBreakerStats snapshot of the circuit breaker.
+     * @see OpenWeatherSDKConfig#getCircuitBreaker()
+     */
+    public CircuitBreakerStats getCircuitBreakerStats() {
+        return circuitBreaker.stats();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the weather cache.
+     *
+     * @return CacheStats snapshot of the weather cache.
+     */
+    public CacheStats getCacheStats() {
+        return weatherCache.stats();
     }
 
     /**
      * Retrieves weather information for a specific city as a WeatherInfo object.
+     * City names are matched regardless of case, surrounding and repeated whitespace and trailing apostrophes,
+     * so {@code "Kazan'"} and {@code " kazan"} share one cache entry.
      *
      * @param cityName The name of the city to retrieve weather info for.
      * @return WeatherInfo object containing weather information.
+     * @throws IllegalArgumentException If the city name is null or blank.
      */
     public WeatherInfo getWeatherInfo(String cityName) {
-        return !polling ? weatherRequestOnDemand(cityName) : weatherRequestPolling(cityName);
+        return getWeather(cityQuery(cityName)).getWeatherInfo();
+    }
+
+    /**
+     * Retrieves weather information for a location as a WeatherInfo object.
+     * Weather information cached for a location within the nearby radius is returned without a request, so
+     * successive GPS fixes of a device do not each query the API.
+     *
+     * @param latitude  The latitude of the location in degrees, between -90 and 90.
+     * @param longitude The longitude of the location in degrees, between -180 and 180.
+     * @return WeatherInfo object containing weather information.
+     * @throws IllegalArgumentException If the coordinates are out of range.
+     */
+    public WeatherInfo getWeatherInfo(double latitude, double longitude) {
+        String query = coordinatesQuery(latitude, longitude);
+        CachedWeather nearby = getNearbyWeather(latitude, longitude);
+        return (nearby != null ? nearby : getWeather(query)).getWeatherInfo();
+    }
+
+    /**
+     * Retrieves weather information for a location without blocking the calling thread.
+     * Weather information cached for a location within the nearby radius completes the returned future
+     * immediately.
+     *
+     * @param latitude  The latitude of the location in degrees, between -90 and 90.
+     * @param longitude The longitude of the location in degrees, between -180 and 180.
+     * @return CompletableFuture completed with the WeatherInfo object.
+     * @throws IllegalArgumentException If the coordinates are out of range.
+     */
+    public CompletableFuture<WeatherInfo> getWeatherInfoAsync(double latitude, double longitude) {
+        String query = coordinatesQuery(latitude, longitude);
+        CachedWeather nearby = getNearbyWeather(latitude, longitude);
+        if (nearby != null) {
+            return CompletableFuture.completedFuture(nearby.getWeatherInfo());
+        }
+        return getWeatherAsync(query);
+    }
+
+    /**
+     * Retrieves weather information for a city by its OpenWeatherMap city ID as a WeatherInfo object.
+     *
+     * @param cityId The OpenWeatherMap ID of the city.
+     * @return WeatherInfo object containing weather information.
+     */
+    public WeatherInfo getWeatherInfoById(long cityId) {
+        return getWeather(cityIdQuery(cityId)).getWeatherInfo();
+    }
+
+    /**
+     * Retrieves weather information for a city by its OpenWeatherMap city ID without blocking the calling thread.
+     *
+     * @param cityId The OpenWeatherMap ID of the city.
+     * @return CompletableFuture completed with the WeatherInfo object.
+     */
+    public CompletableFuture<WeatherInfo> getWeatherInfoByIdAsync(long cityId) {
+        return getWeatherAsync(cityIdQuery(cityId));
+    }
+
+    /**
+     * Retrieves weather information for a specific city without blocking the calling thread.
+     * Cached weather information completes the returned future immediately. Otherwise, the future completes
+     * when the API responds, or completes exceptionally with the OpenWeatherSDK exception matching the
+     * response status.
+     *
+     * @param cityName The name of the city to retrieve weather info for.
+     * @return CompletableFuture completed with the WeatherInfo object.
+     */
+    public CompletableFuture<WeatherInfo> getWeatherInfoAsync(String cityName) {
+        return getWeatherAsync(cityQuery(cityName));
+    }
+
+    /**
+     * Retrieves weather information for many cities at once, using the batch concurrency and timeout
+     * configured on this SDK object.
+     *
+     * @param cities The names of the cities to retrieve weather info for.
+     * @return WeatherBatchResult with the weather information and the failures per city.
+     * @see #getWeatherInfo(Collection, int, Duration)
+     */
+    public WeatherBatchResult getWeatherInfo(Collection<String> cities) {
+        return getWeatherInfo(cities, batchConcurrency, batchTimeout);
+    }
+
+    /**
+     * Retrieves weather information for many cities at once.
+     * Cached cities are resolved first, the remaining cities are fetched in parallel with at most
+     * {@code maxConcurrency} requests in flight. Cities that are not resolved when the timeout elapses are
+     * reported as failed.
+     *
+     * @param cities         The names of the cities to retrieve weather info for.
+     * @param maxConcurrency The maximum number of requests in flight.
+     * @param timeout        The time to wait for the whole batch.
+     * @return WeatherBatchResult with the weather information and the failures per city.
+     */
+    public WeatherBatchResult getWeatherInfo(Collection<String> cities, int maxConcurrency, Duration timeout) {
+        Map<String, WeatherInfo> cached = new LinkedHashMap<>();
+        Map<String, Throwable> errors = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String city : new LinkedHashSet<>(cities)) {
+            String query;
+            try {
+                query = cityQuery(city);
+            } catch (IllegalArgumentException e) {
+                // A null or blank name fails on its own instead of failing the batch.
+                errors.put(city, e);
+                continue;
+            }
+            CachedWeather cachedWeather = getActualWeather(query);
+            if (cachedWeather != null) {
+                cached.put(city, cachedWeather.getWeatherInfo());
+            } else {
+                misses.add(city);
+            }
+        }
+        if (misses.isEmpty()) {
+            return new WeatherBatchResult(cached, errors);
+        }
+        WeatherBatchResult fetched;
+        try {
+            fetched = new WeatherBatchLoader(misses, this::getWeatherInfoAsync, maxConcurrency)
+                    .load(timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        cached.putAll(fetched.getWeather());
+        errors.putAll(fetched.getErrors());
+        return new WeatherBatchResult(cached, errors);
+    }
+
+    /**
+     * Retrieves weather information for many cities by their OpenWeatherMap city IDs, using the batch concurrency
+     * and timeout configured on this SDK object.
+     *
+     * @param cityIds The OpenWeatherMap IDs of the cities to retrieve weather info for.
+     * @return WeatherBatchResult with the weather information and the failures per city ID.
+     * @see #getWeatherInfoById(Collection, int, Duration)
+     */
+    public WeatherBatchResult getWeatherInfoById(Collection<Long> cityIds) {
+        return getWeatherInfoById(cityIds, batchConcurrency, batchTimeout);
+    }
+
+    /**
+     * Retrieves weather information for many cities by their OpenWeatherMap city IDs.
+     * Cached cities are resolved first, the remaining cities are fetched with the multi-city group endpoint,
+     * up to 20 cities per request, with at most {@code maxConcurrency} requests in flight. The results are keyed
+     * by the decimal city ID. A city missing from the group response is reported with an
+     * OpenWeatherSDKNotFoundException, and cities that are not resolved when the timeout elapses are reported as
+     * failed. Like single lookups, a cached city whose group request is rejected by the rate limit or the open
+     * circuit is served stale. Unlike single lookups, group requests are not coalesced with concurrent lookups
+     * of the same cities.
+     *
+     * @param cityIds        The OpenWeatherMap IDs of the cities to retrieve weather info for.
+     * @param maxConcurrency The maximum number of requests in flight.
+     * @param timeout        The time to wait for the whole batch.
+     * @return WeatherBatchResult with the weather information and the failures per city ID.
+     */
+    public WeatherBatchResult getWeatherInfoById(Collection<Long> cityIds, int maxConcurrency, Duration timeout) {
+        Map<String, WeatherInfo> cached = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (Long cityId : new LinkedHashSet<>(cityIds)) {
+            CachedWeather cachedWeather = getActualWeather(cityIdQuery(cityId));
+            if (cachedWeather != null) {
+                cached.put(String.valueOf(cityId), cachedWeather.getWeatherInfo());
+            } else {
+                misses.add(String.valueOf(cityId));
+            }
+        }
+        if (misses.isEmpty()) {
+            return new WeatherBatchResult(cached, new LinkedHashMap<>());
+        }
+        // Every group of misses is fetched by the first of its cities the loader starts. The loader starts cities
+        // in order and a whole group completes at once, so allowing maxConcurrency groups of cities in flight
+        // keeps exactly maxConcurrency requests in flight.
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < misses.size(); i += GROUP_MAX_SIZE) {
+            List<String> group = misses.subList(i, Math.min(i + GROUP_MAX_SIZE, misses.size()));
+            group.forEach(cityId -> groups.put(cityId, group));
+        }
+        Map<List<String>, CompletableFuture<Map<Long, CachedWeather>>> groupRequests = new ConcurrentHashMap<>();
+        WeatherBatchResult fetched;
+        try {
+            fetched = new WeatherBatchLoader(misses, cityId -> groupRequests
+                    .computeIfAbsent(groups.get(cityId), group -> queryGroupAsync(toCityIds(group)))
+                    .thenApply(weather -> {
+                        CachedWeather cachedWeather = weather.get(Long.parseLong(cityId));
+                        if (cachedWeather == null) {
+                            throw raise(new OpenWeatherSDKNotFoundException("city not found"));
+                        }
+                        return cachedWeather;
+                    })
+                    .exceptionally(throwable -> staleWeatherOrRethrow(CITY_ID_QUERY_PREFIX + cityId, throwable))
+                    .thenApply(cachedWeather -> {
+                        if (polling) {
+                            getRefresher().track(CITY_ID_QUERY_PREFIX + cityId);
+                        }
+                        return cachedWeather.getWeatherInfo();
+                    }), (int) Math.min((long) maxConcurrency * GROUP_MAX_SIZE, Integer.MAX_VALUE))
+                    .load(timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        cached.putAll(fetched.getWeather());
+        return new WeatherBatchResult(cached, fetched.getErrors());
+    }
+
+    /**
+     * Subscribes to the weather changes of a city with the default thresholds.
+     *
+     * @param cityName The name of the city.
+     * @param listener The listener receiving the changes.
+     * @return WeatherSubscription to close when the changes are no longer needed.
+     * @see #subscribe(String, WeatherListener, ChangeThresholds)
+     */
+    public WeatherSubscription subscribe(String cityName, WeatherListener listener) {
+        return subscribe(cityName, listener, ChangeThresholds.defaults());
+    }
+
+    /**
+     * Subscribes to the weather changes of a city. The listener first receives the current weather information
+     * of the city, then the weather information refreshed in the background every refresh interval whenever it
+     * changed beyond the thresholds, in any mode. Listeners run on threads of the SDK object and never block
+     * the refresh: a listener slower than the changes only receives the latest one.
+     *
+     * @param cityName   The name of the city.
+     * @param listener   The listener receiving the changes.
+     * @param thresholds The changes pushed to the listener.
+     * @return WeatherSubscription to close when the changes are no longer needed.
+     * @throws IllegalArgumentException If the city name is null or blank.
+     */
+    public WeatherSubscription subscribe(String cityName, WeatherListener listener, ChangeThresholds thresholds) {
+        String query = cityQuery(cityName);
+        WeatherRefresher currentRefresher = getRefresher();
+        WeatherSubscription subscription = changeNotifier.subscribe(cityName, query, listener, thresholds);
+        CachedWeather cachedWeather = getCachedWeather(query);
+        if (cachedWeather != null) {
+            subscription.offer(cachedWeather.getWeatherInfo());
+        } else {
+            // The response is published to the subscription; a failure is retried by the refresher.
+            queryWeatherAsync(query);
+        }
+        currentRefresher.track(query);
+        return subscription;
+    }
+
+    /**
+     * Retrieves the 5-day forecast in 3-hour steps for a specific city as a ForecastSeries.
+     * Forecasts are cached separately from the weather information, for the forecast TTL, and concurrent
+     * lookups of the same city share a single HTTP request.
+     *
+     * @param cityName The name of the city to retrieve the forecast for.
+     * @return ForecastSeries of the forecast time steps.
+     * @throws IllegalArgumentException If the city name is null or blank.
+     */
+    public ForecastSeries getForecast(String cityName) {
+        return queryForecast(cityQuery(cityName));
+    }
+
+    /**
+     * Retrieves the 5-day forecast in 3-hour steps for a specific city without blocking the calling thread.
+     * A cached forecast completes the returned future immediately.
+     *
+     * @param cityName The name of the city to retrieve the forecast for.
+     * @return CompletableFuture completed with the ForecastSeries.
+     * @throws IllegalArgumentException If the city name is null or blank.
+     */
+    public CompletableFuture<ForecastSeries> getForecastAsync(String cityName) {
+        return queryForecastAsync(cityQuery(cityName));
     }
 
     /**
@@ -99,145 +681,1117 @@ public class OpenWeatherSDK {
      * @return Weather information as a JSON string.
      */
     public String getWeatherAsJsonString(String cityName) {
-        return getWeatherInfo(cityName).toJSON().toString();
+        return getWeather(cityQuery(cityName)).getJson();
     }
 
     /**
-     * Check if the cached weather information has expired.
+     * Build the API query looking a city up by name. Spellings of the same city give the same query, and the
+     * keys of recently used names are kept so they are only normalized and encoded once.
      *
-     * @param cachedWeather The cached weather information.
-     * @return True if the weather information has expired, false otherwise.
+     * @param cityName The name of the city.
+     * @return The query, which is also the cache key of the city.
+     * @throws IllegalArgumentException If the city name is null or blank.
      */
-    private boolean weatherIsExpired(CachedWeather cachedWeather) {
-        return System.currentTimeMillis() - cachedWeather.getTimestampInMillis() > WEATHER_ACTUALITY_TIME;
+    private String cityQuery(String cityName) {
+        if (cityName == null) {
+            throw new IllegalArgumentException("Invalid city name: null");
+        }
+        CityKey cityKey = cityKeys.getByName(cityName);
+        if (cityKey == null) {
+            cityKey = cityKeys.put(cityName, new CityKey(cityName, this::getRequest));
+        }
+        return cityKey.getQuery();
     }
 
     /**
-     * Construct an HTTP request for the given city name.
+     * Build the API query looking a city up by its OpenWeatherMap ID.
      *
-     * @param cityName The name of the city for the weather request.
-     * @return HttpRequest object for the city weather request.
+     * @param cityId The OpenWeatherMap ID of the city.
+     * @return The query, which is also the cache key of the city.
      */
-    private HttpRequest getRequest(String cityName) {
-        return HttpRequest.newBuilder(
-                URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + cityName + "&appid=" + apiKey)
-        ).build();
+    private static String cityIdQuery(long cityId) {
+        return CITY_ID_QUERY_PREFIX + cityId;
     }
 
     /**
-     * Perform a weather request in polling mode for the given city.
+     * Check if the API query looks a city up by its OpenWeatherMap ID, so it can be fetched with the group
+     * endpoint.
      *
-     * @param cityName The name of the city for the weather request.
-     * @return WeatherInfo object containing weather information.
+     * @param query The API query of the location.
+     * @return True for a city ID query, false otherwise.
      */
-    private WeatherInfo weatherRequestPolling(String cityName) {
-        boolean newCity = false;
-        if (!weatherCash.containsKey(cityName)) {
-            cacheWeatherInfo(cityName, handleRequest(getRequest(cityName), cityName));
-            newCity = true;
+    private static boolean isCityIdQuery(String query) {
+        return query.startsWith(CITY_ID_QUERY_PREFIX);
+    }
+
+    /**
+     * Extract the OpenWeatherMap IDs of city ID queries or decimal city IDs.
+     *
+     * @param cities City ID queries or decimal city IDs.
+     * @return The city IDs, in the same order.
+     */
+    private static List<Long> toCityIds(List<String> cities) {
+        List<Long> cityIds = new ArrayList<>(cities.size());
+        for (String city : cities) {
+            cityIds.add(Long.parseLong(isCityIdQuery(city) ? city.substring(CITY_ID_QUERY_PREFIX.length()) : city));
         }
-        for (String key : weatherCash.keySet()) {
-            if (newCity && Objects.equals(key, cityName)) continue;
-            CachedWeather cachedWeather = weatherCash.get(key);
-            if (weatherIsExpired(cachedWeather)) {
-                HttpRequest weatherRequest = getRequest(key);
-                cacheWeatherInfo(key, handleRequest(weatherRequest, key));
-            }
+        return cityIds;
+    }
+
+    /**
+     * Build the API query looking a location up by coordinates.
+     *
+     * @param latitude  The latitude of the location in degrees.
+     * @param longitude The longitude of the location in degrees.
+     * @return The query, which is also the cache key of the location.
+     * @throws IllegalArgumentException If the coordinates are out of range.
+     */
+    private static String coordinatesQuery(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
         }
-        return getCachedWeather(cityName).getWeatherInfo();
+        return "lat=" + latitude + "&lon=" + longitude;
     }
 
     /**
-     * Perform a weather request on-demand for the city.
+     * Retrieve the cached weather information for a specific location without blocking, querying the API
+     * when needed.
      *
-     * @param city The name of the city for the weather request.
-     * @return WeatherInfo object containing weather information.
+     * @param query The API query of the location.
+     * @return CompletableFuture completed with the WeatherInfo object.
      */
-    private WeatherInfo weatherRequestOnDemand(String city) {
-        if (weatherCash.containsKey(city)) {
-            CachedWeather cachedWeather = getCachedWeather(city);
-            if (System.currentTimeMillis() - cachedWeather.getTimestampInMillis() < WEATHER_ACTUALITY_TIME) {
-                return cachedWeather.getWeatherInfo();
-            } else {
-                weatherCash.remove(city);
-                return queryWeather(city);
-            }
+    private CompletableFuture<WeatherInfo> getWeatherAsync(String query) {
+        CachedWeather cachedWeather = getActualWeather(query);
+        if (cachedWeather != null) {
+            return CompletableFuture.completedFuture(cachedWeather.getWeatherInfo());
         }
-        return queryWeather(city);
+        return queryWeatherAsync(query).thenApply(queried -> {
+            if (polling) {
+                getRefresher().track(query);
+            }
+            return queried.getWeatherInfo();
+        });
     }
 
     /**
-     * Query the weather information from the API for the given city.
+     * Get the weather information cached for the location nearest to the given coordinates within the
+     * nearby radius, if it can be returned without a request.
      *
-     * @param cityName The name of the city for the weather query.
-     * @return WeatherInfo object containing weather information.
+     * @param latitude  The latitude in degrees.
+     * @param longitude The longitude in degrees.
+     * @return CachedWeather object, or null if no usable location is cached nearby.
      */
-    private WeatherInfo queryWeather(String cityName) {
-        HttpRequest weatherRequest = HttpRequest.newBuilder(
-                URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + cityName + "&appid=" + apiKey)
-        ).build();
-        return handleRequest(weatherRequest, cityName);
+    private CachedWeather getNearbyWeather(double latitude, double longitude) {
+        String query = locationIndex.nearest(latitude, longitude, nearbyRadiusMeters, candidate -> {
+            CachedWeather cachedWeather = weatherCache.peek(candidate);
+            return cachedWeather != null && (polling || !weatherIsExpired(cachedWeather));
+        });
+        return query != null ? getActualWeather(query) : null;
     }
 
     /**
-     * Handle the HTTP request for weather information retrieval.
+     * Rebuild the location index from the content of the weather cache.
+     */
+    private void indexLocations() {
+        locationIndex.clear();
+        weatherCache.forEach(this::indexLocation);
+    }
+
+    /**
+     * Index the coordinates of cached weather information, so nearby coordinate lookups can use it.
      *
-     * @param weatherRequest The HttpRequest object for the weather request.
-     * @param cityName        The name of the city for the weather request.
-     * @return WeatherInfo object containing weather information.
+     * @param query         The API query of the location.
+     * @param cachedWeather The cached weather information.
      */
-    private WeatherInfo handleRequest(HttpRequest weatherRequest, String cityName) {
-        try {
-            HttpResponse<String> response = httpClient.send(weatherRequest, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 200) {
-                WeatherInfo weatherInfo = WeatherInfo.fromJson(response.body());
-                cacheWeatherInfo(cityName, weatherInfo);
-                return weatherInfo;
-            } else {
-                JSONObject jsonObject = new JSONObject(response.body());
-                String message = jsonObject.getString("message");
-                switch (response.statusCode()) {
-                    case 400 -> throw new OpenWeatherSDKBadRequestException(message);
-                    case 401 -> throw new OpenWeatherSDKUnauthorizedException(message);
-                    case 404 -> throw new OpenWeatherSDKNotFoundException(message);
-                    case 429 -> throw new OpenWeatherSDKTooManyRequestsException(message);
-                    default -> throw new OpenWeatherSDKServerException(message);
-                }
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
+    private void indexLocation(String query, CachedWeather cachedWeather) {
+        Coord coord = cachedWeather.getWeatherInfo().getCoord();
+        if (coord != null) {
+            locationIndex.put(query, coord.getLat(), coord.getLon());
         }
     }
 
     /**
-     * Get the cached weather information for the given city.
+     * Retrieve the cached weather information for a specific city, querying the API when needed.
      *
-     * @param cityName The name of the city for cached weather retrieval.
-     * @return CachedWeather object containing cached weather information.
+     * @param query The API query of the location.
+     * @return CachedWeather object containing weather information.
      */
-    private CachedWeather getCachedWeather(String cityName) {
-        return weatherCash.get(cityName);
+    private CachedWeather getWeather(String query) {
+        return !polling ? weatherRequestOnDemand(query) : weatherRequestPolling(query);
     }
 
     /**
-     * Cache the weather information for the city.
+     * Check if the cached weather information has expired.
      *
-     * @param city        The name of the city for caching weather information.
-     * @param weatherInfo The WeatherInfo object to cache.
+     * @param cachedWeather The cached weather information.
+     * @return True if the weather information has expired, false otherwise.
      */
-    private void cacheWeatherInfo(String city, WeatherInfo weatherInfo) {
-        if (weatherCash.size() >= CACHE_MAX_SIZE) {
-            String maxKey = "";
-            long maxTime = 0;
-            for (String key : weatherCash.keySet()) {
-                long time = weatherCash.get(key).getTimestampInMillis();
-                if ((System.currentTimeMillis() - time) > maxTime) {
-                    maxTime = time;
-                    maxKey = key;
-                }
-            }
-            weatherCash.remove(maxKey);
-        }
-        weatherCash.put(city, new CachedWeather(weatherInfo));
+    private boolean weatherIsExpired(CachedWeather cachedWeather) {
+        return System.currentTimeMillis() - cachedWeather.getTimestampInMillis() > softTtl.toMillis();
+    }
+
+    /**
+     * Check if expired weather information may still be returned while it is refreshed in the background.
+     *
+     * @param cachedWeather The cached weather information.
+     * @return True if the weather information is not older than the hard TTL, false otherwise.
+     */
+    private boolean weatherIsRevalidatable(CachedWeather cachedWeather) {
+        return System.currentTimeMillis() - cachedWeather.getTimestampInMillis() <= maxTtl().toMillis();
+    }
+
+    /**
+     * Get the longest time cached weather information is used: the hard TTL, or the soft TTL if it is longer.
+     *
+     * @return The maximum age of returned weather information.
+     */
+    private Duration maxTtl() {
+        return hardTtl.compareTo(softTtl) > 0 ? hardTtl : softTtl;
+    }
+
+    /**
+     * Get the cached weather information for the given city if it can be returned without a request:
+     * any cached value in polling mode, in on-demand mode a value that has not expired or that has not
+     * reached the hard TTL yet. A value between the soft and hard TTL is refreshed in the background.
+     *
+     * @param query The API query of the location.
+     * @return CachedWeather object, or null if the city has to be queried.
+     */
+    private CachedWeather getActualWeather(String query) {
+        CachedWeather cachedWeather = weatherCache.get(query);
+        if (cachedWeather == null) {
+            metrics.cacheMiss();
+            return null;
+        }
+        if (polling) {
+            getRefresher().track(query);
+            metrics.cacheHit();
+            return cachedWeather;
+        }
+        if (!weatherIsExpired(cachedWeather)) {
+            metrics.cacheHit();
+            return cachedWeather;
+        }
+        metrics.cacheExpiration();
+        if (weatherIsRevalidatable(cachedWeather)) {
+            queryWeatherAsync(query);
+            metrics.cacheHit();
+            return cachedWeather;
+        }
+        metrics.cacheMiss();
+        return null;
+    }
+
+    /**
+     * Get the HTTP request for the given location: the prebuilt request of a city looked up by name,
+     * or a new request.
+     *
+     * @param query The API query of the location.
+     * @return HttpRequest object for the city weather request.
+     */
+    private HttpRequest getWeatherRequest(String query) {
+        CityKey cityKey = cityKeys.getByQuery(query);
+        return cityKey != null ? cityKey.getRequest() : getRequest(query);
+    }
+
+    /**
+     * Construct an HTTP request for the given location.
+     *
+     * @param query The encoded API query of the location.
+     * @return HttpRequest object for the city weather request.
+     */
+    private HttpRequest getRequest(String query) {
+        return newRequest(weatherEndpoint + query + "&appid=" + apiKey);
+    }
+
+    /**
+     * Construct an HTTP request with the timeout and encoding of the configuration.
+     *
+     * @param uri The request URI.
+     * @return HttpRequest object for the URI.
+     */
+    private HttpRequest newRequest(String uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri));
+        if (config.getRequestTimeout() != null) {
+            builder.timeout(config.getRequestTimeout());
+        }
+        if (config.isGzip()) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        return builder.build();
+    }
+
+    /**
+     * Perform a weather request in polling mode for the given city.
+     * Cached cities are returned without any network call, a new city is fetched once and then
+     * refreshed in the background.
+     *
+     * @param query The API query of the location.
+     * @return CachedWeather object containing weather information.
+     */
+    private CachedWeather weatherRequestPolling(String query) {
+        CachedWeather cachedWeather = getActualWeather(query);
+        if (cachedWeather != null) {
+            return cachedWeather;
+        }
+        cachedWeather = queryWeather(query);
+        getRefresher().track(query);
+        return cachedWeather;
+    }
+
+    /**
+     * Get the background refresher of the polling mode, starting it on first use.
+     *
+     * @return WeatherRefresher of this SDK object.
+     * @throws IllegalStateException If the SDK object has been released.
+     */
+    private WeatherRefresher getRefresher() {
+        WeatherRefresher currentRefresher = refresher;
+        if (currentRefresher == null) {
+            synchronized (this) {
+                currentRefresher = refresher;
+                if (currentRefresher == null) {
+                    if (shutDown) {
+                        throw new IllegalStateException("The SDK object has been released");
+                    }
+                    currentRefresher = new WeatherRefresher(refreshInterval, refreshJitter, maxConcurrentRefreshes,
+                            this::refreshWeather, OpenWeatherSDK::isCityIdQuery, this::refreshGroup, GROUP_MAX_SIZE,
+                            this::isRefreshed);
+                    refresher = currentRefresher;
+                }
+            }
+        }
+        return currentRefresher;
+    }
+
+    /**
+     * Fetch fresh weather information for a city tracked by the background refresher.
+     *
+     * @param query The API query of the location.
+     */
+    private void refreshWeather(String query) {
+        inFlightRequests.execute(query, () -> {
+            CachedWeather sharedWeather = getSharedWeather(query, refreshInterval);
+            return sharedWeather != null ? sharedWeather : handleRequest(getWeatherRequest(query), query);
+        });
+    }
+
+    /**
+     * Fetch fresh weather information for cities tracked by ID with a single group request.
+     *
+     * @param queries The city ID queries of the cities, at most 20.
+     */
+    private void refreshGroup(List<String> queries) {
+        try {
+            awaitTurn(reserveRequest());
+            handleGroupResponse(send(getGroupRequest(toCityIds(queries)), groupBodyHandler));
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Check if the background refresher should keep refreshing the given city.
+     *
+     * @param query The API query of the location.
+     * @return True while the city has subscriptions or the SDK is polling and the city is cached, false otherwise.
+     */
+    private boolean isRefreshed(String query) {
+        return changeNotifier.hasSubscriptions(query) || polling && weatherCache.keys().contains(query);
+    }
+
+    /**
+     * Perform a weather request on-demand for the city.
+     * Weather information between the soft and hard TTL is returned at once and refreshed in the background,
+     * older weather information is queried while the caller waits.
+     *
+     * @param query The API query of the location.
+     * @return CachedWeather object containing weather information.
+     */
+    private CachedWeather weatherRequestOnDemand(String query) {
+        CachedWeather cachedWeather = getActualWeather(query);
+        if (cachedWeather != null) {
+            return cachedWeather;
+        }
+        // An expired entry stays cached until it is replaced, so it can be served while requests are throttled.
+        return queryWeather(query);
+    }
+
+    /**
+     * Query the weather information from the API for the given city.
+     * Concurrent queries for the same city share a single HTTP request, and a city the API recently rejected
+     * as unknown or invalid fails again without a request.
+     *
+     * @param query The API query of the location.
+     * @return CachedWeather object containing weather information.
+     */
+    private CachedWeather queryWeather(String query) {
+        return inFlightRequests.execute(query, () -> {
+            CachedWeather cachedWeather = getCachedWeather(query);
+            if (cachedWeather != null && !weatherIsExpired(cachedWeather)) {
+                return cachedWeather;
+            }
+            RuntimeException negativeResult = negativeResults.lookup(query);
+            if (negativeResult != null) {
+                throw raise(negativeResult);
+            }
+            CachedWeather sharedWeather = getSharedWeather(query, softTtl);
+            if (sharedWeather != null) {
+                return sharedWeather;
+            }
+            try {
+                return handleRequest(getWeatherRequest(query), query);
+            } catch (OpenWeatherSDKTooManyRequestsException e) {
+                return staleWeatherOrThrow(query, e);
+            } catch (OpenWeatherSDKCircuitOpenException e) {
+                return staleWeatherOrThrow(query, e);
+            }
+        });
+    }
+
+    /**
+     * Query the weather information from the API for the given city without blocking the calling thread.
+     * Concurrent queries for the same city share a single HTTP request, and a city the API recently rejected
+     * as unknown or invalid fails again without a request.
+     *
+     * @param query The API query of the location.
+     * @return CompletableFuture completed with the CachedWeather object.
+     */
+    private CompletableFuture<CachedWeather> queryWeatherAsync(String query) {
+        return inFlightRequests.executeAsync(query, () -> {
+            CachedWeather cachedWeather = getCachedWeather(query);
+            if (cachedWeather != null && !weatherIsExpired(cachedWeather)) {
+                return CompletableFuture.completedFuture(cachedWeather);
+            }
+            RuntimeException negativeResult = negativeResults.lookup(query);
+            if (negativeResult != null) {
+                throw raise(negativeResult);
+            }
+            CachedWeather sharedWeather = getSharedWeather(query, softTtl);
+            if (sharedWeather != null) {
+                return CompletableFuture.completedFuture(sharedWeather);
+            }
+            CompletableFuture<HttpResponse<ApiResponseBody<WeatherInfo>>> response;
+            long waitNanos = reserveRequest();
+            if (waitNanos > 0) {
+                response = CompletableFuture.runAsync(() -> {
+                }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)).thenCompose(ignored ->
+                        sendHedgedAsync(getWeatherRequest(query), weatherBodyHandler));
+            } else {
+                response = sendHedgedAsync(getWeatherRequest(query), weatherBodyHandler);
+            }
+            return response.thenApply(received -> handleResponse(received, query));
+        }).exceptionally(throwable -> staleWeatherOrRethrow(query, throwable));
+    }
+
+    /**
+     * Serve the cached weather information of a city whose asynchronous request was rejected by the rate limit
+     * or the open circuit, or rethrow the failure of the request.
+     *
+     * @param query     The API query of the location.
+     * @param throwable The failure of the request.
+     * @return CachedWeather object, possibly expired.
+     * @throws CompletionException If the request failed for another reason or the city is not cached.
+     */
+    private CachedWeather staleWeatherOrRethrow(String query, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+        if (cause instanceof OpenWeatherSDKTooManyRequestsException tooManyRequests) {
+            return staleWeatherOrThrow(query, tooManyRequests);
+        }
+        if (cause instanceof OpenWeatherSDKCircuitOpenException circuitOpen) {
+            return staleWeatherOrThrow(query, circuitOpen);
+        }
+        throw throwable instanceof CompletionException completion ? completion : new CompletionException(cause);
+    }
+
+    /**
+     * Get the forecast of a city from the forecast cache, querying the API when it is not cached within the
+     * forecast TTL. A city the API recently rejected as unknown or invalid fails again without a request.
+     *
+     * @param query The API query of the city.
+     * @return ForecastSeries of the forecast time steps.
+     */
+    private ForecastSeries queryForecast(String query) {
+        ForecastSeries forecast = forecastCache.get(query, forecastTtl.toMillis());
+        if (forecast != null) {
+            return forecast;
+        }
+        return inFlightForecasts.execute(query, () -> {
+            ForecastSeries cachedForecast = forecastCache.get(query, forecastTtl.toMillis());
+            if (cachedForecast != null) {
+                return cachedForecast;
+            }
+            RuntimeException negativeResult = negativeResults.lookup(query);
+            if (negativeResult != null) {
+                throw raise(negativeResult);
+            }
+            HttpRequest forecastRequest = getForecastRequest(query);
+            try {
+                awaitTurn(reserveRequest());
+                return handleForecastResponse(config.getHedgeDelay() != null
+                        ? awaitResponse(sendHedgedAsync(forecastRequest, forecastBodyHandler))
+                        : send(forecastRequest, forecastBodyHandler), query);
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            } catch (OpenWeatherSDKTooManyRequestsException | OpenWeatherSDKCircuitOpenException e) {
+                return staleForecastOrThrow(query, e);
+            }
+        });
+    }
+
+    /**
+     * Get the forecast of a city without blocking the calling thread, querying the API when it is not cached
+     * within the forecast TTL.
+     *
+     * @param query The API query of the city.
+     * @return CompletableFuture completed with the ForecastSeries.
+     */
+    private CompletableFuture<ForecastSeries> queryForecastAsync(String query) {
+        ForecastSeries forecast = forecastCache.get(query, forecastTtl.toMillis());
+        if (forecast != null) {
+            return CompletableFuture.completedFuture(forecast);
+        }
+        return inFlightForecasts.executeAsync(query, () -> {
+            ForecastSeries cachedForecast = forecastCache.get(query, forecastTtl.toMillis());
+            if (cachedForecast != null) {
+                return CompletableFuture.completedFuture(cachedForecast);
+            }
+            RuntimeException negativeResult = negativeResults.lookup(query);
+            if (negativeResult != null) {
+                throw raise(negativeResult);
+            }
+            HttpRequest forecastRequest = getForecastRequest(query);
+            CompletableFuture<HttpResponse<ApiResponseBody<ForecastSeries>>> response;
+            long waitNanos = reserveRequest();
+            if (waitNanos > 0) {
+                response = CompletableFuture.runAsync(() -> {
+                }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)).thenCompose(ignored ->
+                        sendHedgedAsync(forecastRequest, forecastBodyHandler));
+            } else {
+                response = sendHedgedAsync(forecastRequest, forecastBodyHandler);
+            }
+            return response.thenApply(received -> handleForecastResponse(received, query));
+        }).exceptionally(throwable -> {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+            if (cause instanceof OpenWeatherSDKTooManyRequestsException
+                    || cause instanceof OpenWeatherSDKCircuitOpenException) {
+                return staleForecastOrThrow(query, (RuntimeException) cause);
+            }
+            throw throwable instanceof CompletionException completion ? completion : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Construct the HTTP request for the forecast of a city, sent with the spelling of the city name its key was
+     * created with, like the weather request.
+     *
+     * @param query The API query of the city.
+     * @return HttpRequest object for the forecast request.
+     */
+    private HttpRequest getForecastRequest(String query) {
+        CityKey cityKey = cityKeys.getByQuery(query);
+        return newRequest(forecastEndpoint + (cityKey != null ? cityKey.getNameQuery() : query) + "&appid=" + apiKey);
+    }
+
+    /**
+     * Handle the HTTP response of a forecast request: cache the forecast on success or throw the exception
+     * matching the status code.
+     *
+     * @param response The HttpResponse of the forecast request.
+     * @param query    The API query of the city.
+     * @return ForecastSeries of the forecast time steps.
+     */
+    private ForecastSeries handleForecastResponse(HttpResponse<ApiResponseBody<ForecastSeries>> response,
+                                                  String query) {
+        if (response.statusCode() != 200) {
+            throw responseException(response, query);
+        }
+        ForecastSeries forecast = response.body().value();
+        rateLimit.get().onSuccess();
+        forecastCache.put(query, forecast);
+        return forecast;
+    }
+
+    /**
+     * Get the cached forecast of a city whose request was rejected by the rate limit or the open circuit.
+     *
+     * @param query The API query of the city.
+     * @param e     The exception that rejected the request.
+     * @return ForecastSeries, possibly expired.
+     * @throws RuntimeException The given exception if the city is not cached.
+     */
+    private ForecastSeries staleForecastOrThrow(String query, RuntimeException e) {
+        ForecastSeries forecast = forecastCache.getStale(query);
+        if (forecast == null) {
+            throw e;
+        }
+        if (e instanceof OpenWeatherSDKCircuitOpenException) {
+            circuitBreaker.onStaleServed();
+        } else {
+            rateLimit.get().onStaleServed();
+        }
+        return forecast;
+    }
+
+    /**
+     * Query the weather information of several cities from the group endpoint without blocking the calling thread.
+     *
+     * @param cityIds The OpenWeatherMap IDs of the cities, at most 20.
+     * @return CompletableFuture completed with the cached weather information keyed by city ID.
+     */
+    private CompletableFuture<Map<Long, CachedWeather>> queryGroupAsync(List<Long> cityIds) {
+        CompletableFuture<HttpResponse<ApiResponseBody<List<WeatherInfo>>>> response;
+        long waitNanos;
+        try {
+            waitNanos = reserveRequest();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (waitNanos > 0) {
+            response = CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)).thenCompose(ignored ->
+                    sendAsync(getGroupRequest(cityIds), groupBodyHandler));
+        } else {
+            response = sendAsync(getGroupRequest(cityIds), groupBodyHandler);
+        }
+        return response.thenApply(this::handleGroupResponse);
+    }
+
+    /**
+     * Construct an HTTP request for the group endpoint.
+     *
+     * @param cityIds The OpenWeatherMap IDs of the cities, at most 20.
+     * @return HttpRequest object for the multi-city weather request.
+     */
+    private HttpRequest getGroupRequest(List<Long> cityIds) {
+        StringBuilder uri = new StringBuilder(groupEndpoint);
+        for (int i = 0; i < cityIds.size(); i++) {
+            if (i > 0) {
+                uri.append(',');
+            }
+            uri.append(cityIds.get(i));
+        }
+        return newRequest(uri.append("&appid=").append(apiKey).toString());
+    }
+
+    /**
+     * Handle the HTTP response of a group request: cache the weather information of every city under its city
+     * ID query, or throw the exception matching the status code.
+     *
+     * @param response The HttpResponse of the group request.
+     * @return The cached weather information keyed by city ID.
+     */
+    private Map<Long, CachedWeather> handleGroupResponse(HttpResponse<ApiResponseBody<List<WeatherInfo>>> response) {
+        if (response.statusCode() != 200) {
+            throw responseException(response, null);
+        }
+        List<WeatherInfo> weatherInfos = response.body().value();
+        rateLimit.get().onSuccess();
+        Map<Long, CachedWeather> weather = new LinkedHashMap<>();
+        for (WeatherInfo weatherInfo : weatherInfos) {
+            weather.put(weatherInfo.getId(), cacheWeatherInfo(cityIdQuery(weatherInfo.getId()), weatherInfo));
+        }
+        return weather;
+    }
+
+    /**
+     * Read the body of a current weather response, recording the parse time.
+     *
+     * @param reader The reader over the response body.
+     * @return WeatherInfo object initialized with the parsed data.
+     */
+    private WeatherInfo readWeatherInfo(JsonReader reader) {
+        long startNanos = System.nanoTime();
+        WeatherInfo weatherInfo = WeatherJsonReader.readWeatherInfo(reader);
+        metrics.responseParsed(System.nanoTime() - startNanos);
+        return weatherInfo;
+    }
+
+    /**
+     * Read the body of a group response, recording the parse time.
+     *
+     * @param reader The reader over the response body.
+     * @return The weather information of every city, in response order.
+     */
+    private List<WeatherInfo> readWeatherInfoList(JsonReader reader) {
+        long startNanos = System.nanoTime();
+        List<WeatherInfo> weatherInfos = new ArrayList<>();
+        WeatherJsonReader.readWeatherInfoList(reader, weatherInfos::add);
+        metrics.responseParsed(System.nanoTime() - startNanos);
+        return weatherInfos;
+    }
+
+    /**
+     * Read the body of a forecast response, recording the parse time.
+     *
+     * @param reader The reader over the response body.
+     * @return ForecastSeries of the forecast time steps.
+     */
+    private ForecastSeries readForecast(JsonReader reader) {
+        long startNanos = System.nanoTime();
+        ForecastSeries forecast = WeatherJsonReader.readForecast(reader);
+        metrics.responseParsed(System.nanoTime() - startNanos);
+        return forecast;
+    }
+
+    /**
+     * Reserve the right to send a request while the circuit is closed and under the rate limit.
+     *
+     * @return The time in nanoseconds to wait before sending the request.
+     * @throws OpenWeatherSDKCircuitOpenException     If the request is rejected by the circuit breaker.
+     * @throws OpenWeatherSDKTooManyRequestsException If the request is rejected by the rate limit.
+     */
+    private long reserveRequest() {
+        if (!circuitBreaker.tryAcquire()) {
+            throw raise(new OpenWeatherSDKCircuitOpenException("Requests are suspended while the API is failing"));
+        }
+        long waitNanos = rateLimit.get().reserve();
+        if (waitNanos < 0) {
+            circuitBreaker.onCancelled();
+        }
+        if (waitNanos == RequestRateLimiter.THROTTLED) {
+            throw raise(new OpenWeatherSDKTooManyRequestsException("Requests are throttled after a 429 response"));
+        }
+        if (waitNanos == RequestRateLimiter.SHED) {
+            throw raise(new OpenWeatherSDKTooManyRequestsException("Request rate limit exceeded"));
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Get the cached weather information of a city whose request was rejected for exceeding the rate limit.
+     *
+     * @param query The API query of the location.
+     * @param e     The exception that rejected the request.
+     * @return CachedWeather object, possibly expired.
+     * @throws OpenWeatherSDKTooManyRequestsException If the city is not cached.
+     */
+    private CachedWeather staleWeatherOrThrow(String query, OpenWeatherSDKTooManyRequestsException e) {
+        CachedWeather cachedWeather = getCachedWeather(query);
+        if (cachedWeather == null) {
+            throw e;
+        }
+        rateLimit.get().onStaleServed();
+        return cachedWeather;
+    }
+
+    /**
+     * Get the cached weather information of a city whose request was rejected by the open circuit.
+     *
+     * @param query The API query of the location.
+     * @param e     The exception that rejected the request.
+     * @return CachedWeather object, possibly expired.
+     * @throws OpenWeatherSDKCircuitOpenException If the city is not cached.
+     */
+    private CachedWeather staleWeatherOrThrow(String query, OpenWeatherSDKCircuitOpenException e) {
+        CachedWeather cachedWeather = getCachedWeather(query);
+        if (cachedWeather == null) {
+            throw e;
+        }
+        circuitBreaker.onStaleServed();
+        return cachedWeather;
+    }
+
+    /**
+     * Wait for the turn of a reserved request, giving the reservation back if the thread is interrupted.
+     *
+     * @param waitNanos The time in nanoseconds to wait.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    private void awaitTurn(long waitNanos) throws InterruptedException {
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                circuitBreaker.onCancelled();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Handle the HTTP request for weather information retrieval.
+     *
+     * @param weatherRequest The HttpRequest object for the weather request.
+     * @param query          The API query of the location.
+     * @return CachedWeather object containing weather information.
+     */
+    private CachedWeather handleRequest(HttpRequest weatherRequest, String query) {
+        try {
+            awaitTurn(reserveRequest());
+            return handleResponse(config.getHedgeDelay() != null
+                    ? awaitResponse(sendHedgedAsync(weatherRequest, weatherBodyHandler))
+                    : send(weatherRequest, weatherBodyHandler), query);
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Send the HTTP request and wait for the response, recording its latency and status code.
+     *
+     * @param weatherRequest The HttpRequest object for the weather request.
+     * @param bodyHandler    The handler parsing the response body.
+     * @param <T>            The type of the parsed value of a successful response.
+     * @return The HttpResponse of the weather request.
+     * @throws IOException          If the request fails.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    private <T> HttpResponse<ApiResponseBody<T>> send(HttpRequest weatherRequest, ApiBodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        SdkMetrics currentMetrics = metrics;
+        currentMetrics.requestStarted();
+        long startNanos = System.nanoTime();
+        long generation = circuitBreaker.generation();
+        try {
+            HttpResponse<ApiResponseBody<T>> response = httpClient.send(weatherRequest, bodyHandler);
+            currentMetrics.requestCompleted(response.statusCode(), System.nanoTime() - startNanos);
+            recordOutcome(response, null, generation);
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            currentMetrics.requestFailed(e, System.nanoTime() - startNanos);
+            recordOutcome(null, e, generation);
+            throw e;
+        }
+    }
+
+    /**
+     * Send the HTTP request without blocking, recording its latency and status code.
+     *
+     * @param weatherRequest The HttpRequest object for the weather request.
+     * @param bodyHandler    The handler parsing the response body.
+     * @param <T>            The type of the parsed value of a successful response.
+     * @return CompletableFuture completed with the HttpResponse of the weather request.
+     */
+    private <T> CompletableFuture<HttpResponse<ApiResponseBody<T>>> sendAsync(HttpRequest weatherRequest,
+                                                                            ApiBodyHandler<T> bodyHandler) {
+        SdkMetrics currentMetrics = metrics;
+        currentMetrics.requestStarted();
+        long startNanos = System.nanoTime();
+        long generation = circuitBreaker.generation();
+        CompletableFuture<HttpResponse<ApiResponseBody<T>>> response;
+        try {
+            response = httpClient.sendAsync(weatherRequest, bodyHandler);
+        } catch (RuntimeException e) {
+            currentMetrics.requestFailed(e, System.nanoTime() - startNanos);
+            recordOutcome(null, e, generation);
+            throw e;
+        }
+        CompletableFuture<HttpResponse<ApiResponseBody<T>>> recorded = response.whenComplete((received, throwable) -> {
+            long latencyNanos = System.nanoTime() - startNanos;
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+            if (throwable != null) {
+                currentMetrics.requestFailed(cause, latencyNanos);
+            } else {
+                currentMetrics.requestCompleted(received.statusCode(), latencyNanos);
+            }
+            recordOutcome(received, cause, generation);
+        });
+        // Cancelling the returned future, like a losing hedged request is, aborts the exchange.
+        recorded.whenComplete((received, throwable) -> {
+            if (throwable instanceof CancellationException) {
+                response.cancel(true);
+            }
+        });
+        return recorded;
+    }
+
+    /**
+     * Send the HTTP request without blocking and, if the hedge delay elapses before it is answered, send it
+     * a second time. The first response received is used and the other request is cancelled; the result only
+     * fails if every request sent fails. Without a hedge delay this is the same as a single request.
+     *
+     * @param weatherRequest The HttpRequest object for the weather request.
+     * @param bodyHandler    The handler parsing the response body.
+     * @param <T>            The type of the parsed value of a successful response.
+     * @return CompletableFuture completed with the first HttpResponse of the weather request.
+     */
+    private <T> CompletableFuture<HttpResponse<ApiResponseBody<T>>> sendHedgedAsync(HttpRequest weatherRequest,
+                                                                                  ApiBodyHandler<T> bodyHandler) {
+        Duration hedgeDelay = config.getHedgeDelay();
+        CompletableFuture<HttpResponse<ApiResponseBody<T>>> primary = sendAsync(weatherRequest, bodyHandler);
+        if (hedgeDelay == null) {
+            return primary;
+        }
+        CompletableFuture<HttpResponse<ApiResponseBody<T>>> winner = new CompletableFuture<>();
+        // Requests that may still complete the winner; it fails when the count drops to zero.
+        AtomicInteger pending = new AtomicInteger(1);
+        primary.whenComplete((received, throwable) -> settleHedged(winner, pending, received, throwable));
+        winner.whenComplete((received, throwable) -> primary.cancel(true));
+        CompletableFuture.delayedExecutor(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (winner.isDone() || !circuitBreaker.isClosed() || !rateLimit.get().tryReserve()
+                    || pending.getAndUpdate(count -> count == 0 ? 0 : count + 1) == 0) {
+                return;
+            }
+            CompletableFuture<HttpResponse<ApiResponseBody<T>>> hedge;
+            try {
+                hedge = sendAsync(weatherRequest, bodyHandler);
+            } catch (RuntimeException e) {
+                settleHedged(winner, pending, null, e);
+                return;
+            }
+            hedge.whenComplete((received, throwable) -> settleHedged(winner, pending, received, throwable));
+            winner.whenComplete((received, throwable) -> hedge.cancel(true));
+        });
+        return winner;
+    }
+
+    /**
+     * Complete a hedged request with the outcome of one of the requests sent for it.
+     *
+     * @param winner    The future of the hedged request.
+     * @param pending   The number of requests that may still complete the hedged request.
+     * @param received  The response of the request, or null if it failed.
+     * @param throwable The failure of the request, or null if it was answered.
+     * @param <R>       The type of the response.
+     */
+    private static <R> void settleHedged(CompletableFuture<R> winner, AtomicInteger pending, R received,
+                                         Throwable throwable) {
+        if (throwable == null) {
+            winner.complete(received);
+        } else if (pending.decrementAndGet() == 0) {
+            winner.completeExceptionally(throwable);
+        }
+    }
+
+    /**
+     * Wait for the response of a request sent without blocking.
+     *
+     * @param response The future of the response.
+     * @param <R>      The type of the response.
+     * @return The response.
+     * @throws IOException          If the request fails.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    private static <R> R awaitResponse(CompletableFuture<R> response) throws IOException, InterruptedException {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause()
+                    : e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Record the outcome of a request sent to the API in the circuit breaker. Server errors and requests that
+     * failed or timed out count as failures, any other response as a success, and cancelled or interrupted
+     * requests give their permit back.
+     *
+     * @param response   The response of the request, or null if it failed.
+     * @param throwable  The failure of the request, or null if it was answered.
+     * @param generation The generation of the circuit breaker when the request was sent.
+     */
+    private void recordOutcome(HttpResponse<?> response, Throwable throwable, long generation) {
+        if (response != null) {
+            if (response.statusCode() >= 500) {
+                circuitBreaker.onFailure(generation);
+            } else {
+                circuitBreaker.onSuccess(generation);
+            }
+        } else if (throwable instanceof IOException || throwable instanceof UncheckedIOException) {
+            circuitBreaker.onFailure(generation);
+        } else {
+            circuitBreaker.onCancelled(generation);
+        }
+    }
+
+    /**
+     * Record an exception raised by the SDK before it is thrown.
+     *
+     * @param e The exception to throw.
+     * @return The same exception.
+     */
+    private RuntimeException raise(RuntimeException e) {
+        metrics.errorRaised(e);
+        return e;
+    }
+
+    /**
+     * Handle the HTTP response of a weather request: cache the weather information on success
+     * or throw the exception matching the status code. Unknown and invalid cities are remembered for the
+     * negative TTL.
+     *
+     * @param response The HttpResponse of the weather request.
+     * @param query    The API query of the location.
+     * @return CachedWeather object containing weather information.
+     */
+    private CachedWeather handleResponse(HttpResponse<ApiResponseBody<WeatherInfo>> response, String query) {
+        if (response.statusCode() == 200) {
+            WeatherInfo weatherInfo = response.body().value();
+            rateLimit.get().onSuccess();
+            return cacheWeatherInfo(query, weatherInfo);
+        } else {
+            throw responseException(response, query);
+        }
+    }
+
+    /**
+     * Build the exception matching the status code of an error response. Unknown and invalid cities are
+     * remembered for the negative TTL. The side effects of the status code do not depend on the body, which
+     * proxies and gateways may send empty or as HTML; the status line is used when it has no message.
+     *
+     * @param response The HttpResponse of the failed request.
+     * @param query    The API query of the location, or null if the request was not for a single location.
+     * @return The recorded exception to throw.
+     */
+    private RuntimeException responseException(HttpResponse<? extends ApiResponseBody<?>> response, String query) {
+        String message = response.body() != null ? response.body().errorMessage() : null;
+        if (message == null) {
+            message = "HTTP " + response.statusCode();
+        }
+        switch (response.statusCode()) {
+            case 400 -> {
+                if (query != null) {
+                    negativeResults.put(query, 400, message, negativeTtl.toMillis());
+                }
+                return raise(new OpenWeatherSDKBadRequestException(message));
+            }
+            case 401 -> {
+                return raise(new OpenWeatherSDKUnauthorizedException(message));
+            }
+            case 404 -> {
+                if (query != null) {
+                    negativeResults.put(query, 404, message, negativeTtl.toMillis());
+                }
+                return raise(new OpenWeatherSDKNotFoundException(message));
+            }
+            case 429 -> {
+                rateLimit.get().throttle(retryAfter(response));
+                return raise(new OpenWeatherSDKTooManyRequestsException(message));
+            }
+            default -> {
+                return raise(new OpenWeatherSDKServerException(message));
+            }
+        }
+    }
+
+    /**
+     * Read the {@code Retry-After} header of a 429 response, given either in seconds or as an HTTP date.
+     *
+     * @param response The HttpResponse of the weather request.
+     * @return The delay requested by the API, or null if the response does not carry a valid header.
+     */
+    private static Duration retryAfter(HttpResponse<?> response) {
+        if (response.headers() == null) {
+            return null;
+        }
+        Optional<String> header = response.headers().firstValue("Retry-After");
+        if (header.isEmpty()) {
+            return null;
+        }
+        String value = header.get().trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Get the cached weather information for the given city without counting a cache hit or miss. Lookups
+     * are counted once, by {@link #getActualWeather(String)}; the checks made while serving them peek.
+     *
+     * @param query The API query of the location.
+     * @return CachedWeather object containing cached weather information.
+     */
+    private CachedWeather getCachedWeather(String query) {
+        return weatherCache.peek(query);
+    }
+
+    /**
+     * Cache the weather information for the city.
+     *
+     * @param query       The API query of the location.
+     * @param weatherInfo The WeatherInfo object to cache.
+     * @return The cached CachedWeather object.
+     */
+    private CachedWeather cacheWeatherInfo(String query, WeatherInfo weatherInfo) {
+        CachedWeather cachedWeather = new CachedWeather(weatherInfo);
+        weatherCache.put(query, cachedWeather);
+        indexLocation(query, cachedWeather);
+        changeNotifier.publish(query, weatherInfo);
+        WeatherStore store = weatherStore;
+        if (store != null) {
+            try {
+                store.put(query, cachedWeather);
+            } catch (IOException ignored) {
+                // The other SDK objects query the API themselves until a write succeeds.
+            }
+        }
+        return cachedWeather;
+    }
+
+    /**
+     * Get weather information of the shared weather store to return instead of querying the API: weather
+     * information stored within the lease duration, or, while another SDK object holds the lease of the city,
+     * the most recent weather information known.
+     *
+     * @param query         The API query of the location.
+     * @param leaseDuration The TTL window in which a city is refreshed once.
+     * @return CachedWeather object, or null if this SDK object has to query the API.
+     */
+    private CachedWeather getSharedWeather(String query, Duration leaseDuration) {
+        WeatherStore store = weatherStore;
+        if (store == null) {
+            return null;
+        }
+        try {
+            CachedWeather storedWeather = store.get(query);
+            if (storedWeather != null
+                    && System.currentTimeMillis() - storedWeather.getTimestampInMillis() <= leaseDuration.toMillis()) {
+                return cacheSharedWeather(query, storedWeather);
+            }
+            if (store.tryAcquireLease(query, storeOwner, leaseDuration)) {
+                return null;
+            }
+            CachedWeather cachedWeather = getCachedWeather(query);
+            if (storedWeather != null && (cachedWeather == null
+                    || storedWeather.getTimestampInMillis() > cachedWeather.getTimestampInMillis())) {
+                return cacheSharedWeather(query, storedWeather);
+            }
+            return cachedWeather;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cache weather information read from the shared weather store, keeping its timestamp.
+     *
+     * @param query         The API query of the location.
+     * @param cachedWeather The stored weather information.
+     * @return The same CachedWeather object.
+     */
+    private CachedWeather cacheSharedWeather(String query, CachedWeather cachedWeather) {
+        weatherCache.put(query, cachedWeather);
+        indexLocation(query, cachedWeather);
+        changeNotifier.publish(query, cachedWeather.getWeatherInfo());
+        return cachedWeather;
     }
 }
\ No newline at end of file
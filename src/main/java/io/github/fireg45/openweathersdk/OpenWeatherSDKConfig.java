@@ -0,0 +1,175 @@
+/**
+ * Network and threading configuration of the OpenWeatherSDK.
+ */
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.cache.WeatherCache;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Configuration of the HTTP client an OpenWeatherSDK object creates.
+ * <p>
+ * The HTTP client runs response handling and asynchronous lookups on its executor. By default it uses the JDK
+ * default executor. It can instead use a virtual thread per task, which suits tens of thousands of concurrent
+ * lookups, or a fixed pool of the given size. Virtual threads are only used when the JVM supports them; on
+ * older JVMs the fixed pool is used, sized to the number of processors when no size is configured.
+ *
+ * <pre>{@code
+ * OpenWeatherSDKConfig config = OpenWeatherSDKConfig.builder()
+ *         .virtualThreads(true)
+ *         .connectTimeout(Duration.ofSeconds(2))
+ *         .requestTimeout(Duration.ofSeconds(5))
+ *         .hedgeDelay(Duration.ofMillis(500))
+ *         .build();
+ * OpenWeatherSDK weatherSDK = OpenWeatherSDK.factory("your_api_key", OpenWeatherSDKMode.ON_DEMAND, config);
+ * }</pre>
+ */
+@Getter
+@ToString
+@Builder(toBuilder = true)
+public class OpenWeatherSDKConfig {
+    /**
+     * Run the HTTP client tasks on virtual threads when the JVM supports them.
+     */
+    @Builder.Default
+    private final boolean virtualThreads = false;
+    /**
+     * Number of threads of the HTTP client executor, or 0 to use the JDK default executor.
+     */
+    @Builder.Default
+    private final int threadPoolSize = 0;
+    /**
+     * Maximum time to establish a connection, or null to wait indefinitely.
+     */
+    @Builder.Default
+    private final Duration connectTimeout = Duration.ofSeconds(10);
+    /**
+     * Maximum time to wait for a response after sending a request, or null to wait indefinitely.
+     */
+    @Builder.Default
+    private final Duration requestTimeout = Duration.ofSeconds(30);
+    /**
+     * Preferred HTTP version. HTTP/2 falls back to HTTP/1.1 when the server does not support it.
+     */
+    @Builder.Default
+    private final HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+    /**
+     * Ask the API for gzip-compressed responses, which are decompressed before they are parsed.
+     */
+    @Builder.Default
+    private final boolean gzip = false;
+    /**
+     * Number of cities the default weather cache holds before it evicts the least recently used one.
+     */
+    @Builder.Default
+    private final int weatherCacheMaxSize = 10;
+    /**
+     * Creates the weather cache of the SDK object, or null to use a ConcurrentWeatherCache of
+     * {@code weatherCacheMaxSize} cities, for example {@code () -> new CompactWeatherCache(100_000)}.
+     */
+    @Builder.Default
+    private final Supplier<WeatherCache> weatherCacheFactory = null;
+    /**
+     * Thresholds of the circuit breaker that stops sending requests while the API keeps failing, for example
+     * {@link CircuitBreakerConfig#defaults()}, or null (the default) to always send requests.
+     */
+    @Builder.Default
+    private final CircuitBreakerConfig circuitBreaker = null;
+    /**
+     * Time after which a single weather request that has not been answered is sent a second time, the first
+     * response being used, or null to never hedge requests. Hedged requests are only sent while the circuit
+     * is closed and the rate limit allows them without waiting.
+     */
+    @Builder.Default
+    private final Duration hedgeDelay = null;
+    /**
+     * Number of threads delivering weather changes to the listeners of subscriptions. Subscriptions with a
+     * change pending wait for a free thread, so slow listeners cannot make the SDK start a thread each.
+     */
+    @Builder.Default
+    private final int notifierThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    /**
+     * Base URI of the OpenWeatherMap API, replaceable to target a proxy or a stub server.
+     */
+    @Builder.Default
+    private final URI baseUri = URI.create("https://api.openweathermap.org");
+
+    /**
+     * Get the default configuration.
+     *
+     * @return OpenWeatherSDKConfig with every option at its default value.
+     */
+    public static OpenWeatherSDKConfig defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Create the executor the HTTP client runs on.
+     *
+     * @return The new executor, or null to use the JDK default executor.
+     */
+    ExecutorService createExecutor() {
+        if (virtualThreads) {
+            ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+            if (virtualThreadExecutor != null) {
+                return virtualThreadExecutor;
+            }
+        }
+        if (threadPoolSize <= 0 && !virtualThreads) {
+            return null;
+        }
+        int size = threadPoolSize > 0 ? threadPoolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "openweathersdk-http-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create the HTTP client described by this configuration.
+     *
+     * @param executor The executor of the client, or null to use the JDK default executor.
+     * @return The new HttpClient.
+     */
+    HttpClient createHttpClient(ExecutorService executor) {
+        HttpClient.Builder builder = HttpClient.newBuilder().version(httpVersion);
+        if (connectTimeout != null) {
+            builder.connectTimeout(connectTimeout);
+        }
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Look up {@code Executors.newVirtualThreadPerTaskExecutor()}, which only exists on Java 21 and later.
+     *
+     * @return The new executor, or null if the JVM does not support virtual threads.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (Throwable e) {
+            // Missing before Java 21, and a disabled preview feature on Java 19 and 20.
+            return null;
+        }
+    }
+}
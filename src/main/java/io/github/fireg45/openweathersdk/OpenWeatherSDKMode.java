@@ -13,7 +13,8 @@ public enum OpenWeatherSDKMode {
     ON_DEMAND,
 
     /**
-     * Represents the polling mode where weather information is retrieved for all cached cities.
+     * Represents the polling mode where weather information for all cached cities is refreshed in the background,
+     * so requests for cached cities are answered without waiting for the network.
      */
     POLLING
 }
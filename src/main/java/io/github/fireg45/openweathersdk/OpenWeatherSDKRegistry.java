@@ -0,0 +1,176 @@
+/**
+ * Shared, reference-counted OpenWeatherSDK instances.
+ */
+package io.github.fireg45.openweathersdk;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry sharing one OpenWeatherSDK object per API key and mode.
+ * <p>
+ * {@link #acquire(String, OpenWeatherSDKMode, OpenWeatherSDKConfig)} atomically returns the registered object
+ * or creates it, and counts one more reference to it. Each reference is given back with
+ * {@link OpenWeatherSDK#releaseSDKObject()}. The object is removed from the registry and its background work is
+ * stopped when the last reference is released. Objects acquired in different modes are independent, except
+ * for the rate limit of their API key, which they share.
+ * <p>
+ * {@link OpenWeatherSDK#factory(String, OpenWeatherSDKMode)} uses the {@link #getDefault() default registry};
+ * applications that need isolated instances, such as tests, can create their own registry.
+ */
+public final class OpenWeatherSDKRegistry {
+    private static final OpenWeatherSDKRegistry DEFAULT = new OpenWeatherSDKRegistry();
+
+    private final ConcurrentHashMap<Key, Registration> registrations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SharedRateLimit> rateLimits = new ConcurrentHashMap<>();
+
+    /**
+     * Get the registry used by {@link OpenWeatherSDK#factory(String, OpenWeatherSDKMode)}.
+     *
+     * @return The default registry.
+     */
+    public static OpenWeatherSDKRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the object registered for the API key and mode, creating it with the default configuration if needed.
+     *
+     * @param apiKey The API key for accessing the OpenWeatherMap API.
+     * @param mode   The mode of operation for the SDK. (Polling or On Demand)
+     * @return An instance of OpenWeatherSDK.
+     */
+    public OpenWeatherSDK acquire(String apiKey, OpenWeatherSDKMode mode) {
+        return acquire(apiKey, mode, OpenWeatherSDKConfig.defaults());
+    }
+
+    /**
+     * Get the object registered for the API key and mode, creating it with the given configuration if needed.
+     * The configuration is ignored if the object already exists.
+     *
+     * @param apiKey The API key for accessing the OpenWeatherMap API.
+     * @param mode   The mode of operation for the SDK. (Polling or On Demand)
+     * @param config The configuration of the HTTP client.
+     * @return An instance of OpenWeatherSDK.
+     */
+    public OpenWeatherSDK acquire(String apiKey, OpenWeatherSDKMode mode, OpenWeatherSDKConfig config) {
+        return registrations.compute(new Key(apiKey, mode), (key, registration) -> {
+            if (registration == null) {
+                SharedRateLimit rateLimit = retainRateLimit(apiKey);
+                try {
+                    return new Registration(new OpenWeatherSDK(this, apiKey, mode, config, rateLimit));
+                } catch (RuntimeException e) {
+                    releaseRateLimit(apiKey);
+                    throw e;
+                }
+            }
+            registration.referenceCount++;
+            return registration;
+        }).weatherSDK;
+    }
+
+    /**
+     * Release one reference to the object, shutting it down if it was the last one.
+     * Releasing an object that is no longer registered does nothing.
+     *
+     * @param weatherSDK The object to release.
+     * @return True if the object was shut down, false if it is still referenced.
+     */
+    boolean release(OpenWeatherSDK weatherSDK) {
+        boolean[] lastReference = new boolean[1];
+        registrations.computeIfPresent(new Key(weatherSDK.getApiKey(), weatherSDK.getMode()),
+                (key, registration) -> {
+                    if (registration.weatherSDK != weatherSDK || --registration.referenceCount > 0) {
+                        return registration;
+                    }
+                    lastReference[0] = true;
+                    return null;
+                });
+        if (lastReference[0]) {
+            releaseRateLimit(weatherSDK.getApiKey());
+            weatherSDK.shutdown();
+        }
+        return lastReference[0];
+    }
+
+    /**
+     * Remove every object from this registry and shut it down, whatever its reference count.
+     * Every object is shut down even if shutting down another one fails.
+     *
+     * @throws RuntimeException The first failure of a shutdown, with the other failures suppressed.
+     */
+    public void shutdownAll() {
+        List<OpenWeatherSDK> removed = new ArrayList<>();
+        for (Key key : registrations.keySet()) {
+            Registration registration = registrations.remove(key);
+            if (registration != null) {
+                releaseRateLimit(key.apiKey);
+                removed.add(registration.weatherSDK);
+            }
+        }
+        RuntimeException failure = null;
+        for (OpenWeatherSDK weatherSDK : removed) {
+            try {
+                weatherSDK.shutdown();
+            } catch (RuntimeException e) {
+                failure = OpenWeatherSDK.addFailure(failure, e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Get the number of registered objects.
+     *
+     * @return The number of registered objects.
+     */
+    public int size() {
+        return registrations.size();
+    }
+
+    /**
+     * Get the rate limit of the API key, creating it for the first registered object of the key.
+     *
+     * @param apiKey The API key.
+     * @return The rate limit shared by the objects of the API key.
+     */
+    private SharedRateLimit retainRateLimit(String apiKey) {
+        return rateLimits.compute(apiKey, (key, rateLimit) -> {
+            if (rateLimit == null) {
+                rateLimit = new SharedRateLimit(
+                        new RequestRateLimiter(0, OpenWeatherSDK.DEFAULT_MAX_RATE_LIMIT_WAIT));
+            }
+            rateLimit.references++;
+            return rateLimit;
+        });
+    }
+
+    /**
+     * Give back the rate limit of an unregistered object, dropping it with the last object of the API key.
+     *
+     * @param apiKey The API key.
+     */
+    private void releaseRateLimit(String apiKey) {
+        rateLimits.computeIfPresent(apiKey, (key, rateLimit) -> --rateLimit.references > 0 ? rateLimit : null);
+    }
+
+    @Value
+    private static class Key {
+        String apiKey;
+        OpenWeatherSDKMode mode;
+    }
+
+    private static final class Registration {
+        private final OpenWeatherSDK weatherSDK;
+        private int referenceCount = 1;
+
+        private Registration(OpenWeatherSDK weatherSDK) {
+            this.weatherSDK = weatherSDK;
+        }
+    }
+}
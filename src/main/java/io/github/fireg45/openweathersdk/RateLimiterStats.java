@@ -0,0 +1,26 @@
+package io.github.fireg45.openweathersdk;
+
+import lombok.Value;
+
+/**
+ * Point-in-time counters of the client-side request rate limiter.
+ */
+@Value
+public class RateLimiterStats {
+    /**
+     * Requests that were delayed to stay within the configured rate.
+     */
+    long queuedCount;
+    /**
+     * Requests that were rejected because the API answered 429 recently.
+     */
+    long throttledCount;
+    /**
+     * Requests that were rejected because they would have waited longer than the maximum wait.
+     */
+    long shedCount;
+    /**
+     * Rejected requests that were answered from a stale cache entry instead of failing.
+     */
+    long staleServedCount;
+}
@@ -0,0 +1,148 @@
+package io.github.fireg45.openweathersdk;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side limiter shaping the requests sent with one API key.
+ * <p>
+ * Requests are spaced by a token bucket (implemented as a generic cell rate algorithm) that allows short
+ * bursts and then the configured number of requests per minute. A request that would have to wait longer than
+ * the maximum wait is shed instead of queued. After the API answers 429, all requests are rejected until the
+ * {@code Retry-After} delay elapses, or until an exponential backoff elapses when the API does not send one.
+ */
+final class RequestRateLimiter {
+    /**
+     * Returned by {@link #reserve()} when the API asked to back off.
+     */
+    static final long THROTTLED = -1;
+    /**
+     * Returned by {@link #reserve()} when the request would wait longer than the maximum wait.
+     */
+    static final long SHED = -2;
+
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int BURST_SECONDS = 10;
+
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final long maxWaitNanos;
+    private long theoreticalArrivalNanos = Long.MIN_VALUE;
+    private long throttledUntilNanos = Long.MIN_VALUE;
+    private long backoffNanos = INITIAL_BACKOFF_NANOS;
+    private final LongAdder queuedCount = new LongAdder();
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder shedCount = new LongAdder();
+    private final LongAdder staleServedCount = new LongAdder();
+
+    /**
+     * Creates a limiter.
+     *
+     * @param requestsPerMinute The sustained number of requests per minute, or 0 to only apply 429 backoff.
+     * @param maxWait           The longest time a request may wait for its turn.
+     */
+    RequestRateLimiter(int requestsPerMinute, Duration maxWait) {
+        if (requestsPerMinute < 0) {
+            throw new IllegalArgumentException("requestsPerMinute must not be negative: " + requestsPerMinute);
+        }
+        this.intervalNanos = requestsPerMinute == 0 ? 0 : TimeUnit.MINUTES.toNanos(1) / requestsPerMinute;
+        int burst = Math.max(1, requestsPerMinute * BURST_SECONDS / 60);
+        this.burstToleranceNanos = intervalNanos * (burst - 1);
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Reserve the right to send one request.
+     *
+     * @return The time in nanoseconds to wait before sending, {@link #THROTTLED} or {@link #SHED}.
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        if (throttledUntilNanos != Long.MIN_VALUE && now - throttledUntilNanos < 0) {
+            throttledCount.increment();
+            return THROTTLED;
+        }
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        long arrival = theoreticalArrivalNanos == Long.MIN_VALUE || theoreticalArrivalNanos - now < 0
+                ? now
+                : theoreticalArrivalNanos;
+        long waitNanos = Math.max(0, arrival - burstToleranceNanos - now);
+        if (waitNanos > maxWaitNanos) {
+            shedCount.increment();
+            return SHED;
+        }
+        theoreticalArrivalNanos = arrival + intervalNanos;
+        if (waitNanos > 0) {
+            queuedCount.increment();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Reserve the right to send one request only if it can be sent at once.
+     *
+     * @return True if the request may be sent now, false if it would have to wait or the API asked to back off.
+     */
+    synchronized boolean tryReserve() {
+        long now = System.nanoTime();
+        if (throttledUntilNanos != Long.MIN_VALUE && now - throttledUntilNanos < 0) {
+            return false;
+        }
+        if (intervalNanos == 0) {
+            return true;
+        }
+        long arrival = theoreticalArrivalNanos == Long.MIN_VALUE || theoreticalArrivalNanos - now < 0
+                ? now
+                : theoreticalArrivalNanos;
+        if (arrival - burstToleranceNanos - now > 0) {
+            return false;
+        }
+        theoreticalArrivalNanos = arrival + intervalNanos;
+        return true;
+    }
+
+    /**
+     * Reject requests for the given delay after the API answered 429.
+     *
+     * @param retryAfter The delay requested by the API, or null to use the exponential backoff.
+     * @return The delay that is applied.
+     */
+    synchronized Duration throttle(Duration retryAfter) {
+        long delayNanos;
+        if (retryAfter != null) {
+            delayNanos = retryAfter.toNanos();
+        } else {
+            delayNanos = backoffNanos;
+            backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+        }
+        throttledUntilNanos = System.nanoTime() + delayNanos;
+        return Duration.ofNanos(delayNanos);
+    }
+
+    /**
+     * Reset the exponential backoff after a successful request.
+     */
+    synchronized void onSuccess() {
+        backoffNanos = INITIAL_BACKOFF_NANOS;
+    }
+
+    /**
+     * Count a request answered from a stale cache entry because of throttling.
+     */
+    void onStaleServed() {
+        staleServedCount.increment();
+    }
+
+    /**
+     * Get the counters of this limiter.
+     *
+     * @return RateLimiterStats snapshot.
+     */
+    RateLimiterStats stats() {
+        return new RateLimiterStats(queuedCount.sum(), throttledCount.sum(), shedCount.sum(), staleServedCount.sum());
+    }
+}
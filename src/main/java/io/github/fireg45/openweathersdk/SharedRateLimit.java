@@ -0,0 +1,40 @@
+package io.github.fireg45.openweathersdk;
+
+/**
+ * The rate limiter of one API key, shared by the SDK objects a registry holds for that key in each mode, so
+ * together they stay within the quota of the key and back off together after a 429 response.
+ */
+final class SharedRateLimit {
+    private volatile RequestRateLimiter limiter;
+    /**
+     * The number of registered SDK objects using this limit, guarded by the registry.
+     */
+    int references;
+
+    /**
+     * Creates a shared limit starting with the given limiter.
+     *
+     * @param limiter The initial limiter.
+     */
+    SharedRateLimit(RequestRateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Get the current limiter.
+     *
+     * @return The limiter.
+     */
+    RequestRateLimiter get() {
+        return limiter;
+    }
+
+    /**
+     * Replace the limiter of every SDK object of the API key.
+     *
+     * @param limiter The new limiter.
+     */
+    void set(RequestRateLimiter limiter) {
+        this.limiter = limiter;
+    }
+}
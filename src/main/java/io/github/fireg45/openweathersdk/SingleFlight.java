@@ -0,0 +1,93 @@
+package io.github.fireg45.openweathersdk;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent loads of the same key.
+ * <p>
+ * The first caller for a key starts the load, every caller that arrives while that load is in flight waits for
+ * it and receives the same value or the same exception.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Load the value for the given key, sharing the load with concurrent callers for the same key.
+     *
+     * @param key    The key to load.
+     * @param loader The function performing the load.
+     * @return The loaded value.
+     */
+    V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Load the value for the given key asynchronously, sharing the load with concurrent callers for the same key.
+     *
+     * @param key    The key to load.
+     * @param loader The function starting the load.
+     * @return CompletableFuture completed with the loaded value.
+     */
+    CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return existing.copy();
+        }
+        try {
+            loader.get().whenComplete((value, throwable) -> {
+                inFlight.remove(key, flight);
+                if (throwable != null) {
+                    flight.completeExceptionally(unwrap(throwable));
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight.copy();
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
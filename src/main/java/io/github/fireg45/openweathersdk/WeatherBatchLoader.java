@@ -0,0 +1,135 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Fetches the weather of many cities with a bounded number of requests in flight.
+ * <p>
+ * A new request is started only when a previous one completes, so at most {@code maxConcurrency} requests
+ * are outstanding at any time and no thread is blocked per request.
+ */
+final class WeatherBatchLoader {
+    private final List<String> cities;
+    private final Queue<String> pending;
+    private final Function<String, CompletableFuture<WeatherInfo>> fetch;
+    private final int maxConcurrency;
+    private final Map<String, WeatherInfo> weather = new ConcurrentHashMap<>();
+    private final Map<String, Throwable> errors = new ConcurrentHashMap<>();
+    private final AtomicInteger remaining;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    /**
+     * Creates a loader for the given cities.
+     *
+     * @param cities         The names of the cities to fetch, without duplicates.
+     * @param fetch          The function fetching the weather of one city.
+     * @param maxConcurrency The maximum number of requests in flight.
+     */
+    WeatherBatchLoader(List<String> cities, Function<String, CompletableFuture<WeatherInfo>> fetch,
+                       int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.cities = cities;
+        this.pending = new ConcurrentLinkedQueue<>(cities);
+        this.fetch = fetch;
+        this.maxConcurrency = maxConcurrency;
+        this.remaining = new AtomicInteger(cities.size());
+        if (cities.isEmpty()) {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Fetch all cities and wait until they complete or the timeout elapses.
+     * Cities that did not complete in time are reported with a TimeoutException.
+     *
+     * @param timeoutMillis The time to wait for the whole batch.
+     * @return The weather information and the failures of the fetched cities.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    WeatherBatchResult load(long timeoutMillis) throws InterruptedException {
+        drain();
+        try {
+            done.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ignored) {
+            pending.clear();
+        }
+        Map<String, WeatherInfo> resolved = new LinkedHashMap<>();
+        Map<String, Throwable> failed = new LinkedHashMap<>();
+        for (String city : cities) {
+            WeatherInfo weatherInfo = weather.get(city);
+            if (weatherInfo != null) {
+                resolved.put(city, weatherInfo);
+            } else {
+                Throwable error = errors.get(city);
+                failed.put(city, error != null
+                        ? error
+                        : new TimeoutException("Weather request for " + city + " did not complete in time"));
+            }
+        }
+        return new WeatherBatchResult(resolved, failed);
+    }
+
+    /**
+     * Start pending requests while there is room for them. Completions that happen on the draining thread only
+     * request another pass instead of recursing, so the stack depth stays constant however many requests
+     * complete synchronously.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (inFlight.get() < maxConcurrency) {
+                String city = pending.poll();
+                if (city == null) {
+                    break;
+                }
+                inFlight.incrementAndGet();
+                start(city);
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void start(String city) {
+        CompletableFuture<WeatherInfo> future;
+        try {
+            future = fetch.apply(city);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((weatherInfo, throwable) -> {
+            if (throwable != null) {
+                errors.put(city, throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause()
+                        : throwable);
+            } else {
+                weather.put(city, weatherInfo);
+            }
+            inFlight.decrementAndGet();
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+            drain();
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Result of a batch weather lookup.
+ * Every requested city is present in exactly one of the two maps.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class WeatherBatchResult {
+    /**
+     * Weather information of the cities that were resolved, keyed by the requested city name.
+     */
+    private final Map<String, WeatherInfo> weather;
+
+    /**
+     * Failures of the cities that were not resolved, keyed by the requested city name. A city whose request did
+     * not complete before the batch deadline maps to a {@link java.util.concurrent.TimeoutException}.
+     */
+    private final Map<String, Throwable> errors;
+
+    /**
+     * Check if every requested city was resolved.
+     *
+     * @return True if there are no errors, false otherwise.
+     */
+    public boolean isComplete() {
+        return errors.isEmpty();
+    }
+}
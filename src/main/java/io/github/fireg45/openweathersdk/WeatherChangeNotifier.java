@@ -0,0 +1,121 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans refreshed weather information out to the subscriptions of each city.
+ * <p>
+ * Publishing only hands the weather information to the mailbox of every subscription of the city; listeners
+ * run on a fixed number of daemon threads, which stop when they are idle. Every subscription has at most one
+ * delivery task at a time, which delivers all the changes queued meanwhile, so the queue of the pool holds at
+ * most one task per subscription and is bounded. A subscription whose task cannot be queued keeps its change in
+ * its mailbox until the next change is published.
+ */
+final class WeatherChangeNotifier {
+    private static final AtomicInteger NOTIFIER_NUMBER = new AtomicInteger();
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private final Map<String, List<WeatherSubscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    /**
+     * Creates a notifier delivering changes on the given number of threads.
+     *
+     * @param threads The number of delivery threads.
+     */
+    WeatherChangeNotifier(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("notifierThreads must be positive: " + threads);
+        }
+        String namePrefix = "openweathersdk-notifier-" + NOTIFIER_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    /**
+     * Register a subscription to the changes of a city.
+     *
+     * @param cityName   The name of the city, as given by the subscriber.
+     * @param query      The API query of the city.
+     * @param listener   The listener receiving the changes.
+     * @param thresholds The changes pushed to the listener.
+     * @return The new subscription.
+     */
+    WeatherSubscription subscribe(String cityName, String query, WeatherListener listener,
+                                  ChangeThresholds thresholds) {
+        WeatherSubscription subscription = new WeatherSubscription(cityName, query, listener, thresholds, executor,
+                this);
+        // Added within the compute, so a concurrent removal of the last subscription cannot drop the new list.
+        subscriptions.compute(query, (key, citySubscriptions) -> {
+            List<WeatherSubscription> list = citySubscriptions != null ? citySubscriptions
+                    : new CopyOnWriteArrayList<>();
+            list.add(subscription);
+            return list;
+        });
+        return subscription;
+    }
+
+    /**
+     * Unregister a closed subscription.
+     *
+     * @param subscription The subscription.
+     */
+    void remove(WeatherSubscription subscription) {
+        subscriptions.computeIfPresent(subscription.getQuery(), (query, citySubscriptions) -> {
+            citySubscriptions.remove(subscription);
+            return citySubscriptions.isEmpty() ? null : citySubscriptions;
+        });
+    }
+
+    /**
+     * Check if a city has subscriptions.
+     *
+     * @param query The API query of the city.
+     * @return True if at least one subscription is open.
+     */
+    boolean hasSubscriptions(String query) {
+        return subscriptions.containsKey(query);
+    }
+
+    /**
+     * Hand refreshed weather information to the subscriptions of a city.
+     *
+     * @param query       The API query of the city.
+     * @param weatherInfo The refreshed weather information.
+     */
+    void publish(String query, WeatherInfo weatherInfo) {
+        List<WeatherSubscription> citySubscriptions = subscriptions.get(query);
+        if (citySubscriptions != null) {
+            for (WeatherSubscription subscription : citySubscriptions) {
+                subscription.offer(weatherInfo);
+            }
+        }
+    }
+
+    /**
+     * Close every subscription and stop the delivery threads.
+     */
+    void shutdown() {
+        for (List<WeatherSubscription> citySubscriptions : subscriptions.values()) {
+            citySubscriptions.forEach(WeatherSubscription::close);
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+
+/**
+ * Receives the weather changes of a subscribed city.
+ *
+ * @see OpenWeatherSDK#subscribe(String, WeatherListener, ChangeThresholds)
+ */
+@FunctionalInterface
+public interface WeatherListener {
+
+    /**
+     * Called with the current weather information of the city, then every time it changes beyond the thresholds
+     * of the subscription. Calls for one subscription never overlap. A listener slower than the refreshes skips
+     * intermediate changes and receives the latest one.
+     *
+     * @param cityName    The name of the city, as given when subscribing.
+     * @param weatherInfo The current weather information.
+     */
+    void onWeatherChange(String cityName, WeatherInfo weatherInfo);
+}
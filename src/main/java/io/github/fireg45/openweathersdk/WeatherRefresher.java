@@ -0,0 +1,201 @@
+package io.github.fireg45.openweathersdk;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Refreshes tracked cities in the background for the polling mode.
+ * <p>
+ * Every tracked city has its own schedule: it is refreshed once per interval, shifted by a random jitter so
+ * cities cached at the same moment do not hit the API at the same moment. Refreshes run on a fixed number
+ * of daemon threads, which bounds how many HTTP requests the refresher keeps in flight.
+ * <p>
+ * Cities that can be fetched together, such as cities tracked by ID, are not scheduled one by one. They are
+ * refreshed by a single sweep per interval that hands them to the group refresh in chunks of at most
+ * {@code maxGroupSize}, so a watch list of N cities costs N / maxGroupSize requests per interval.
+ */
+final class WeatherRefresher {
+    private static final AtomicInteger REFRESHER_NUMBER = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> trackedCities = ConcurrentHashMap.newKeySet();
+    private final Set<String> groupedCities = ConcurrentHashMap.newKeySet();
+    private final Consumer<String> refresh;
+    private final Consumer<List<String>> groupRefresh;
+    private final Predicate<String> groupable;
+    private final int maxGroupSize;
+    private final Predicate<String> keepRefreshing;
+    private final long intervalMillis;
+    private final long jitterMillis;
+    private boolean sweepScheduled;
+
+    /**
+     * Creates a refresher and starts its threads.
+     *
+     * @param interval               The time between two refreshes of the same city.
+     * @param jitter                 The maximum random shift applied to each refresh.
+     * @param maxConcurrentRefreshes The maximum number of refreshes running at the same time.
+     * @param refresh                The action refreshing a city.
+     * @param keepRefreshing         Tells whether a city should still be refreshed.
+     */
+    WeatherRefresher(Duration interval, Duration jitter, int maxConcurrentRefreshes,
+                     Consumer<String> refresh, Predicate<String> keepRefreshing) {
+        this(interval, jitter, maxConcurrentRefreshes, refresh, city -> false, cities -> {
+        }, 1, keepRefreshing);
+    }
+
+    /**
+     * Creates a refresher refreshing some cities in groups and starts its threads.
+     *
+     * @param interval               The time between two refreshes of the same city.
+     * @param jitter                 The maximum random shift applied to each refresh.
+     * @param maxConcurrentRefreshes The maximum number of refreshes running at the same time.
+     * @param refresh                The action refreshing a city.
+     * @param groupable              Tells whether a city is refreshed with the group refresh.
+     * @param groupRefresh           The action refreshing several cities with one request.
+     * @param maxGroupSize           The maximum number of cities passed to the group refresh at once.
+     * @param keepRefreshing         Tells whether a city should still be refreshed.
+     */
+    WeatherRefresher(Duration interval, Duration jitter, int maxConcurrentRefreshes,
+                     Consumer<String> refresh, Predicate<String> groupable, Consumer<List<String>> groupRefresh,
+                     int maxGroupSize, Predicate<String> keepRefreshing) {
+        if (maxGroupSize <= 0) {
+            throw new IllegalArgumentException("maxGroupSize must be positive: " + maxGroupSize);
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Refresh interval must be positive: " + interval);
+        }
+        this.intervalMillis = interval.toMillis();
+        this.jitterMillis = Math.min(jitter.toMillis(), intervalMillis);
+        this.refresh = refresh;
+        this.groupable = groupable;
+        this.groupRefresh = groupRefresh;
+        this.maxGroupSize = maxGroupSize;
+        this.keepRefreshing = keepRefreshing;
+        this.scheduler = Executors.newScheduledThreadPool(maxConcurrentRefreshes,
+                daemonThreadFactory("openweathersdk-refresher-" + REFRESHER_NUMBER.incrementAndGet()));
+    }
+
+    /**
+     * Start refreshing the given city unless it is already tracked.
+     *
+     * @param city The name of the city.
+     */
+    void track(String city) {
+        if (groupable.test(city)) {
+            if (groupedCities.add(city)) {
+                scheduleSweep();
+            }
+        } else if (trackedCities.add(city)) {
+            schedule(city);
+        }
+    }
+
+    /**
+     * Stop all scheduled refreshes and the refresher threads.
+     */
+    void shutdown() {
+        scheduler.shutdownNow();
+        trackedCities.clear();
+        groupedCities.clear();
+    }
+
+    private void schedule(String city) {
+        try {
+            scheduler.schedule(() -> run(city), nextDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            trackedCities.remove(city);
+        }
+    }
+
+    private void run(String city) {
+        if (!keepRefreshing.test(city)) {
+            trackedCities.remove(city);
+            return;
+        }
+        try {
+            refresh.accept(city);
+        } catch (RuntimeException ignored) {
+            // The cached value stays in place and the city is retried on its next schedule.
+        }
+        schedule(city);
+    }
+
+    private synchronized void scheduleSweep() {
+        if (sweepScheduled) {
+            return;
+        }
+        try {
+            scheduler.schedule(this::sweep, nextDelayMillis(), TimeUnit.MILLISECONDS);
+            sweepScheduled = true;
+        } catch (RejectedExecutionException e) {
+            groupedCities.clear();
+        }
+    }
+
+    private void sweep() {
+        synchronized (this) {
+            sweepScheduled = false;
+        }
+        List<String> group = new ArrayList<>(maxGroupSize);
+        for (String city : groupedCities) {
+            if (!keepRefreshing.test(city)) {
+                groupedCities.remove(city);
+                continue;
+            }
+            group.add(city);
+            if (group.size() == maxGroupSize) {
+                submitGroup(group);
+                group = new ArrayList<>(maxGroupSize);
+            }
+        }
+        if (!group.isEmpty()) {
+            submitGroup(group);
+        }
+        if (!groupedCities.isEmpty()) {
+            scheduleSweep();
+        }
+    }
+
+    private void submitGroup(List<String> group) {
+        try {
+            scheduler.execute(() -> {
+                try {
+                    groupRefresh.accept(group);
+                } catch (RuntimeException ignored) {
+                    // The cached values stay in place and the cities are retried on the next sweep.
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // The refresher is shutting down.
+        }
+    }
+
+    private long nextDelayMillis() {
+        if (jitterMillis == 0) {
+            return intervalMillis;
+        }
+        return intervalMillis + ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1);
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.fireg45.openweathersdk;
+
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Subscription to the weather changes of one city, created by {@link OpenWeatherSDK#subscribe}.
+ * <p>
+ * Changes are queued in a mailbox holding a single value: a change arriving before the listener took the
+ * previous one replaces it. Publishing a change never waits for the listener, and a slow listener only ever
+ * has one change pending, so it cannot hold back the refresher or the other subscriptions.
+ */
+public final class WeatherSubscription implements AutoCloseable {
+    @Getter
+    private final String cityName;
+    @Getter(AccessLevel.PACKAGE)
+    private final String query;
+    private final WeatherListener listener;
+    private final ChangeThresholds thresholds;
+    private final Executor executor;
+    private final WeatherChangeNotifier notifier;
+    private final AtomicReference<WeatherInfo> pending = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder conflatedCount = new LongAdder();
+    private WeatherInfo lastAccepted;
+    private volatile boolean closed;
+
+    WeatherSubscription(String cityName, String query, WeatherListener listener, ChangeThresholds thresholds,
+                        Executor executor, WeatherChangeNotifier notifier) {
+        this.cityName = cityName;
+        this.query = query;
+        this.listener = listener;
+        this.thresholds = thresholds;
+        this.executor = executor;
+        this.notifier = notifier;
+    }
+
+    /**
+     * Stop receiving changes. A change being delivered is not interrupted, and pending changes are dropped.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            pending.set(null);
+            notifier.remove(this);
+        }
+    }
+
+    /**
+     * Check if this subscription was closed.
+     *
+     * @return True if the listener no longer receives changes.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Get the number of changes delivered to the listener.
+     *
+     * @return The number of delivered changes.
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    /**
+     * Get the number of changes replaced by a newer one before the listener took them.
+     *
+     * @return The number of skipped changes.
+     */
+    public long getConflatedCount() {
+        return conflatedCount.sum();
+    }
+
+    /**
+     * Queue refreshed weather information for the listener if it changed beyond the thresholds. A change left
+     * in the mailbox because its delivery was rejected is retried by every later offer, significant or not.
+     *
+     * @param weatherInfo The refreshed weather information.
+     */
+    void offer(WeatherInfo weatherInfo) {
+        if (closed) {
+            return;
+        }
+        boolean significant;
+        synchronized (this) {
+            significant = thresholds.isSignificant(lastAccepted, weatherInfo);
+            if (significant) {
+                lastAccepted = weatherInfo;
+            }
+        }
+        if (significant && pending.getAndSet(weatherInfo) != null) {
+            conflatedCount.increment();
+        }
+        if (pending.get() != null && draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // The SDK object is shutting down, or the delivery queue is full: the change stays in the
+                // mailbox and the next offer tries to deliver it again.
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            WeatherInfo weatherInfo = pending.getAndSet(null);
+            if (weatherInfo == null || closed) {
+                draining.set(false);
+                // A change queued after the mailbox was found empty is delivered by this drain.
+                if (closed || pending.get() == null || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                listener.onWeatherChange(cityName, weatherInfo);
+            } catch (RuntimeException ignored) {
+                // A failing listener keeps its subscription.
+            }
+            deliveredCount.increment();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.fireg45.openweathersdk.cache;
+
+import lombok.Value;
+
+/**
+ * Point-in-time counters of a WeatherCache.
+ */
+@Value
+public class CacheStats {
+    long hitCount;
+    long missCount;
+    long evictionCount;
+
+    /**
+     * Get the ratio of lookups that found a cached city.
+     *
+     * @return Hit rate between 0 and 1, or 1 if there were no lookups yet.
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+}
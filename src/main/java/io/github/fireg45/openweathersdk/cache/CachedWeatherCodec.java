@@ -0,0 +1,117 @@
+package io.github.fireg45.openweathersdk.cache;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+import io.github.fireg45.openweathersdk.dto.Coord;
+import io.github.fireg45.openweathersdk.dto.Sys;
+import io.github.fireg45.openweathersdk.dto.Temperature;
+import io.github.fireg45.openweathersdk.dto.Weather;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.dto.Wind;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of CachedWeather entries.
+ * <p>
+ * Numbers are written in big-endian order as {@link DataOutput} does. Strings are written as an int length
+ * followed by UTF-8 bytes, with a length of -1 for null. A flags byte records which nested objects are present.
+ */
+final class CachedWeatherCodec {
+    private static final int HAS_WEATHER = 1;
+    private static final int HAS_TEMPERATURE = 1 << 1;
+    private static final int HAS_WIND = 1 << 2;
+    private static final int HAS_SYS = 1 << 3;
+    private static final int HAS_COORD = 1 << 4;
+
+    private CachedWeatherCodec() {
+    }
+
+    static void write(DataOutput out, CachedWeather cachedWeather) throws IOException {
+        WeatherInfo weatherInfo = cachedWeather.getWeatherInfo();
+        out.writeLong(cachedWeather.getTimestampInMillis());
+        int flags = (weatherInfo.getWeather() != null ? HAS_WEATHER : 0)
+                | (weatherInfo.getTemperature() != null ? HAS_TEMPERATURE : 0)
+                | (weatherInfo.getWind() != null ? HAS_WIND : 0)
+                | (weatherInfo.getSys() != null ? HAS_SYS : 0)
+                | (weatherInfo.getCoord() != null ? HAS_COORD : 0);
+        out.writeByte(flags);
+        if (weatherInfo.getWeather() != null) {
+            writeString(out, weatherInfo.getWeather().getMain());
+            writeString(out, weatherInfo.getWeather().getDescription());
+        }
+        if (weatherInfo.getTemperature() != null) {
+            out.writeDouble(weatherInfo.getTemperature().getTemp());
+            out.writeDouble(weatherInfo.getTemperature().getFeels_like());
+        }
+        if (weatherInfo.getWind() != null) {
+            out.writeDouble(weatherInfo.getWind().getSpeed());
+        }
+        if (weatherInfo.getSys() != null) {
+            out.writeLong(weatherInfo.getSys().getSunrise());
+            out.writeLong(weatherInfo.getSys().getSunset());
+        }
+        if (weatherInfo.getCoord() != null) {
+            out.writeDouble(weatherInfo.getCoord().getLon());
+            out.writeDouble(weatherInfo.getCoord().getLat());
+        }
+        out.writeInt(weatherInfo.getVisibility());
+        out.writeLong(weatherInfo.getDatetime());
+        out.writeInt(weatherInfo.getTimezone());
+        writeString(out, weatherInfo.getName());
+        out.writeLong(weatherInfo.getId());
+    }
+
+    static CachedWeather read(ByteBuffer in) {
+        long timestampInMillis = in.getLong();
+        int flags = in.get();
+        WeatherInfo weatherInfo = new WeatherInfo();
+        if ((flags & HAS_WEATHER) != 0) {
+            weatherInfo.setWeather(new Weather(readString(in), readString(in)));
+        }
+        if ((flags & HAS_TEMPERATURE) != 0) {
+            weatherInfo.setTemperature(new Temperature(in.getDouble(), in.getDouble()));
+        }
+        if ((flags & HAS_WIND) != 0) {
+            weatherInfo.setWind(new Wind(in.getDouble()));
+        }
+        if ((flags & HAS_SYS) != 0) {
+            weatherInfo.setSys(new Sys(in.getLong(), in.getLong()));
+        }
+        if ((flags & HAS_COORD) != 0) {
+            weatherInfo.setCoord(new Coord(in.getDouble(), in.getDouble()));
+        }
+        weatherInfo.setVisibility(in.getInt());
+        weatherInfo.setDatetime(in.getLong());
+        weatherInfo.setTimezone(in.getInt());
+        weatherInfo.setName(readString(in));
+        weatherInfo.setId(in.getLong());
+        return new CachedWeather(weatherInfo, timestampInMillis);
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,531 @@
+/**
+ * Memory-efficient WeatherCache implementation for large numbers of cities.
+ */
+package io.github.fireg45.openweathersdk.cache;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+import io.github.fireg45.openweathersdk.dto.Coord;
+import io.github.fireg45.openweathersdk.dto.Sys;
+import io.github.fireg45.openweathersdk.dto.Temperature;
+import io.github.fireg45.openweathersdk.dto.Weather;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.dto.Wind;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * WeatherCache storing every field of the cached weather information in primitive arrays indexed by slot,
+ * with least-recently-used eviction.
+ * <p>
+ * A city costs about 130 bytes plus its key and name strings, instead of the ten or so objects of a
+ * {@link CachedWeather} graph. The {@code main} and {@code description} strings of the weather conditions,
+ * which repeat across cities, are stored once in a dictionary. Keys are found through an open-addressing
+ * table of slot numbers and the LRU order is a linked list of slot numbers, so the cache itself allocates
+ * nothing per entry. The arrays grow by doubling up to the maximum size.
+ * <p>
+ * {@link #get(String)} materializes a new CachedWeather on every hit, so changes made to a returned object
+ * are not reflected in the cache, and its memoized JSON string is not kept between lookups. All operations
+ * take a single lock, which makes this cache a better fit for large, mostly idle caches than for a few hot
+ * cities read by many threads, where {@link ConcurrentWeatherCache} scales better.
+ */
+public class CompactWeatherCache implements WeatherCache {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+    private static final byte IN_USE = 1;
+    private static final byte HAS_WEATHER = 1 << 1;
+    private static final byte HAS_TEMPERATURE = 1 << 2;
+    private static final byte HAS_WIND = 1 << 3;
+    private static final byte HAS_SYS = 1 << 4;
+    private static final byte HAS_COORD = 1 << 5;
+
+    private final int maximumSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final StringDictionary dictionary = new StringDictionary();
+    private final Set<String> keyView = new KeyView();
+    private int capacity;
+    private int size;
+    private int unusedSlot;
+    private int freeSlot = NONE;
+    private int head = NONE;
+    private int tail = NONE;
+    private int[] table;
+    private String[] keys;
+    private byte[] flags;
+    private long[] timestamps;
+    private int[] mains;
+    private int[] descriptions;
+    private double[] temps;
+    private double[] feelsLikes;
+    private double[] windSpeeds;
+    private long[] sunrises;
+    private long[] sunsets;
+    private double[] lons;
+    private double[] lats;
+    private int[] visibilities;
+    private long[] datetimes;
+    private int[] timezones;
+    private String[] names;
+    private long[] ids;
+    private int[] prev;
+    private int[] next;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private Consumer<String> evictionListener;
+
+    /**
+     * Creates a cache holding at most the given number of cities.
+     *
+     * @param maximumSize The maximum number of cached cities.
+     */
+    public CompactWeatherCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        allocate(Math.min(maximumSize, INITIAL_CAPACITY));
+    }
+
+    @Override
+    public CachedWeather get(String city) {
+        lock.lock();
+        try {
+            int slot = find(city);
+            if (slot == NONE) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            moveToTail(slot);
+            return materialize(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CachedWeather peek(String city) {
+        lock.lock();
+        try {
+            int slot = find(city);
+            return slot != NONE ? materialize(slot) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(String city, CachedWeather cachedWeather) {
+        lock.lock();
+        try {
+            int slot = find(city);
+            if (slot != NONE) {
+                store(slot, cachedWeather);
+                moveToTail(slot);
+                return;
+            }
+            if (size == maximumSize) {
+                evict();
+            }
+            slot = allocateSlot();
+            keys[slot] = city;
+            store(slot, cachedWeather);
+            insertIntoTable(slot);
+            linkLast(slot);
+            size++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CachedWeather remove(String city) {
+        lock.lock();
+        try {
+            int slot = find(city);
+            if (slot == NONE) {
+                return null;
+            }
+            CachedWeather cachedWeather = materialize(slot);
+            release(slot);
+            return cachedWeather;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> keys() {
+        return keyView;
+    }
+
+    /**
+     * Perform the given action for every cached city. The cache is not locked while the action runs, so cities
+     * added or removed during the iteration may or may not be visited.
+     *
+     * @param action The action receiving each city name and its cached weather information.
+     */
+    @Override
+    public void forEach(BiConsumer<String, CachedWeather> action) {
+        for (int slot = 0; ; slot++) {
+            String city;
+            CachedWeather cachedWeather;
+            lock.lock();
+            try {
+                if (slot >= unusedSlot) {
+                    return;
+                }
+                if ((flags[slot] & IN_USE) == 0) {
+                    continue;
+                }
+                city = keys[slot];
+                cachedWeather = materialize(slot);
+            } finally {
+                lock.unlock();
+            }
+            action.accept(city, cachedWeather);
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            allocate(Math.min(maximumSize, INITIAL_CAPACITY));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        lock.lock();
+        try {
+            return new CacheStats(hitCount, missCount, evictionCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void setEvictionListener(Consumer<String> listener) {
+        lock.lock();
+        try {
+            evictionListener = listener;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the maximum number of cities this cache holds.
+     *
+     * @return The maximum number of cached cities.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        size = 0;
+        unusedSlot = 0;
+        freeSlot = NONE;
+        head = NONE;
+        tail = NONE;
+        table = new int[tableSize(newCapacity)];
+        keys = new String[newCapacity];
+        flags = new byte[newCapacity];
+        timestamps = new long[newCapacity];
+        mains = new int[newCapacity];
+        descriptions = new int[newCapacity];
+        temps = new double[newCapacity];
+        feelsLikes = new double[newCapacity];
+        windSpeeds = new double[newCapacity];
+        sunrises = new long[newCapacity];
+        sunsets = new long[newCapacity];
+        lons = new double[newCapacity];
+        lats = new double[newCapacity];
+        visibilities = new int[newCapacity];
+        datetimes = new long[newCapacity];
+        timezones = new int[newCapacity];
+        names = new String[newCapacity];
+        ids = new long[newCapacity];
+        prev = new int[newCapacity];
+        next = new int[newCapacity];
+    }
+
+    private void grow() {
+        int newCapacity = (int) Math.min(maximumSize, 2L * capacity);
+        capacity = newCapacity;
+        keys = Arrays.copyOf(keys, newCapacity);
+        flags = Arrays.copyOf(flags, newCapacity);
+        timestamps = Arrays.copyOf(timestamps, newCapacity);
+        mains = Arrays.copyOf(mains, newCapacity);
+        descriptions = Arrays.copyOf(descriptions, newCapacity);
+        temps = Arrays.copyOf(temps, newCapacity);
+        feelsLikes = Arrays.copyOf(feelsLikes, newCapacity);
+        windSpeeds = Arrays.copyOf(windSpeeds, newCapacity);
+        sunrises = Arrays.copyOf(sunrises, newCapacity);
+        sunsets = Arrays.copyOf(sunsets, newCapacity);
+        lons = Arrays.copyOf(lons, newCapacity);
+        lats = Arrays.copyOf(lats, newCapacity);
+        visibilities = Arrays.copyOf(visibilities, newCapacity);
+        datetimes = Arrays.copyOf(datetimes, newCapacity);
+        timezones = Arrays.copyOf(timezones, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        prev = Arrays.copyOf(prev, newCapacity);
+        next = Arrays.copyOf(next, newCapacity);
+        table = new int[tableSize(newCapacity)];
+        for (int slot = 0; slot < unusedSlot; slot++) {
+            if ((flags[slot] & IN_USE) != 0) {
+                insertIntoTable(slot);
+            }
+        }
+    }
+
+    /**
+     * Get a power of two table size keeping the load factor at or below one half.
+     */
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+    }
+
+    private int allocateSlot() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
+        }
+        if (unusedSlot == capacity) {
+            grow();
+        }
+        return unusedSlot++;
+    }
+
+    private void evict() {
+        int eldest = head;
+        String city = keys[eldest];
+        release(eldest);
+        evictionCount++;
+        if (evictionListener != null) {
+            evictionListener.accept(city);
+        }
+    }
+
+    private void release(int slot) {
+        removeFromTable(slot);
+        unlink(slot);
+        keys[slot] = null;
+        names[slot] = null;
+        flags[slot] = 0;
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        size--;
+    }
+
+    private void store(int slot, CachedWeather cachedWeather) {
+        WeatherInfo weatherInfo = cachedWeather.getWeatherInfo();
+        byte slotFlags = IN_USE;
+        timestamps[slot] = cachedWeather.getTimestampInMillis();
+        Weather weather = weatherInfo.getWeather();
+        if (weather != null) {
+            slotFlags |= HAS_WEATHER;
+            mains[slot] = dictionary.encode(weather.getMain());
+            descriptions[slot] = dictionary.encode(weather.getDescription());
+        }
+        Temperature temperature = weatherInfo.getTemperature();
+        if (temperature != null) {
+            slotFlags |= HAS_TEMPERATURE;
+            temps[slot] = temperature.getTemp();
+            feelsLikes[slot] = temperature.getFeels_like();
+        }
+        Wind wind = weatherInfo.getWind();
+        if (wind != null) {
+            slotFlags |= HAS_WIND;
+            windSpeeds[slot] = wind.getSpeed();
+        }
+        Sys sys = weatherInfo.getSys();
+        if (sys != null) {
+            slotFlags |= HAS_SYS;
+            sunrises[slot] = sys.getSunrise();
+            sunsets[slot] = sys.getSunset();
+        }
+        Coord coord = weatherInfo.getCoord();
+        if (coord != null) {
+            slotFlags |= HAS_COORD;
+            lons[slot] = coord.getLon();
+            lats[slot] = coord.getLat();
+        }
+        visibilities[slot] = weatherInfo.getVisibility();
+        datetimes[slot] = weatherInfo.getDatetime();
+        timezones[slot] = weatherInfo.getTimezone();
+        names[slot] = weatherInfo.getName();
+        ids[slot] = weatherInfo.getId();
+        flags[slot] = slotFlags;
+    }
+
+    private CachedWeather materialize(int slot) {
+        byte slotFlags = flags[slot];
+        WeatherInfo weatherInfo = new WeatherInfo();
+        if ((slotFlags & HAS_WEATHER) != 0) {
+            weatherInfo.setWeather(new Weather(dictionary.decode(mains[slot]), dictionary.decode(descriptions[slot])));
+        }
+        if ((slotFlags & HAS_TEMPERATURE) != 0) {
+            weatherInfo.setTemperature(new Temperature(temps[slot], feelsLikes[slot]));
+        }
+        if ((slotFlags & HAS_WIND) != 0) {
+            weatherInfo.setWind(new Wind(windSpeeds[slot]));
+        }
+        if ((slotFlags & HAS_SYS) != 0) {
+            weatherInfo.setSys(new Sys(sunrises[slot], sunsets[slot]));
+        }
+        if ((slotFlags & HAS_COORD) != 0) {
+            weatherInfo.setCoord(new Coord(lons[slot], lats[slot]));
+        }
+        weatherInfo.setVisibility(visibilities[slot]);
+        weatherInfo.setDatetime(datetimes[slot]);
+        weatherInfo.setTimezone(timezones[slot]);
+        weatherInfo.setName(names[slot]);
+        weatherInfo.setId(ids[slot]);
+        return new CachedWeather(weatherInfo, timestamps[slot]);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int find(String city) {
+        int mask = table.length - 1;
+        for (int i = spread(city.hashCode()) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int slot = table[i] - 1;
+            if (keys[slot].equals(city)) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    private void insertIntoTable(int slot) {
+        int mask = table.length - 1;
+        int i = spread(keys[slot].hashCode()) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /**
+     * Remove the slot from the table, shifting back the entries of its probe sequence so lookups never need
+     * tombstones.
+     */
+    private void removeFromTable(int slot) {
+        int mask = table.length - 1;
+        int i = spread(keys[slot].hashCode()) & mask;
+        while (table[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        table[i] = 0;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = spread(keys[table[j] - 1].hashCode()) & mask;
+            // Move the entry to the hole unless its home position lies cyclically between the hole and itself.
+            boolean reachable = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!reachable) {
+                table[i] = table[j];
+                table[j] = 0;
+                i = j;
+            }
+        }
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NONE) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+
+    private void moveToTail(int slot) {
+        if (tail != slot) {
+            unlink(slot);
+            linkLast(slot);
+        }
+    }
+
+    /**
+     * Live view of the cached city names. Membership checks use the table, iteration works on a snapshot.
+     */
+    private final class KeyView extends AbstractSet<String> {
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String city)) {
+                return false;
+            }
+            lock.lock();
+            try {
+                return find(city) != NONE;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            List<String> snapshot;
+            lock.lock();
+            try {
+                snapshot = new ArrayList<>(size);
+                for (int slot = head; slot != NONE; slot = next[slot]) {
+                    snapshot.add(keys[slot]);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return Collections.unmodifiableList(snapshot).iterator();
+        }
+
+        @Override
+        public int size() {
+            return CompactWeatherCache.this.size();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Default thread-safe WeatherCache implementation.
+ */
+package io.github.fireg45.openweathersdk.cache;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * WeatherCache backed by a ConcurrentHashMap with least-recently-used eviction.
+ * <p>
+ * Lookups are lock-free. Every entry is also linked into an access-ordered list, so finding the eviction
+ * victim is O(1). The list is guarded by a lock that writers always take and readers only try to take: when
+ * the lock is contended a read skips its recency update instead of waiting, which keeps hot cities readable
+ * by many threads at once at the cost of slightly approximate LRU order under heavy load.
+ * <p>
+ * The cache only decides which city to evict. Expiry is decided by the SDK from
+ * {@link CachedWeather#getTimestampInMillis()}.
+ */
+public class ConcurrentWeatherCache implements WeatherCache {
+    private final ConcurrentHashMap<String, Node> entries;
+    private final int maximumSize;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Node head = new Node(null, null);
+    private final Node tail = new Node(null, null);
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private volatile Consumer<String> evictionListener;
+
+    /**
+     * Creates a cache holding at most the given number of cities.
+     *
+     * @param maximumSize The maximum number of cached cities.
+     */
+    public ConcurrentWeatherCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        entries = new ConcurrentHashMap<>();
+        head.next = tail;
+        tail.prev = head;
+    }
+
+    @Override
+    public CachedWeather get(String city) {
+        Node node = entries.get(city);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        if (evictionLock.tryLock()) {
+            try {
+                if (node.prev != null) {
+                    moveToTail(node);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return node.cachedWeather;
+    }
+
+    @Override
+    public CachedWeather peek(String city) {
+        Node node = entries.get(city);
+        return node != null ? node.cachedWeather : null;
+    }
+
+    @Override
+    public void put(String city, CachedWeather cachedWeather) {
+        evictionLock.lock();
+        try {
+            Node node = entries.get(city);
+            if (node != null) {
+                node.cachedWeather = cachedWeather;
+                moveToTail(node);
+                return;
+            }
+            node = new Node(city, cachedWeather);
+            entries.put(city, node);
+            linkLast(node);
+            while (entries.size() > maximumSize) {
+                Node eldest = head.next;
+                unlink(eldest);
+                entries.remove(eldest.city);
+                evictionCount.increment();
+                Consumer<String> listener = evictionListener;
+                if (listener != null) {
+                    listener.accept(eldest.city);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public CachedWeather remove(String city) {
+        evictionLock.lock();
+        try {
+            Node node = entries.remove(city);
+            if (node == null) {
+                return null;
+            }
+            unlink(node);
+            return node.cachedWeather;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, CachedWeather> action) {
+        entries.forEach((city, node) -> action.accept(city, node.cachedWeather));
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            for (Node node = head.next; node != tail; ) {
+                Node next = node.next;
+                node.prev = null;
+                node.next = null;
+                node = next;
+            }
+            head.next = tail;
+            tail.prev = head;
+            entries.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum());
+    }
+
+    @Override
+    public void setEvictionListener(Consumer<String> listener) {
+        evictionListener = listener;
+    }
+
+    /**
+     * Get the maximum number of cities this cache holds.
+     *
+     * @return The maximum number of cached cities.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    private void linkLast(Node node) {
+        node.prev = tail.prev;
+        node.next = tail;
+        tail.prev.next = node;
+        tail.prev = node;
+    }
+
+    private void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private void moveToTail(Node node) {
+        if (tail.prev != node) {
+            unlink(node);
+            linkLast(node);
+        }
+    }
+
+    private static final class Node {
+        private final String city;
+        private volatile CachedWeather cachedWeather;
+        private Node prev;
+        private Node next;
+
+        private Node(String city, CachedWeather cachedWeather) {
+            this.city = city;
+            this.cachedWeather = cachedWeather;
+        }
+    }
+}
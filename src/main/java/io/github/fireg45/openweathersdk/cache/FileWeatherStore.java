@@ -0,0 +1,162 @@
+/**
+ * Weather store kept in a directory shared by several processes.
+ */
+package io.github.fireg45.openweathersdk.cache;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * A WeatherStore keeping every city in its own file of a directory, which can be shared by the processes of
+ * one host or mounted by several hosts.
+ * <p>
+ * Weather files are written to a temporary file that then replaces the previous one, so readers never see a
+ * half-written entry, and an unreadable file is treated as missing. Leases are kept in separate files updated
+ * under an exclusive file lock, and expire by wall-clock time, so the clocks of the processes sharing the
+ * directory must be roughly in sync.
+ */
+public class FileWeatherStore implements WeatherStore {
+    private static final int MAGIC = 0x4F575357;
+    private static final String WEATHER_SUFFIX = ".weather";
+    private static final String LEASE_SUFFIX = ".lease";
+    private static final int LOCK_STRIPES = 64;
+    /**
+     * File locks are held by the whole JVM, so the threads of one process are serialized on these monitors
+     * before locking a lease file.
+     */
+    private static final Object[] LEASE_LOCKS = new Object[LOCK_STRIPES];
+
+    static {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            LEASE_LOCKS[i] = new Object();
+        }
+    }
+
+    private final Path directory;
+
+    /**
+     * Creates a store in the given directory, which is created on the first write.
+     *
+     * @param directory The directory of the store.
+     */
+    public FileWeatherStore(Path directory) {
+        this.directory = directory.toAbsolutePath();
+    }
+
+    @Override
+    public CachedWeather get(String city) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file(city, WEATHER_SUFFIX));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                return null;
+            }
+            return CachedWeatherCodec.read(buffer);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String city, CachedWeather cachedWeather) throws IOException {
+        Files.createDirectories(directory);
+        Path weatherFile = file(city, WEATHER_SUFFIX);
+        Path temporaryFile = Files.createTempFile(directory, weatherFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryFile, StandardOpenOption.TRUNCATE_EXISTING)))) {
+                out.writeInt(MAGIC);
+                CachedWeatherCodec.write(out, cachedWeather);
+            }
+            try {
+                Files.move(temporaryFile, weatherFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, weatherFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    @Override
+    public boolean tryAcquireLease(String city, String owner, Duration duration) throws IOException {
+        Files.createDirectories(directory);
+        Path leaseFile = file(city, LEASE_SUFFIX);
+        synchronized (LEASE_LOCKS[Math.floorMod(leaseFile.hashCode(), LOCK_STRIPES)]) {
+            try (FileChannel channel = FileChannel.open(leaseFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    long now = System.currentTimeMillis();
+                    ByteBuffer lease = readLease(channel);
+                    if (lease.remaining() >= Long.BYTES) {
+                        long expiresAtMillis = lease.getLong();
+                        String holder = StandardCharsets.UTF_8.decode(lease).toString();
+                        if (expiresAtMillis > now && !holder.equals(owner)) {
+                            return false;
+                        }
+                    }
+                    byte[] ownerBytes = owner.getBytes(StandardCharsets.UTF_8);
+                    ByteBuffer newLease = ByteBuffer.allocate(Long.BYTES + ownerBytes.length);
+                    newLease.putLong(now + duration.toMillis()).put(ownerBytes).flip();
+                    channel.truncate(0);
+                    channel.write(newLease, 0);
+                    return true;
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the lease stored in a lease file.
+     *
+     * @param channel The channel of the lease file.
+     * @return The lease, ready to be read, or an empty buffer if the file is empty.
+     * @throws IOException If the file cannot be read.
+     */
+    private static ByteBuffer readLease(FileChannel channel) throws IOException {
+        ByteBuffer lease = ByteBuffer.allocate((int) Math.min(channel.size(), 1024));
+        while (lease.hasRemaining()) {
+            if (channel.read(lease, lease.position()) < 0) {
+                break;
+            }
+        }
+        return lease.flip();
+    }
+
+    /**
+     * Get the file of a city. City names are hex-encoded, so every name maps to a valid file name on
+     * case-insensitive file systems too.
+     *
+     * @param city   The name of the city.
+     * @param suffix The suffix of the file.
+     * @return The path of the file.
+     */
+    private Path file(String city, String suffix) {
+        return directory.resolve(HexFormat.of().formatHex(city.getBytes(StandardCharsets.UTF_8)) + suffix);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.fireg45.openweathersdk.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns a small int code to every distinct string, so repeated values such as weather descriptions are
+ * stored once. Codes are never reclaimed. Not thread-safe, callers synchronize access.
+ */
+final class StringDictionary {
+    static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Get the code of the string, assigning a new code on first use.
+     *
+     * @param value The string, may be null.
+     * @return The code of the string, or {@link #NULL_CODE} for null.
+     */
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            values.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * Get the string of a code returned by {@link #encode(String)}.
+     *
+     * @param code The code of the string.
+     * @return The shared string instance, or null for {@link #NULL_CODE}.
+     */
+    String decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    /**
+     * Get the number of distinct strings.
+     *
+     * @return The number of assigned codes.
+     */
+    int size() {
+        return values.size();
+    }
+}
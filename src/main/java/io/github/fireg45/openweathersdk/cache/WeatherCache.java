@@ -0,0 +1,102 @@
+/**
+ * Storage abstraction for weather information cached by the OpenWeatherSDK.
+ */
+package io.github.fireg45.openweathersdk.cache;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A cache of weather information keyed by city name.
+ * <p>
+ * The SDK uses the query of the API lookup as city name, such as {@code q=Kazan}, {@code id=551487} or
+ * {@code lat=55.7887&lon=49.1221}, so the same place looked up in different ways is cached separately.
+ * <p>
+ * Implementations must be safe for concurrent use: the SDK reads and writes the cache from every thread
+ * that calls it without any external synchronization.
+ */
+public interface WeatherCache {
+
+    /**
+     * Get the cached weather information for the given city.
+     *
+     * @param city The name of the city.
+     * @return CachedWeather object, or null if the city is not cached.
+     */
+    CachedWeather get(String city);
+
+    /**
+     * Get the cached weather information for the given city without counting a hit or a miss and without
+     * affecting which city is evicted next. The SDK uses it when it checks the cache again for a lookup that
+     * {@link #get(String)} already counted. The default implementation delegates to {@link #get(String)}.
+     *
+     * @param city The name of the city.
+     * @return CachedWeather object, or null if the city is not cached.
+     */
+    default CachedWeather peek(String city) {
+        return get(city);
+    }
+
+    /**
+     * Cache the weather information for the given city, replacing any previous value.
+     *
+     * @param city          The name of the city.
+     * @param cachedWeather The weather information to cache.
+     */
+    void put(String city, CachedWeather cachedWeather);
+
+    /**
+     * Remove the weather information for the given city.
+     *
+     * @param city The name of the city.
+     * @return The removed CachedWeather object, or null if the city was not cached.
+     */
+    CachedWeather remove(String city);
+
+    /**
+     * Get the names of all cached cities.
+     *
+     * @return A weakly consistent view of the cached city names.
+     */
+    Set<String> keys();
+
+    /**
+     * Perform the given action for every cached city. Unlike {@link #get(String)}, this does not count as a
+     * lookup and does not affect which city is evicted next.
+     *
+     * @param action The action receiving each city name and its cached weather information.
+     */
+    void forEach(BiConsumer<String, CachedWeather> action);
+
+    /**
+     * Get the number of cached cities.
+     *
+     * @return The number of cached cities.
+     */
+    int size();
+
+    /**
+     * Remove all cached weather information.
+     */
+    void clear();
+
+    /**
+     * Get the hit, miss and eviction counters of this cache.
+     *
+     * @return CacheStats snapshot.
+     */
+    CacheStats stats();
+
+    /**
+     * Register a listener notified with the name of every city this cache evicts to make room for another one.
+     * The listener may be called while the cache holds internal locks, so it must be fast and must not access
+     * the cache. Implementations that never evict can ignore the listener.
+     *
+     * @param listener The eviction listener, or null to remove it.
+     */
+    default void setEvictionListener(Consumer<String> listener) {
+    }
+}
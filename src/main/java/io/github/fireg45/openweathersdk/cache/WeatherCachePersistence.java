@@ -0,0 +1,188 @@
+/**
+ * Periodic on-disk snapshots of a WeatherCache.
+ */
+package io.github.fireg45.openweathersdk.cache;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Saves a WeatherCache to a binary snapshot file and restores it at startup.
+ * <p>
+ * Snapshots are written to a temporary file that then replaces the snapshot file, so a crash during a save
+ * never leaves a half-written snapshot behind. Snapshots are read through a memory-mapped buffer. Entries
+ * older than the configured maximum age are skipped on load, and a truncated or corrupted snapshot is read up
+ * to the first damaged entry.
+ */
+public class WeatherCachePersistence implements AutoCloseable {
+    private static final int MAGIC = 0x4F575343;
+    private static final int VERSION = 2;
+    private static final byte ENTRY = 1;
+    private static final byte END = 0;
+
+    private final Supplier<WeatherCache> weatherCache;
+    private final Path snapshotFile;
+    private final long maxAgeMillis;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a persistence layer for the given cache.
+     *
+     * @param weatherCache The cache to save and restore.
+     * @param snapshotFile The snapshot file.
+     * @param maxAge       The maximum age of an entry restored from the snapshot.
+     */
+    public WeatherCachePersistence(WeatherCache weatherCache, Path snapshotFile, Duration maxAge) {
+        this(() -> weatherCache, snapshotFile, maxAge);
+    }
+
+    /**
+     * Creates a persistence layer for the cache currently returned by the supplier, so a cache replaced
+     * after persistence was enabled is the one saved.
+     *
+     * @param weatherCache Supplies the cache to save and restore.
+     * @param snapshotFile The snapshot file.
+     * @param maxAge       The maximum age of an entry restored from the snapshot.
+     */
+    public WeatherCachePersistence(Supplier<WeatherCache> weatherCache, Path snapshotFile, Duration maxAge) {
+        this.weatherCache = weatherCache;
+        this.snapshotFile = snapshotFile;
+        this.maxAgeMillis = maxAge.toMillis();
+    }
+
+    /**
+     * Restore the entries of the snapshot file that are not older than the maximum age.
+     *
+     * @return The number of restored entries, 0 if there is no snapshot file.
+     * @throws IOException If the snapshot file cannot be read.
+     */
+    public int load() throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return 0;
+            }
+            WeatherCache cache = weatherCache.get();
+            long now = System.currentTimeMillis();
+            int loaded = 0;
+            try {
+                while (buffer.get() == ENTRY) {
+                    String city = CachedWeatherCodec.readString(buffer);
+                    CachedWeather cachedWeather = CachedWeatherCodec.read(buffer);
+                    if (city != null && now - cachedWeather.getTimestampInMillis() <= maxAgeMillis) {
+                        cache.put(city, cachedWeather);
+                        loaded++;
+                    }
+                }
+            } catch (BufferUnderflowException ignored) {
+                // A truncated snapshot keeps the entries read so far.
+            }
+            return loaded;
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Write the current content of the cache to the snapshot file.
+     *
+     * @throws IOException If the snapshot file cannot be written.
+     */
+    public synchronized void save() throws IOException {
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryFile, StandardOpenOption.TRUNCATE_EXISTING)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                IOException[] failure = new IOException[1];
+                weatherCache.get().forEach((city, cachedWeather) -> {
+                    if (failure[0] != null) {
+                        return;
+                    }
+                    try {
+                        out.writeByte(ENTRY);
+                        CachedWeatherCodec.writeString(out, city);
+                        CachedWeatherCodec.write(out, cachedWeather);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                out.writeByte(END);
+            }
+            try {
+                Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Save the cache periodically on a background daemon thread.
+     *
+     * @param interval The time between two snapshots.
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "openweathersdk-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                save();
+            } catch (IOException ignored) {
+                // The next snapshot is attempted on schedule.
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the periodic snapshots and write a final snapshot.
+     *
+     * @throws UncheckedIOException If the final snapshot cannot be written.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        try {
+            save();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Second-level storage of weather information shared by the OpenWeatherSDK objects of several processes.
+ */
+package io.github.fireg45.openweathersdk.cache;
+
+import io.github.fireg45.openweathersdk.CachedWeather;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * A store of weather information shared by several SDK objects, typically the replicas of a service.
+ * <p>
+ * The store sits behind the in-memory {@link WeatherCache} of every SDK object: a city missing from the
+ * in-memory cache is looked up in the store before the API is queried, and every API response is written to
+ * the store. Refreshes are deduplicated across SDK objects with leases: before querying the API for a city,
+ * an SDK object takes the lease of the city for the TTL window, and an SDK object that does not get the lease
+ * keeps serving the weather information it has until the lease holder stores fresh information.
+ * <p>
+ * Keys are the API queries used by {@link WeatherCache}. The SDK calls the store on the threads looking weather
+ * up, including those of asynchronous lookups, so implementations should answer quickly and bound their I/O.
+ * A failing store is treated as empty: the SDK then queries the API itself.
+ */
+public interface WeatherStore {
+
+    /**
+     * Get the stored weather information for the given city.
+     *
+     * @param city The name of the city.
+     * @return CachedWeather object, or null if the city is not stored.
+     * @throws IOException If the store cannot be read.
+     */
+    CachedWeather get(String city) throws IOException;
+
+    /**
+     * Store the weather information for the given city, replacing any previous value.
+     *
+     * @param city          The name of the city.
+     * @param cachedWeather The weather information to store.
+     * @throws IOException If the store cannot be written.
+     */
+    void put(String city, CachedWeather cachedWeather) throws IOException;
+
+    /**
+     * Take the lease to refresh the given city, unless another owner holds an unexpired lease on it. The lease
+     * is not released after the refresh: it expires after the given duration, so the city is refreshed at most
+     * once per lease duration.
+     *
+     * @param city     The name of the city.
+     * @param owner    The identifier of the SDK object taking the lease.
+     * @param duration The time the lease is held.
+     * @return True if the owner now holds the lease, false if another owner holds it.
+     * @throws IOException If the store cannot be read or written.
+     */
+    boolean tryAcquireLease(String city, String owner, Duration duration) throws IOException;
+}
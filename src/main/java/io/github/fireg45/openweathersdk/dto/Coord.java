@@ -0,0 +1,11 @@
+package io.github.fireg45.openweathersdk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class Coord {
+    private double lon;
+    private double lat;
+}
@@ -0,0 +1,382 @@
+/**
+ * A columnar time series of forecast weather for one city.
+ */
+package io.github.fireg45.openweathersdk.dto;
+
+import io.github.fireg45.openweathersdk.json.WeatherJsonReader;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Forecast of one city as a time series stored in columns: one primitive array per field, indexed by time
+ * step, instead of one object graph per time step. Weather conditions and descriptions are dictionary-encoded,
+ * so the handful of distinct values of a forecast are stored once.
+ * <p>
+ * Time steps are sorted by time. {@link #range(Instant, Instant)} returns a view of the time steps of an
+ * interval that shares the columns of this series, and the aggregates read the columns of the view directly,
+ * so no per-step object is created. Instances are immutable.
+ */
+public final class ForecastSeries {
+    /**
+     * OpenWeatherMap ID of the city, or 0 if the response did not include it.
+     */
+    @Getter
+    private final long cityId;
+    /**
+     * Name of the city, or null if the response did not include it.
+     */
+    @Getter
+    private final String cityName;
+    /**
+     * Shift in seconds from UTC of the city.
+     */
+    @Getter
+    private final int timezone;
+    /**
+     * Coordinates of the city, or null if the response did not include them.
+     */
+    @Getter
+    private final Coord coord;
+    private final long[] timestamps;
+    private final double[] temperatures;
+    private final double[] feelsLike;
+    private final double[] windSpeeds;
+    private final int[] mainCodes;
+    private final int[] descriptionCodes;
+    private final String[] dictionary;
+    private final int offset;
+    private final int length;
+
+    private ForecastSeries(long cityId, String cityName, int timezone, Coord coord, long[] timestamps,
+                           double[] temperatures, double[] feelsLike, double[] windSpeeds, int[] mainCodes,
+                           int[] descriptionCodes, String[] dictionary, int offset, int length) {
+        this.cityId = cityId;
+        this.cityName = cityName;
+        this.timezone = timezone;
+        this.coord = coord;
+        this.timestamps = timestamps;
+        this.temperatures = temperatures;
+        this.feelsLike = feelsLike;
+        this.windSpeeds = windSpeeds;
+        this.mainCodes = mainCodes;
+        this.descriptionCodes = descriptionCodes;
+        this.dictionary = dictionary;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Parses a 5-day forecast response into a ForecastSeries.
+     *
+     * @param body The JSON response body.
+     * @return ForecastSeries initialized with the parsed data.
+     */
+    public static ForecastSeries fromJson(String body) {
+        return fromJson(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a UTF-8 encoded 5-day forecast response into a ForecastSeries in a single pass.
+     *
+     * @param body The UTF-8 encoded JSON response body.
+     * @return ForecastSeries initialized with the parsed data.
+     */
+    public static ForecastSeries fromJson(byte[] body) {
+        return WeatherJsonReader.readForecast(body);
+    }
+
+    /**
+     * Get the number of time steps.
+     *
+     * @return The number of time steps.
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Get the forecast time of a time step.
+     *
+     * @param index The index of the time step.
+     * @return The forecast time in seconds since the epoch.
+     */
+    public long getTimestamp(int index) {
+        return timestamps[checkIndex(index)];
+    }
+
+    /**
+     * Get the temperature of a time step.
+     *
+     * @param index The index of the time step.
+     * @return The temperature, in the units of the API response.
+     */
+    public double getTemperature(int index) {
+        return temperatures[checkIndex(index)];
+    }
+
+    /**
+     * Get the perceived temperature of a time step.
+     *
+     * @param index The index of the time step.
+     * @return The perceived temperature, in the units of the API response.
+     */
+    public double getFeelsLike(int index) {
+        return feelsLike[checkIndex(index)];
+    }
+
+    /**
+     * Get the wind speed of a time step.
+     *
+     * @param index The index of the time step.
+     * @return The wind speed, in the units of the API response.
+     */
+    public double getWindSpeed(int index) {
+        return windSpeeds[checkIndex(index)];
+    }
+
+    /**
+     * Get the weather condition group of a time step, such as Rain or Clouds.
+     *
+     * @param index The index of the time step.
+     * @return The shared condition string, or null if the time step has none.
+     */
+    public String getMain(int index) {
+        return decode(mainCodes[checkIndex(index)]);
+    }
+
+    /**
+     * Get the weather description of a time step.
+     *
+     * @param index The index of the time step.
+     * @return The shared description string, or null if the time step has none.
+     */
+    public String getDescription(int index) {
+        return decode(descriptionCodes[checkIndex(index)]);
+    }
+
+    /**
+     * Get the time steps forecast in the given interval, as a view sharing the columns of this series.
+     *
+     * @param from The start of the interval, inclusive.
+     * @param to   The end of the interval, exclusive.
+     * @return ForecastSeries of the time steps in the interval, empty if there are none.
+     */
+    public ForecastSeries range(Instant from, Instant to) {
+        int start = lowerBound(from.getEpochSecond());
+        int end = Math.max(start, lowerBound(to.getEpochSecond()));
+        return new ForecastSeries(cityId, cityName, timezone, coord, timestamps, temperatures, feelsLike,
+                windSpeeds, mainCodes, descriptionCodes, dictionary, start, end - start);
+    }
+
+    /**
+     * Get the lowest temperature of the time steps.
+     *
+     * @return The lowest temperature, or NaN if there are no time steps.
+     */
+    public double minTemperature() {
+        double min = Double.NaN;
+        for (int i = offset; i < offset + length; i++) {
+            min = i == offset ? temperatures[i] : Math.min(min, temperatures[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Get the highest temperature of the time steps.
+     *
+     * @return The highest temperature, or NaN if there are no time steps.
+     */
+    public double maxTemperature() {
+        double max = Double.NaN;
+        for (int i = offset; i < offset + length; i++) {
+            max = i == offset ? temperatures[i] : Math.max(max, temperatures[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Get the highest wind speed of the time steps.
+     *
+     * @return The highest wind speed, or NaN if there are no time steps.
+     */
+    public double maxWindSpeed() {
+        double max = Double.NaN;
+        for (int i = offset; i < offset + length; i++) {
+            max = i == offset ? windSpeeds[i] : Math.max(max, windSpeeds[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "ForecastSeries(cityId=" + cityId + ", cityName=" + cityName + ", size=" + length
+                + (length > 0 ? ", from=" + timestamps[offset] + ", to=" + timestamps[offset + length - 1] : "")
+                + ")";
+    }
+
+    /**
+     * Find the first time step forecast at or after the given time.
+     *
+     * @param epochSecond The time in seconds since the epoch.
+     * @return The absolute index of the time step in the columns, {@code offset + length} if there is none.
+     */
+    private int lowerBound(long epochSecond) {
+        int low = offset;
+        int high = offset + length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < epochSecond) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int checkIndex(int index) {
+        return offset + Objects.checkIndex(index, length);
+    }
+
+    private String decode(int code) {
+        return code < 0 ? null : dictionary[code];
+    }
+
+    /**
+     * Appends the time steps of a forecast one by one, as they are parsed.
+     */
+    public static final class Builder {
+        private long cityId;
+        private String cityName;
+        private int timezone;
+        private Coord coord;
+        private long[] timestamps;
+        private double[] temperatures;
+        private double[] feelsLike;
+        private double[] windSpeeds;
+        private int[] mainCodes;
+        private int[] descriptionCodes;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int size;
+        private boolean sorted = true;
+
+        /**
+         * Creates a builder with room for the given number of time steps.
+         *
+         * @param expectedSize The expected number of time steps.
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            timestamps = new long[capacity];
+            temperatures = new double[capacity];
+            feelsLike = new double[capacity];
+            windSpeeds = new double[capacity];
+            mainCodes = new int[capacity];
+            descriptionCodes = new int[capacity];
+        }
+
+        /**
+         * Set the city the forecast is for.
+         *
+         * @param cityId   The OpenWeatherMap ID of the city.
+         * @param cityName The name of the city.
+         * @param timezone The shift in seconds from UTC of the city.
+         * @param coord    The coordinates of the city, may be null.
+         * @return This builder.
+         */
+        public Builder city(long cityId, String cityName, int timezone, Coord coord) {
+            this.cityId = cityId;
+            this.cityName = cityName;
+            this.timezone = timezone;
+            this.coord = coord;
+            return this;
+        }
+
+        /**
+         * Append a time step.
+         *
+         * @param timestamp   The forecast time in seconds since the epoch.
+         * @param temperature The temperature.
+         * @param feelsLike   The perceived temperature.
+         * @param windSpeed   The wind speed.
+         * @param main        The weather condition group, may be null.
+         * @param description The weather description, may be null.
+         * @return This builder.
+         */
+        public Builder add(long timestamp, double temperature, double feelsLike, double windSpeed, String main,
+                           String description) {
+            if (size == timestamps.length) {
+                int capacity = size * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                temperatures = Arrays.copyOf(temperatures, capacity);
+                this.feelsLike = Arrays.copyOf(this.feelsLike, capacity);
+                windSpeeds = Arrays.copyOf(windSpeeds, capacity);
+                mainCodes = Arrays.copyOf(mainCodes, capacity);
+                descriptionCodes = Arrays.copyOf(descriptionCodes, capacity);
+            }
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                sorted = false;
+            }
+            timestamps[size] = timestamp;
+            temperatures[size] = temperature;
+            this.feelsLike[size] = feelsLike;
+            windSpeeds[size] = windSpeed;
+            mainCodes[size] = encode(main);
+            descriptionCodes[size] = encode(description);
+            size++;
+            return this;
+        }
+
+        /**
+         * Build the series, trimming the columns to the number of time steps and sorting them by time.
+         *
+         * @return The new ForecastSeries.
+         */
+        public ForecastSeries build() {
+            long[] builtTimestamps = Arrays.copyOf(timestamps, size);
+            double[] builtTemperatures = Arrays.copyOf(temperatures, size);
+            double[] builtFeelsLike = Arrays.copyOf(feelsLike, size);
+            double[] builtWindSpeeds = Arrays.copyOf(windSpeeds, size);
+            int[] builtMainCodes = Arrays.copyOf(mainCodes, size);
+            int[] builtDescriptionCodes = Arrays.copyOf(descriptionCodes, size);
+            if (!sorted) {
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+                for (int i = 0; i < size; i++) {
+                    int from = order[i];
+                    builtTimestamps[i] = timestamps[from];
+                    builtTemperatures[i] = temperatures[from];
+                    builtFeelsLike[i] = feelsLike[from];
+                    builtWindSpeeds[i] = windSpeeds[from];
+                    builtMainCodes[i] = mainCodes[from];
+                    builtDescriptionCodes[i] = descriptionCodes[from];
+                }
+            }
+            return new ForecastSeries(cityId, cityName, timezone, coord, builtTimestamps, builtTemperatures,
+                    builtFeelsLike, builtWindSpeeds, builtMainCodes, builtDescriptionCodes,
+                    dictionary.toArray(new String[0]), 0, size);
+        }
+
+        private int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return codes.computeIfAbsent(value, key -> {
+                dictionary.add(key);
+                return dictionary.size() - 1;
+            });
+        }
+    }
+}
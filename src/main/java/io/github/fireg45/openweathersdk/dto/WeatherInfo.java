@@ -3,8 +3,14 @@
  */
 package io.github.fireg45.openweathersdk.dto;
 
+import io.github.fireg45.openweathersdk.json.WeatherJsonReader;
+import io.github.fireg45.openweathersdk.json.WeatherJsonWriter;
 import lombok.Data;
+import lombok.Getter;
 import org.json.JSONObject;
+import org.json.JSONPropertyIgnore;
+
+import java.nio.charset.StandardCharsets;
 
 /**
  * Data class representing weather information including weather conditions, temperature, wind, etc.
@@ -19,6 +25,16 @@ public class WeatherInfo {
     private Sys sys;
     private int timezone;
     private String name;
+    /**
+     * Coordinates of the location, not part of the JSON representation.
+     */
+    @Getter(onMethod_ = @JSONPropertyIgnore)
+    private Coord coord;
+    /**
+     * OpenWeatherMap ID of the city, not part of the JSON representation.
+     */
+    @Getter(onMethod_ = @JSONPropertyIgnore)
+    private long id;
 
     /**
      * Constructs a WeatherInfo object from a JSON string representing weather data.
@@ -27,29 +43,18 @@ public class WeatherInfo {
      * @return WeatherInfo object initialized with parsed data from the JSON string.
      */
     public static WeatherInfo fromJson(String body) {
-        JSONObject jsonObject = new JSONObject(body);
-        WeatherInfo weatherInfo = new WeatherInfo();
-        weatherInfo.setWeather(new Weather(
-                jsonObject.getJSONArray("weather").getJSONObject(0).getString("main"),
-                jsonObject.getJSONArray("weather").getJSONObject(0).getString("description"))
-        );
-        weatherInfo.setTemperature(new Temperature(
-                jsonObject.getJSONObject("main").getDouble("temp"),
-                jsonObject.getJSONObject("main").getDouble("feels_like")
-        ));
-        weatherInfo.setVisibility(jsonObject.getInt("visibility"));
-        weatherInfo.setWind(new Wind(
-                jsonObject.getJSONObject("wind").getInt("speed")
-        ));
-        weatherInfo.setDatetime(jsonObject.getLong("dt"));
-        weatherInfo.setTimezone(jsonObject.getInt("timezone"));
-        weatherInfo.setSys(new Sys(
-                jsonObject.getJSONObject("sys").getLong("sunrise"),
-                jsonObject.getJSONObject("sys").getLong("sunset")
-        ));
-        weatherInfo.setName(jsonObject.getString("name"));
+        return fromJson(body.getBytes(StandardCharsets.UTF_8));
+    }
 
-        return weatherInfo;
+    /**
+     * Constructs a WeatherInfo object from UTF-8 encoded JSON representing weather data.
+     * The data is read in a single pass without building an intermediate JSON tree.
+     *
+     * @param body The UTF-8 encoded JSON containing weather data.
+     * @return WeatherInfo object initialized with parsed data from the JSON.
+     */
+    public static WeatherInfo fromJson(byte[] body) {
+        return WeatherJsonReader.readWeatherInfo(body);
     }
 
     /**
@@ -58,6 +63,38 @@ public class WeatherInfo {
      * @return JSONObject representation of this WeatherInfo object.
      */
     public JSONObject toJSON() {
-        return new JSONObject(this);
+        JSONObject jsonObject = new JSONObject();
+        if (weather != null) {
+            jsonObject.put("weather", new JSONObject()
+                    .putOpt("main", weather.getMain())
+                    .putOpt("description", weather.getDescription()));
+        }
+        if (temperature != null) {
+            jsonObject.put("temperature", new JSONObject()
+                    .put("temp", temperature.getTemp())
+                    .put("feels_like", temperature.getFeels_like()));
+        }
+        if (sys != null) {
+            jsonObject.put("sys", new JSONObject()
+                    .put("sunrise", sys.getSunrise())
+                    .put("sunset", sys.getSunset()));
+        }
+        if (wind != null) {
+            jsonObject.put("wind", new JSONObject().put("speed", wind.getSpeed()));
+        }
+        return jsonObject
+                .put("datetime", datetime)
+                .put("visibility", visibility)
+                .put("timezone", timezone)
+                .putOpt("name", name);
+    }
+
+    /**
+     * Converts this WeatherInfo object into a JSON string.
+     *
+     * @return JSON string representation of this WeatherInfo object.
+     */
+    public String toJSONString() {
+        return WeatherJsonWriter.toJsonString(this);
     }
 }
@@ -0,0 +1,11 @@
+package io.github.fireg45.openweathersdk.exception;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker is open after repeated server failures.
+ * Only SDK objects created with a circuit breaker in their OpenWeatherSDKConfig throw it.
+ */
+public class OpenWeatherSDKCircuitOpenException extends OpenWeatherSDKServerException {
+    public OpenWeatherSDKCircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Spatial index over cached weather locations.
+ */
+package io.github.fireg45.openweathersdk.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Index of keys by geographic coordinates, answering "nearest key within a radius" queries.
+ * <p>
+ * Coordinates are bucketed into a fixed grid of {@value #CELL_DEGREES} degree cells. A query scans only the cells
+ * that can contain a point within the radius, widening the longitude range towards the poles, and compares
+ * candidates by haversine distance.
+ * <p>
+ * Every coordinate lookup queries the index, cache hits included, so queries are lock-free: the cells are
+ * immutable arrays in a ConcurrentHashMap, replaced whole by writers. Writes, which only happen on API
+ * responses and evictions, are serialized by the monitor of the index.
+ */
+public final class GridIndex {
+    /**
+     * Mean Earth radius in meters.
+     */
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double CELL_DEGREES = 0.05;
+    private static final int LONGITUDE_CELLS = (int) Math.ceil(360 / CELL_DEGREES);
+
+    private final Map<Long, Entry[]> cells = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Index the key at the given coordinates, replacing its previous coordinates.
+     *
+     * @param key       The key.
+     * @param latitude  The latitude in degrees.
+     * @param longitude The longitude in degrees.
+     */
+    public synchronized void put(String key, double latitude, double longitude) {
+        remove(key);
+        Entry entry = new Entry(key, latitude, longitude, cellOf(latitude, longitude));
+        entries.put(key, entry);
+        Entry[] cell = cells.get(entry.cell);
+        if (cell == null) {
+            cells.put(entry.cell, new Entry[]{entry});
+        } else {
+            Entry[] extended = Arrays.copyOf(cell, cell.length + 1);
+            extended[cell.length] = entry;
+            cells.put(entry.cell, extended);
+        }
+    }
+
+    /**
+     * Remove the key from the index.
+     *
+     * @param key The key.
+     */
+    public synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        Entry[] cell = cells.get(entry.cell);
+        if (cell.length == 1) {
+            cells.remove(entry.cell);
+            return;
+        }
+        Entry[] reduced = new Entry[cell.length - 1];
+        int i = 0;
+        for (Entry other : cell) {
+            if (other != entry) {
+                reduced[i++] = other;
+            }
+        }
+        cells.put(entry.cell, reduced);
+    }
+
+    /**
+     * Remove every key from the index.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        cells.clear();
+    }
+
+    /**
+     * Get the number of indexed keys.
+     *
+     * @return The number of indexed keys.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Find the key nearest to the given coordinates within the radius.
+     *
+     * @param latitude     The latitude in degrees.
+     * @param longitude    The longitude in degrees.
+     * @param radiusMeters The search radius in meters.
+     * @param accept       Filter on the candidate keys, for example to skip expired entries. It is called
+     *                     nearest candidates first.
+     * @return The nearest accepted key, or null if there is none within the radius.
+     */
+    public String nearest(double latitude, double longitude, double radiusMeters, Predicate<String> accept) {
+        List<Candidate> candidates = candidates(latitude, longitude, radiusMeters);
+        candidates.sort(Comparator.comparingDouble(candidate -> candidate.distance));
+        for (Candidate candidate : candidates) {
+            if (accept.test(candidate.key)) {
+                return candidate.key;
+            }
+        }
+        return null;
+    }
+
+    private List<Candidate> candidates(double latitude, double longitude, double radiusMeters) {
+        List<Candidate> candidates = new ArrayList<>();
+        if (entries.isEmpty() || radiusMeters <= 0) {
+            return candidates;
+        }
+        double radiusDegrees = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+        int latitudeCell = latitudeCell(latitude);
+        int longitudeCell = longitudeCell(longitude);
+        int latitudeRange = (int) Math.ceil(radiusDegrees / CELL_DEGREES);
+        double maxLatitude = Math.min(90, Math.abs(latitude) + radiusDegrees);
+        double cosine = Math.cos(Math.toRadians(maxLatitude));
+        int longitudeRange = cosine < 1e-9
+                ? LONGITUDE_CELLS
+                : (int) Math.min(LONGITUDE_CELLS, Math.ceil(radiusDegrees / cosine / CELL_DEGREES));
+        // Near the poles the range covers the whole circle of latitude: scan every cell once.
+        int longitudeCount = Math.min(longitudeRange * 2 + 1, LONGITUDE_CELLS);
+        int firstLongitudeCell = longitudeCount == LONGITUDE_CELLS ? 0 : longitudeCell - longitudeRange;
+        for (int dLatitude = -latitudeRange; dLatitude <= latitudeRange; dLatitude++) {
+            for (int i = 0; i < longitudeCount; i++) {
+                int wrappedLongitude = Math.floorMod(firstLongitudeCell + i, LONGITUDE_CELLS);
+                Entry[] cell = cells.get(cellId(latitudeCell + dLatitude, wrappedLongitude));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry entry : cell) {
+                    double distance = distanceMeters(latitude, longitude, entry.latitude, entry.longitude);
+                    if (distance <= radiusMeters) {
+                        candidates.add(new Candidate(entry.key, distance));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Compute the great-circle distance between two points with the haversine formula.
+     *
+     * @param latitude1  The latitude of the first point in degrees.
+     * @param longitude1 The longitude of the first point in degrees.
+     * @param latitude2  The latitude of the second point in degrees.
+     * @param longitude2 The longitude of the second point in degrees.
+     * @return The distance in meters.
+     */
+    public static double distanceMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double sinLatitude = Math.sin(dLatitude / 2);
+        double sinLongitude = Math.sin(dLongitude / 2);
+        double a = sinLatitude * sinLatitude
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static long cellOf(double latitude, double longitude) {
+        return cellId(latitudeCell(latitude), longitudeCell(longitude));
+    }
+
+    private static int latitudeCell(double latitude) {
+        return (int) Math.floor(latitude / CELL_DEGREES);
+    }
+
+    private static int longitudeCell(double longitude) {
+        return Math.floorMod((int) Math.floor(longitude / CELL_DEGREES), LONGITUDE_CELLS);
+    }
+
+    private static long cellId(int latitudeCell, int longitudeCell) {
+        return ((long) latitudeCell << 32) | (longitudeCell & 0xFFFFFFFFL);
+    }
+
+    private static final class Candidate {
+        private final String key;
+        private final double distance;
+
+        private Candidate(String key, double distance) {
+            this.key = key;
+            this.distance = distance;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final double latitude;
+        private final double longitude;
+        private final long cell;
+
+        private Entry(String key, double latitude, double longitude, long cell) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/**
+ * A minimal pull parser for UTF-8 encoded JSON.
+ */
+package io.github.fireg45.openweathersdk.json;
+
+import org.json.JSONException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull parser reading JSON tokens straight from a UTF-8 byte array.
+ * <p>
+ * The reader does not build any tree: callers walk the document token by token, read the values they need
+ * and skip everything else. Object keys are matched against pre-encoded names without creating strings, and
+ * numbers are parsed without intermediate strings whenever the value can be represented exactly.
+ * Malformed input is reported with a {@link JSONException}, like the org.json parser.
+ */
+public final class JsonReader {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    /**
+     * Creates a reader over the whole byte array.
+     *
+     * @param buffer The UTF-8 encoded JSON document.
+     */
+    public JsonReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Creates a reader over a region of the byte array.
+     *
+     * @param buffer The byte array containing the UTF-8 encoded JSON document.
+     * @param offset The index of the first byte of the document.
+     * @param length The number of bytes of the document.
+     */
+    public JsonReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Encode object keys for {@link #nextName(byte[][])}.
+     *
+     * @param names The object keys.
+     * @return The UTF-8 encoded keys, in the same order.
+     */
+    public static byte[][] names(String... names) {
+        byte[][] encoded = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    /**
+     * Consume the opening brace of an object.
+     */
+    public void beginObject() {
+        expect('{');
+    }
+
+    /**
+     * Consume the closing brace of an object.
+     */
+    public void endObject() {
+        expect('}');
+    }
+
+    /**
+     * Consume the opening bracket of an array.
+     */
+    public void beginArray() {
+        expect('[');
+    }
+
+    /**
+     * Consume the closing bracket of an array.
+     */
+    public void endArray() {
+        expect(']');
+    }
+
+    /**
+     * Check if the current object or array has another member, consuming the separating comma if any.
+     *
+     * @return True if another member follows, false if the object or array ends.
+     */
+    public boolean hasNext() {
+        byte c = peek();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (c == ',') {
+            position++;
+        }
+        return true;
+    }
+
+    /**
+     * Check if the next value is {@code null}, consuming it if it is.
+     *
+     * @return True if the next value was null, false otherwise.
+     */
+    public boolean nextNull() {
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Read the next object key and the following colon.
+     *
+     * @param names The candidate keys, encoded with {@link #names(String...)}.
+     * @return The index of the matching candidate, or -1 if the key is not one of them.
+     */
+    public int nextName(byte[][] names) {
+        expect('"');
+        int start = position;
+        while (position < limit && buffer[position] != '"') {
+            if (buffer[position] == '\\') {
+                position++;
+            }
+            position++;
+        }
+        int end = position;
+        expect('"');
+        expect(':');
+        for (int i = 0; i < names.length; i++) {
+            if (regionEquals(start, end, names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read the next string value.
+     *
+     * @return The decoded string.
+     */
+    public String nextString() {
+        expect('"');
+        int start = position;
+        while (position < limit) {
+            byte c = buffer[position];
+            if (c == '"') {
+                String value = new String(buffer, start, position - start, StandardCharsets.UTF_8);
+                position++;
+                return value;
+            }
+            if (c == '\\') {
+                return nextEscapedString(start);
+            }
+            position++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    /**
+     * Read the next number value as a double.
+     *
+     * @return The number.
+     */
+    public double nextDouble() {
+        skipWhitespace();
+        int start = position;
+        boolean negative = false;
+        if (position < limit && buffer[position] == '-') {
+            negative = true;
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        int integerStart = position;
+        while (position < limit && isDigit(buffer[position])) {
+            if (digits < MAX_EXACT_DIGITS) {
+                if (mantissa != 0 || buffer[position] != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (buffer[position] - '0');
+            } else {
+                exact = false;
+            }
+            position++;
+        }
+        if (position == integerStart) {
+            throw syntaxError("Expected a number");
+        }
+        if (position < limit && buffer[position] == '.') {
+            position++;
+            while (position < limit && isDigit(buffer[position])) {
+                if (digits < MAX_EXACT_DIGITS) {
+                    if (mantissa != 0 || buffer[position] != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (buffer[position] - '0');
+                    exponent--;
+                } else {
+                    exact = false;
+                }
+                position++;
+            }
+        }
+        if (position < limit && (buffer[position] == 'e' || buffer[position] == 'E')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < limit && (buffer[position] == '+' || buffer[position] == '-')) {
+                negativeExponent = buffer[position] == '-';
+                position++;
+            }
+            int explicitExponent = 0;
+            while (position < limit && isDigit(buffer[position])) {
+                explicitExponent = Math.min(explicitExponent * 10 + (buffer[position] - '0'), 10_000);
+                position++;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (!exact || exponent < -22 || exponent > 22) {
+            try {
+                return Double.parseDouble(new String(buffer, start, position - start, StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException e) {
+                throw syntaxError("Invalid number");
+            }
+        }
+        double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Read the next number value as a long, truncating any fraction.
+     *
+     * @return The number.
+     */
+    public long nextLong() {
+        skipWhitespace();
+        int start = position;
+        boolean negative = false;
+        if (position < limit && buffer[position] == '-') {
+            negative = true;
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (position < limit && isDigit(buffer[position])) {
+            value = value * 10 + (buffer[position] - '0');
+            digits++;
+            position++;
+        }
+        if (digits == 0) {
+            throw syntaxError("Expected a number");
+        }
+        if (digits > 18 || (position < limit && isNumberPart(buffer[position]))) {
+            position = start;
+            return (long) nextDouble();
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Read the next number value as an int, truncating any fraction.
+     *
+     * @return The number.
+     */
+    public int nextInt() {
+        return (int) nextLong();
+    }
+
+    /**
+     * Skip the next value, including nested objects and arrays.
+     */
+    public void skipValue() {
+        byte c = peek();
+        switch (c) {
+            case '{' -> {
+                beginObject();
+                while (hasNext()) {
+                    expect('"');
+                    skipStringBody();
+                    expect(':');
+                    skipValue();
+                }
+                endObject();
+            }
+            case '[' -> {
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+            }
+            case '"' -> {
+                position++;
+                skipStringBody();
+            }
+            case 't' -> expectLiteral("true");
+            case 'f' -> expectLiteral("false");
+            case 'n' -> expectLiteral("null");
+            default -> nextDouble();
+        }
+    }
+
+    private String nextEscapedString(int start) {
+        StringBuilder builder = new StringBuilder(position - start + 16);
+        builder.append(new String(buffer, start, position - start, StandardCharsets.UTF_8));
+        int runStart = position;
+        while (position < limit) {
+            byte c = buffer[position];
+            if (c == '"') {
+                builder.append(new String(buffer, runStart, position - runStart, StandardCharsets.UTF_8));
+                position++;
+                return builder.toString();
+            }
+            if (c != '\\') {
+                position++;
+                continue;
+            }
+            builder.append(new String(buffer, runStart, position - runStart, StandardCharsets.UTF_8));
+            position++;
+            if (position >= limit) {
+                break;
+            }
+            byte escaped = buffer[position++];
+            switch (escaped) {
+                case 'b' -> builder.append('\b');
+                case 't' -> builder.append('\t');
+                case 'n' -> builder.append('\n');
+                case 'f' -> builder.append('\f');
+                case 'r' -> builder.append('\r');
+                case 'u' -> {
+                    if (position + 4 > limit) {
+                        throw syntaxError("Illegal escape");
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(
+                                new String(buffer, position, 4, StandardCharsets.ISO_8859_1), 16));
+                    } catch (NumberFormatException e) {
+                        throw syntaxError("Illegal escape");
+                    }
+                    position += 4;
+                }
+                case '"', '\\', '/' -> builder.append((char) escaped);
+                default -> throw syntaxError("Illegal escape");
+            }
+            runStart = position;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private void skipStringBody() {
+        while (position < limit) {
+            byte c = buffer[position++];
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                position++;
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    private void expectLiteral(String literal) {
+        skipWhitespace();
+        for (int i = 0; i < literal.length(); i++) {
+            if (position >= limit || buffer[position] != literal.charAt(i)) {
+                throw syntaxError("Expected " + literal);
+            }
+            position++;
+        }
+    }
+
+    private byte peek() {
+        skipWhitespace();
+        if (position >= limit) {
+            throw syntaxError("Unexpected end of input");
+        }
+        return buffer[position];
+    }
+
+    private void skipWhitespace() {
+        while (position < limit) {
+            byte c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private boolean regionEquals(int start, int end, byte[] name) {
+        if (end - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (buffer[start + i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNumberPart(byte c) {
+        return c == '.' || c == 'e' || c == 'E';
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at " + position);
+    }
+}
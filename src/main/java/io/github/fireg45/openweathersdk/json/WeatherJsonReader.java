@@ -0,0 +1,403 @@
+/**
+ * Single-pass readers for OpenWeatherMap API responses.
+ */
+package io.github.fireg45.openweathersdk.json;
+
+import io.github.fireg45.openweathersdk.dto.Coord;
+import io.github.fireg45.openweathersdk.dto.ForecastSeries;
+import io.github.fireg45.openweathersdk.dto.Sys;
+import io.github.fireg45.openweathersdk.dto.Temperature;
+import io.github.fireg45.openweathersdk.dto.Weather;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.dto.Wind;
+import org.json.JSONException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Reads OpenWeatherMap responses into the SDK data classes in one pass over the response bytes,
+ * skipping every field the SDK does not use.
+ */
+public final class WeatherJsonReader {
+    private static final byte[][] WEATHER_INFO_FIELDS = JsonReader.names(
+            "weather", "main", "visibility", "wind", "dt", "sys", "timezone", "name", "coord", "id");
+    private static final int WEATHER_INFO_REQUIRED_FIELDS = 8;
+    private static final byte[][] WEATHER_FIELDS = JsonReader.names("main", "description");
+    private static final byte[][] MAIN_FIELDS = JsonReader.names("temp", "feels_like");
+    private static final byte[][] WIND_FIELDS = JsonReader.names("speed");
+    private static final byte[][] COORD_FIELDS = JsonReader.names("lon", "lat");
+    private static final byte[][] SYS_FIELDS = JsonReader.names("sunrise", "sunset", "timezone");
+    private static final int SYS_REQUIRED_FIELDS = 2;
+    private static final byte[][] GROUP_FIELDS = JsonReader.names("list");
+    private static final byte[][] ERROR_FIELDS = JsonReader.names("message");
+    private static final byte[][] FORECAST_FIELDS = JsonReader.names("list", "cnt", "city");
+    private static final byte[][] FORECAST_STEP_FIELDS = JsonReader.names("dt", "main", "weather", "wind");
+    private static final int FORECAST_STEP_REQUIRED_FIELDS = 2;
+    private static final byte[][] FORECAST_CITY_FIELDS = JsonReader.names("id", "name", "coord", "timezone");
+    private static final int DEFAULT_FORECAST_SIZE = 40;
+
+    private WeatherJsonReader() {
+    }
+
+    /**
+     * Read a current weather response.
+     *
+     * @param body The UTF-8 encoded response body.
+     * @return WeatherInfo object initialized with the parsed data.
+     */
+    public static WeatherInfo readWeatherInfo(byte[] body) {
+        return readWeatherInfo(new JsonReader(body));
+    }
+
+    /**
+     * Read a current weather object at the current position of the reader.
+     *
+     * @param reader The reader positioned before the object.
+     * @return WeatherInfo object initialized with the parsed data.
+     */
+    public static WeatherInfo readWeatherInfo(JsonReader reader) {
+        WeatherInfo weatherInfo = new WeatherInfo();
+        int found = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(WEATHER_INFO_FIELDS);
+            switch (field) {
+                case 0 -> weatherInfo.setWeather(readFirstWeather(reader));
+                case 1 -> weatherInfo.setTemperature(readTemperature(reader));
+                case 2 -> weatherInfo.setVisibility(reader.nextInt());
+                case 3 -> weatherInfo.setWind(readWind(reader));
+                case 4 -> weatherInfo.setDatetime(reader.nextLong());
+                case 5 -> {
+                    if (readSys(reader, weatherInfo)) {
+                        // Multi-city responses carry the timezone in the sys object.
+                        found |= 1 << 6;
+                    }
+                }
+                case 6 -> weatherInfo.setTimezone(reader.nextInt());
+                case 7 -> weatherInfo.setName(reader.nextString());
+                case 8 -> weatherInfo.setCoord(readCoord(reader));
+                case 9 -> weatherInfo.setId(reader.nextLong());
+                default -> reader.skipValue();
+            }
+            if (field >= 0) {
+                found |= 1 << field;
+            }
+        }
+        reader.endObject();
+        requireAll(found, WEATHER_INFO_FIELDS, WEATHER_INFO_REQUIRED_FIELDS);
+        return weatherInfo;
+    }
+
+    /**
+     * Read a multi-city response of the group endpoint, handing every city to the consumer as soon as it is
+     * read, so no list of the whole response is built.
+     *
+     * @param body     The UTF-8 encoded response body.
+     * @param consumer Receives the weather information of each city, in response order.
+     * @return The number of cities read.
+     */
+    public static int readWeatherInfoList(byte[] body, Consumer<WeatherInfo> consumer) {
+        return readWeatherInfoList(new JsonReader(body), consumer);
+    }
+
+    /**
+     * Read a multi-city response of the group endpoint at the current position of the reader.
+     *
+     * @param reader   The reader positioned before the response object.
+     * @param consumer Receives the weather information of each city, in response order.
+     * @return The number of cities read.
+     */
+    public static int readWeatherInfoList(JsonReader reader, Consumer<WeatherInfo> consumer) {
+        int count = 0;
+        boolean found = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(GROUP_FIELDS) != 0) {
+                reader.skipValue();
+                continue;
+            }
+            found = true;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                consumer.accept(readWeatherInfo(reader));
+                count++;
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        if (!found) {
+            throw new JSONException("JSONObject[\"list\"] not found.");
+        }
+        return count;
+    }
+
+    /**
+     * Read a 5-day forecast response.
+     *
+     * @param body The UTF-8 encoded response body.
+     * @return ForecastSeries of the forecast time steps.
+     */
+    public static ForecastSeries readForecast(byte[] body) {
+        return readForecast(new JsonReader(body));
+    }
+
+    /**
+     * Read a 5-day forecast response at the current position of the reader, appending every time step to the
+     * columns of the series as it is read.
+     *
+     * @param reader The reader positioned before the response object.
+     * @return ForecastSeries of the forecast time steps.
+     */
+    public static ForecastSeries readForecast(JsonReader reader) {
+        int expectedSize = DEFAULT_FORECAST_SIZE;
+        ForecastSeries.Builder builder = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(FORECAST_FIELDS)) {
+                case 0 -> {
+                    builder = builder != null ? builder : new ForecastSeries.Builder(expectedSize);
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readForecastStep(reader, builder);
+                    }
+                    reader.endArray();
+                }
+                case 1 -> expectedSize = reader.nextInt();
+                case 2 -> {
+                    builder = builder != null ? builder : new ForecastSeries.Builder(expectedSize);
+                    readForecastCity(reader, builder);
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (builder == null) {
+            throw new JSONException("JSONObject[\"list\"] not found.");
+        }
+        return builder.build();
+    }
+
+    /**
+     * Read the {@code message} field of an error response.
+     *
+     * @param body The UTF-8 encoded response body.
+     * @return The error message.
+     */
+    public static String readErrorMessage(byte[] body) {
+        return readErrorMessage(new JsonReader(body));
+    }
+
+    /**
+     * Read the {@code message} field of an error response at the current position of the reader.
+     *
+     * @param reader The reader positioned before the response object.
+     * @return The error message.
+     */
+    public static String readErrorMessage(JsonReader reader) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(ERROR_FIELDS) == 0) {
+                return reader.nextString();
+            }
+            reader.skipValue();
+        }
+        throw new JSONException("JSONObject[\"message\"] not found.");
+    }
+
+    private static void readForecastStep(JsonReader reader, ForecastSeries.Builder builder) {
+        long timestamp = 0;
+        Temperature temperature = null;
+        Weather weather = null;
+        double windSpeed = 0;
+        int found = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(FORECAST_STEP_FIELDS);
+            switch (field) {
+                case 0 -> timestamp = reader.nextLong();
+                case 1 -> temperature = readTemperature(reader);
+                case 2 -> weather = readFirstWeather(reader);
+                case 3 -> windSpeed = readWindSpeed(reader);
+                default -> reader.skipValue();
+            }
+            if (field >= 0) {
+                found |= 1 << field;
+            }
+        }
+        reader.endObject();
+        requireAll(found, FORECAST_STEP_FIELDS, FORECAST_STEP_REQUIRED_FIELDS);
+        builder.add(timestamp, temperature.getTemp(), temperature.getFeels_like(), windSpeed,
+                weather != null ? weather.getMain() : null, weather != null ? weather.getDescription() : null);
+    }
+
+    private static void readForecastCity(JsonReader reader, ForecastSeries.Builder builder) {
+        long id = 0;
+        String name = null;
+        Coord coord = null;
+        int timezone = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(FORECAST_CITY_FIELDS)) {
+                case 0 -> id = reader.nextLong();
+                case 1 -> name = reader.nextString();
+                case 2 -> coord = readCoord(reader);
+                case 3 -> timezone = reader.nextInt();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        builder.city(id, name, timezone, coord);
+    }
+
+    private static double readWindSpeed(JsonReader reader) {
+        double speed = 0;
+        int found = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(WIND_FIELDS) == 0) {
+                speed = reader.nextDouble();
+                found = 1;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        requireAll(found, WIND_FIELDS);
+        return speed;
+    }
+
+    private static Weather readFirstWeather(JsonReader reader) {
+        Weather weather = null;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (weather != null) {
+                reader.skipValue();
+                continue;
+            }
+            String main = null;
+            String description = null;
+            int found = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int field = reader.nextName(WEATHER_FIELDS);
+                switch (field) {
+                    case 0 -> main = reader.nextString();
+                    case 1 -> description = reader.nextString();
+                    default -> reader.skipValue();
+                }
+                if (field >= 0) {
+                    found |= 1 << field;
+                }
+            }
+            reader.endObject();
+            requireAll(found, WEATHER_FIELDS);
+            weather = new Weather(main, description);
+        }
+        reader.endArray();
+        if (weather == null) {
+            throw new JSONException("JSONArray[0] not found.");
+        }
+        return weather;
+    }
+
+    private static Temperature readTemperature(JsonReader reader) {
+        double temp = 0;
+        double feelsLike = 0;
+        int found = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(MAIN_FIELDS);
+            switch (field) {
+                case 0 -> temp = reader.nextDouble();
+                case 1 -> feelsLike = reader.nextDouble();
+                default -> reader.skipValue();
+            }
+            if (field >= 0) {
+                found |= 1 << field;
+            }
+        }
+        reader.endObject();
+        requireAll(found, MAIN_FIELDS);
+        return new Temperature(temp, feelsLike);
+    }
+
+    private static Wind readWind(JsonReader reader) {
+        double speed = 0;
+        int found = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(WIND_FIELDS) == 0) {
+                // The speed has always been exposed as a whole number.
+                speed = (int) reader.nextDouble();
+                found = 1;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        requireAll(found, WIND_FIELDS);
+        return new Wind(speed);
+    }
+
+    private static Coord readCoord(JsonReader reader) {
+        double lon = 0;
+        double lat = 0;
+        int found = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(COORD_FIELDS);
+            switch (field) {
+                case 0 -> lon = reader.nextDouble();
+                case 1 -> lat = reader.nextDouble();
+                default -> reader.skipValue();
+            }
+            if (field >= 0) {
+                found |= 1 << field;
+            }
+        }
+        reader.endObject();
+        requireAll(found, COORD_FIELDS);
+        return new Coord(lon, lat);
+    }
+
+    private static boolean readSys(JsonReader reader, WeatherInfo weatherInfo) {
+        long sunrise = 0;
+        long sunset = 0;
+        int found = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(SYS_FIELDS);
+            switch (field) {
+                case 0 -> sunrise = reader.nextLong();
+                case 1 -> sunset = reader.nextLong();
+                case 2 -> weatherInfo.setTimezone(reader.nextInt());
+                default -> reader.skipValue();
+            }
+            if (field >= 0) {
+                found |= 1 << field;
+            }
+        }
+        reader.endObject();
+        requireAll(found, SYS_FIELDS, SYS_REQUIRED_FIELDS);
+        weatherInfo.setSys(new Sys(sunrise, sunset));
+        return (found & (1 << 2)) != 0;
+    }
+
+    private static void requireAll(int found, byte[][] fields) {
+        requireAll(found, fields, fields.length);
+    }
+
+    private static void requireAll(int found, byte[][] fields, int required) {
+        int mask = (1 << required) - 1;
+        if ((found & mask) == mask) {
+            return;
+        }
+        for (int i = 0; i < required; i++) {
+            if ((found & (1 << i)) == 0) {
+                String name = new String(fields[i], StandardCharsets.UTF_8);
+                throw new JSONException("JSONObject[\"" + name + "\"] not found.");
+            }
+        }
+    }
+}
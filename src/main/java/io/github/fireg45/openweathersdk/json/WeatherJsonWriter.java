@@ -0,0 +1,168 @@
+/**
+ * Direct JSON serialization of the SDK data classes.
+ */
+package io.github.fireg45.openweathersdk.json;
+
+import io.github.fireg45.openweathersdk.dto.Sys;
+import io.github.fireg45.openweathersdk.dto.Temperature;
+import io.github.fireg45.openweathersdk.dto.Weather;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.dto.Wind;
+
+import java.io.IOException;
+
+/**
+ * Writes WeatherInfo objects as JSON without reflection or an intermediate JSONObject.
+ * <p>
+ * The output has the shape produced by {@link WeatherInfo#toJSON()}: null properties are omitted and whole
+ * numbers stored as doubles are written without a fractional part.
+ */
+public final class WeatherJsonWriter {
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private WeatherJsonWriter() {
+    }
+
+    /**
+     * Render the weather information as a JSON string.
+     *
+     * @param weatherInfo The weather information to render.
+     * @return The JSON string.
+     */
+    public static String toJsonString(WeatherInfo weatherInfo) {
+        StringBuilder builder = BUFFER.get();
+        builder.setLength(0);
+        write(weatherInfo, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Append the weather information as JSON to the given appendable.
+     *
+     * @param weatherInfo The weather information to write.
+     * @param out         The destination.
+     * @throws IOException If the appendable fails.
+     */
+    public static void write(WeatherInfo weatherInfo, Appendable out) throws IOException {
+        if (out instanceof StringBuilder builder) {
+            write(weatherInfo, builder);
+            return;
+        }
+        StringBuilder builder = BUFFER.get();
+        builder.setLength(0);
+        write(weatherInfo, builder);
+        out.append(builder);
+    }
+
+    /**
+     * Append the weather information as JSON to the given builder.
+     *
+     * @param weatherInfo The weather information to write.
+     * @param out         The destination.
+     */
+    public static void write(WeatherInfo weatherInfo, StringBuilder out) {
+        out.append('{');
+        boolean first = true;
+        Weather weather = weatherInfo.getWeather();
+        if (weather != null) {
+            first = name(out, "weather", first);
+            out.append('{');
+            boolean firstWeather = true;
+            if (weather.getMain() != null) {
+                firstWeather = name(out, "main", firstWeather);
+                string(out, weather.getMain());
+            }
+            if (weather.getDescription() != null) {
+                name(out, "description", firstWeather);
+                string(out, weather.getDescription());
+            }
+            out.append('}');
+        }
+        first = name(out, "datetime", first);
+        out.append(weatherInfo.getDatetime());
+        name(out, "visibility", first);
+        out.append(weatherInfo.getVisibility());
+        Temperature temperature = weatherInfo.getTemperature();
+        if (temperature != null) {
+            name(out, "temperature", false);
+            out.append('{');
+            name(out, "temp", true);
+            number(out, temperature.getTemp());
+            name(out, "feels_like", false);
+            number(out, temperature.getFeels_like());
+            out.append('}');
+        }
+        Sys sys = weatherInfo.getSys();
+        if (sys != null) {
+            name(out, "sys", false);
+            out.append('{');
+            name(out, "sunrise", true);
+            out.append(sys.getSunrise());
+            name(out, "sunset", false);
+            out.append(sys.getSunset());
+            out.append('}');
+        }
+        Wind wind = weatherInfo.getWind();
+        if (wind != null) {
+            name(out, "wind", false);
+            out.append('{');
+            name(out, "speed", true);
+            number(out, wind.getSpeed());
+            out.append('}');
+        }
+        name(out, "timezone", false);
+        out.append(weatherInfo.getTimezone());
+        if (weatherInfo.getName() != null) {
+            name(out, "name", false);
+            string(out, weatherInfo.getName());
+        }
+        out.append('}');
+    }
+
+    private static boolean name(StringBuilder out, String name, boolean first) {
+        if (!first) {
+            out.append(',');
+        }
+        out.append('"').append(name).append("\":");
+        return false;
+    }
+
+    private static void number(StringBuilder out, double value) {
+        if (!Double.isFinite(value)) {
+            out.append("null");
+            return;
+        }
+        int start = out.length();
+        out.append(value);
+        int length = out.length();
+        if (length - start > 2 && out.charAt(length - 2) == '.' && out.charAt(length - 1) == '0') {
+            out.setLength(length - 2);
+        }
+    }
+
+    private static void string(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < ' ') {
+                        out.append("\\u00")
+                                .append(Character.forDigit(c >> 4, 16))
+                                .append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
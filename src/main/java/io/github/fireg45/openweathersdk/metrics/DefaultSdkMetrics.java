@@ -0,0 +1,95 @@
+/**
+ * Dependency-free SdkMetrics implementation.
+ */
+package io.github.fireg45.openweathersdk.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SdkMetrics implementation keeping every metric in memory, for exporters to read through {@link #snapshot()}.
+ * <p>
+ * Counters are LongAdders and latencies go to {@link LatencyHistogram}s, so recording never takes a lock.
+ * Metrics accumulate from creation and are never reset; exporters that need rates compute differences between
+ * two snapshots.
+ */
+public class DefaultSdkMetrics implements SdkMetrics {
+    private final LatencyHistogram requestLatency = new LatencyHistogram();
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder cacheMissCount = new LongAdder();
+    private final LongAdder cacheEvictionCount = new LongAdder();
+    private final LongAdder cacheExpirationCount = new LongAdder();
+    private final AtomicLong inFlightRequests = new AtomicLong();
+    private final ConcurrentHashMap<Integer, LongAdder> statusCodeCounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> errorCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public void requestStarted() {
+        inFlightRequests.incrementAndGet();
+    }
+
+    @Override
+    public void requestCompleted(int statusCode, long latencyNanos) {
+        inFlightRequests.decrementAndGet();
+        requestLatency.record(latencyNanos);
+        statusCodeCounts.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void requestFailed(Throwable error, long latencyNanos) {
+        inFlightRequests.decrementAndGet();
+        requestLatency.record(latencyNanos);
+        errorRaised(error);
+    }
+
+    @Override
+    public void responseParsed(long parseNanos) {
+        parseLatency.record(parseNanos);
+    }
+
+    @Override
+    public void errorRaised(Throwable error) {
+        errorCounts.computeIfAbsent(error.getClass().getName(), name -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void cacheHit() {
+        cacheHitCount.increment();
+    }
+
+    @Override
+    public void cacheMiss() {
+        cacheMissCount.increment();
+    }
+
+    @Override
+    public void cacheEviction() {
+        cacheEvictionCount.increment();
+    }
+
+    @Override
+    public void cacheExpiration() {
+        cacheExpirationCount.increment();
+    }
+
+    /**
+     * Copy the current value of every metric.
+     *
+     * @return MetricsSnapshot of this object.
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(requestLatency.snapshot(), parseLatency.snapshot(), cacheHitCount.sum(),
+                cacheMissCount.sum(), cacheEvictionCount.sum(), cacheExpirationCount.sum(), inFlightRequests.get(),
+                sums(statusCodeCounts), sums(errorCounts));
+    }
+
+    private static <K> Map<K, Long> sums(Map<K, LongAdder> counters) {
+        Map<K, Long> sums = new TreeMap<>();
+        counters.forEach((key, counter) -> sums.put(key, counter.sum()));
+        return sums;
+    }
+}
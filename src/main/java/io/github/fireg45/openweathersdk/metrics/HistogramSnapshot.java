@@ -0,0 +1,79 @@
+/**
+ * Point-in-time copy of a latency histogram.
+ */
+package io.github.fireg45.openweathersdk.metrics;
+
+import lombok.Getter;
+
+/**
+ * Point-in-time copy of a {@link LatencyHistogram}. All values are in nanoseconds.
+ */
+public final class HistogramSnapshot {
+    private final long[] counts;
+    @Getter
+    private final long count;
+    @Getter
+    private final double mean;
+
+    HistogramSnapshot(long[] counts, long count, double mean) {
+        this.counts = counts;
+        this.count = count;
+        this.mean = mean;
+    }
+
+    /**
+     * Get the value below which the given percentage of the recorded values fall.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The highest value equivalent to the percentile, or 0 if nothing was recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        double clamped = Math.min(Math.max(percentile, 0), 100);
+        long rank = Math.max(1, (long) Math.ceil(clamped / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return LatencyHistogram.highestValueOf(i);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Get the smallest recorded value.
+     *
+     * @return The lowest value equivalent to the smallest recorded value, or 0 if nothing was recorded.
+     */
+    public long getMin() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                return LatencyHistogram.lowestValueOf(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the largest recorded value.
+     *
+     * @return The highest value equivalent to the largest recorded value, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return LatencyHistogram.highestValueOf(i);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot(count=" + count + ", mean=" + mean + ", p50=" + valueAtPercentile(50)
+                + ", p99=" + valueAtPercentile(99) + ", max=" + getMax() + ")";
+    }
+}
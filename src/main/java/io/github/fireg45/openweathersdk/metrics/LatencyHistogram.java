@@ -0,0 +1,78 @@
+/**
+ * Lock-free latency histogram.
+ */
+package io.github.fireg45.openweathersdk.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds with log-linear buckets, in the style of HdrHistogram.
+ * <p>
+ * Values below {@code 2 * SUB_BUCKET_COUNT} nanoseconds get a bucket each. Above that, every power of two is
+ * split into {@code SUB_BUCKET_COUNT} linear buckets, so every recorded value is reported with a relative error
+ * below 1 / {@code SUB_BUCKET_COUNT} (about 3%) at a fixed memory cost. Values are recorded with a single atomic
+ * increment and no lock; values above one hour are recorded as one hour.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = (1L << 42) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Record one duration.
+     *
+     * @param nanos The duration in nanoseconds. Negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Copy the current counts. Values recorded while the snapshot is taken may or may not be included.
+     *
+     * @return HistogramSnapshot of this histogram.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new HistogramSnapshot(copy, count, count == 0 ? 0 : (double) totalNanos.sum() / totalCount.sum());
+    }
+
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index - (long) shift * SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    static long lowestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return (index - (long) shift * SUB_BUCKET_COUNT) << shift;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Point-in-time copy of the SDK metrics.
+ */
+package io.github.fireg45.openweathersdk.metrics;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Point-in-time copy of the metrics recorded by a {@link DefaultSdkMetrics}.
+ */
+@Value
+public class MetricsSnapshot {
+    /**
+     * Time between sending a request and receiving its response or failure.
+     */
+    HistogramSnapshot requestLatency;
+    /**
+     * Time spent parsing successful responses.
+     */
+    HistogramSnapshot parseLatency;
+    long cacheHitCount;
+    long cacheMissCount;
+    long cacheEvictionCount;
+    long cacheExpirationCount;
+    /**
+     * Requests sent and not yet answered when the snapshot was taken.
+     */
+    long inFlightRequests;
+    /**
+     * Number of responses per HTTP status code.
+     */
+    Map<Integer, Long> statusCodeCounts;
+    /**
+     * Number of errors per exception class name, covering failed requests and exceptions raised by the SDK.
+     */
+    Map<String, Long> errorCounts;
+}
@@ -0,0 +1,85 @@
+/**
+ * Instrumentation hooks of the OpenWeatherSDK.
+ */
+package io.github.fireg45.openweathersdk.metrics;
+
+/**
+ * Listener notified by the OpenWeatherSDK about requests, response parsing and cache lookups.
+ * <p>
+ * Every method does nothing by default, so an implementation only overrides the events it records. Methods
+ * are called on the threads that call the SDK, on the background refresh threads and on the HTTP client
+ * threads, so implementations must be thread-safe and fast.
+ *
+ * @see DefaultSdkMetrics
+ */
+public interface SdkMetrics {
+    /**
+     * Listener that records nothing.
+     */
+    SdkMetrics NOOP = new SdkMetrics() {
+    };
+
+    /**
+     * Called when an HTTP request is sent to the API.
+     */
+    default void requestStarted() {
+    }
+
+    /**
+     * Called when the API responded to a request.
+     *
+     * @param statusCode   The status code of the response.
+     * @param latencyNanos The time between sending the request and receiving the response, in nanoseconds.
+     */
+    default void requestCompleted(int statusCode, long latencyNanos) {
+    }
+
+    /**
+     * Called when a request failed without a response, for example because of a network error.
+     *
+     * @param error        The failure.
+     * @param latencyNanos The time between sending the request and the failure, in nanoseconds.
+     */
+    default void requestFailed(Throwable error, long latencyNanos) {
+    }
+
+    /**
+     * Called when a successful response has been parsed.
+     *
+     * @param parseNanos The time spent parsing the response body, in nanoseconds.
+     */
+    default void responseParsed(long parseNanos) {
+    }
+
+    /**
+     * Called when the SDK raises an exception for a lookup, for example an unknown city or a rate limit.
+     *
+     * @param error The raised exception.
+     */
+    default void errorRaised(Throwable error) {
+    }
+
+    /**
+     * Called when a lookup is answered from the cache.
+     */
+    default void cacheHit() {
+    }
+
+    /**
+     * Called when a lookup has to query the API because the city is not cached or its weather is too old.
+     */
+    default void cacheMiss() {
+    }
+
+    /**
+     * Called when the cache evicts a city to make room for another one.
+     */
+    default void cacheEviction() {
+    }
+
+    /**
+     * Called when a lookup finds cached weather that is older than the soft TTL.
+     */
+    default void cacheExpiration() {
+    }
+}
@@ -1,19 +1,68 @@
 package io.github.fireg45;
 
 import io.github.fireg45.mock.HttpResponseMock;
+import org.json.JSONException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import io.github.fireg45.openweathersdk.OpenWeatherSDK;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKConfig;
 import io.github.fireg45.openweathersdk.OpenWeatherSDKMode;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKRegistry;
+import io.github.fireg45.openweathersdk.RateLimiterStats;
+import io.github.fireg45.openweathersdk.WeatherBatchResult;
+import io.github.fireg45.openweathersdk.WeatherListener;
+import io.github.fireg45.openweathersdk.WeatherSubscription;
+import io.github.fireg45.openweathersdk.CachedWeather;
+import io.github.fireg45.openweathersdk.ChangeThresholds;
+import io.github.fireg45.openweathersdk.CircuitBreakerConfig;
+import io.github.fireg45.openweathersdk.CircuitBreakerStats;
+import io.github.fireg45.openweathersdk.cache.CacheStats;
+import io.github.fireg45.openweathersdk.cache.CompactWeatherCache;
+import io.github.fireg45.openweathersdk.cache.ConcurrentWeatherCache;
+import io.github.fireg45.openweathersdk.cache.FileWeatherStore;
+import io.github.fireg45.openweathersdk.dto.ForecastSeries;
 import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.exception.OpenWeatherSDKCircuitOpenException;
+import io.github.fireg45.openweathersdk.exception.OpenWeatherSDKNotFoundException;
+import io.github.fireg45.openweathersdk.exception.OpenWeatherSDKServerException;
+import io.github.fireg45.openweathersdk.exception.OpenWeatherSDKTooManyRequestsException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 public class AppTest {
 
@@ -34,11 +83,64 @@ public class AppTest {
 
     @Test
     void Test_objectPool() {
-        openWeatherSDK = OpenWeatherSDK.factory(API_KEY, OpenWeatherSDKMode.POLLING);
-        OpenWeatherSDK openWeatherSDK1 = OpenWeatherSDK.factory(API_KEY, OpenWeatherSDKMode.POLLING);
+        openWeatherSDK = OpenWeatherSDK.factory("POOL_API_KEY", OpenWeatherSDKMode.POLLING);
+        OpenWeatherSDK openWeatherSDK1 = OpenWeatherSDK.factory("POOL_API_KEY", OpenWeatherSDKMode.POLLING);
         openWeatherSDK1.releaseSDKObject();
-        openWeatherSDK1 = OpenWeatherSDK.factory(API_KEY, OpenWeatherSDKMode.POLLING);
+        Assertions.assertSame(openWeatherSDK, OpenWeatherSDK.factory("POOL_API_KEY", OpenWeatherSDKMode.POLLING));
+        openWeatherSDK.releaseSDKObject();
+        openWeatherSDK.releaseSDKObject();
+        openWeatherSDK1 = OpenWeatherSDK.factory("POOL_API_KEY", OpenWeatherSDKMode.POLLING);
         Assertions.assertNotEquals(openWeatherSDK, openWeatherSDK1);
+        openWeatherSDK1.releaseSDKObject();
+    }
+
+    @Test
+    void Test_objectPool_modesDoNotClobber() {
+        OpenWeatherSDKRegistry registry = new OpenWeatherSDKRegistry();
+        OpenWeatherSDK polling = registry.acquire(API_KEY, OpenWeatherSDKMode.POLLING);
+        OpenWeatherSDK onDemand = registry.acquire(API_KEY, OpenWeatherSDKMode.ON_DEMAND);
+
+        Assertions.assertNotSame(polling, onDemand);
+        Assertions.assertEquals(OpenWeatherSDKMode.POLLING, polling.getMode());
+        Assertions.assertTrue(polling.isPolling());
+        Assertions.assertEquals(OpenWeatherSDKMode.ON_DEMAND, onDemand.getMode());
+        Assertions.assertFalse(onDemand.isPolling());
+
+        onDemand.releaseSDKObject();
+        Assertions.assertEquals(1, registry.size());
+        Assertions.assertSame(polling, registry.acquire(API_KEY, OpenWeatherSDKMode.POLLING));
+        registry.shutdownAll();
+        Assertions.assertEquals(0, registry.size());
+    }
+
+    @Test
+    void Test_objectPool_concurrentFactory() throws InterruptedException, ExecutionException {
+        OpenWeatherSDKRegistry registry = new OpenWeatherSDKRegistry();
+        int callers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OpenWeatherSDK>> futures = new ArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return registry.acquire(API_KEY, OpenWeatherSDKMode.ON_DEMAND);
+            }));
+        }
+        start.countDown();
+
+        OpenWeatherSDK first = futures.get(0).get();
+        for (Future<OpenWeatherSDK> future : futures) {
+            Assertions.assertSame(first, future.get());
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < callers - 1; i++) {
+            first.releaseSDKObject();
+        }
+        Assertions.assertEquals(1, registry.size());
+        first.releaseSDKObject();
+        Assertions.assertEquals(0, registry.size());
     }
 
     @Test
@@ -52,10 +154,8 @@ public class AppTest {
 
         HttpRequest request = HttpRequest.newBuilder(uri).build();
 
-        HttpResponse.BodyHandler<?> response = HttpResponse.BodyHandlers.ofString();
-
-        Mockito.when(httpClient.send(request, response))
-                .thenReturn(new HttpResponseMock<>());
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
 
 
         openWeatherSDK.setHttpClient(httpClient);
@@ -80,12 +180,12 @@ public class AppTest {
 
         openWeatherSDK.setHttpClient(httpClient);
 
-        Mockito.when(httpClient.send(HttpRequest.newBuilder(uri1).build(), HttpResponse.BodyHandlers.ofString()))
-                .thenReturn(new HttpResponseMock<>());
-        Mockito.when(httpClient.send(HttpRequest.newBuilder(uri2).build(), HttpResponse.BodyHandlers.ofString()))
-                .thenReturn(new HttpResponseMock<>());
-        Mockito.when(httpClient.send(HttpRequest.newBuilder(uri3).build(), HttpResponse.BodyHandlers.ofString()))
-                .thenReturn(new HttpResponseMock<>());
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri1).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri2).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri3).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
 
         WeatherInfo w1K = openWeatherSDK.getWeatherInfo("Kazan");
         WeatherInfo w1M = openWeatherSDK.getWeatherInfo("Moscow");
@@ -123,8 +223,8 @@ public class AppTest {
         openWeatherSDK.setHttpClient(httpClient);
 
         for (URI uri : uris) {
-            Mockito.when(httpClient.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString()))
-                    .thenReturn(new HttpResponseMock<>());
+            Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                    .thenAnswer(HttpResponseMock.answer());
         }
 
         WeatherInfo[] weatherInfos = new WeatherInfo[uris.length];
@@ -138,11 +238,11 @@ public class AppTest {
         URI newCity2URI =
                 URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "NEW_CITY2" + "&appid=" + API_KEY);
 
-        Mockito.when(httpClient.send(HttpRequest.newBuilder(newCity1URI).build(), HttpResponse.BodyHandlers.ofString()))
-                .thenReturn(new HttpResponseMock<>());
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(newCity1URI).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
 
-        Mockito.when(httpClient.send(HttpRequest.newBuilder(newCity2URI).build(), HttpResponse.BodyHandlers.ofString()))
-                .thenReturn(new HttpResponseMock<>());
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(newCity2URI).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
 
         openWeatherSDK.getWeatherInfo("NEW_CITY1");
         openWeatherSDK.getWeatherInfo("NEW_CITY2");
@@ -150,6 +250,1275 @@ public class AppTest {
         openWeatherSDK.getWeatherInfo("city1");
 
         Mockito.verify(httpClient, Mockito.times(2))
-                .send(HttpRequest.newBuilder(uris[0]).build(), HttpResponse.BodyHandlers.ofString());
+                .send(Mockito.eq(HttpRequest.newBuilder(uris[0]).build()), Mockito.any());
+    }
+
+    @Test
+    void Test_concurrentWeatherRequests() throws IOException, InterruptedException {
+        int threads = 32;
+        int cities = 20;
+
+        openWeatherSDK = OpenWeatherSDK.factory(API_KEY, OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        for (int i = 0; i < cities; i++) {
+            URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "stress" + i + "&appid=" + API_KEY);
+            Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                    .thenAnswer(HttpResponseMock.answer());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    Assertions.assertNotNull(openWeatherSDK.getWeatherInfo("stress" + ((thread + i) % cities)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+
+        for (Future<?> future : futures) {
+            Assertions.assertDoesNotThrow(() -> future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void Test_concurrentMissesShareOneRequest() throws IOException, InterruptedException {
+        int callers = 100;
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "London" + "&appid=" + "SINGLE_FLIGHT_API_KEY");
+
+        openWeatherSDK = OpenWeatherSDK.factory("SINGLE_FLIGHT_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(200);
+                    return HttpResponseMock.answer().answer(invocation);
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<WeatherInfo>> futures = new ArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return openWeatherSDK.getWeatherInfo("London");
+            }));
+        }
+        start.countDown();
+
+        WeatherInfo first = null;
+        for (Future<WeatherInfo> future : futures) {
+            WeatherInfo weatherInfo = Assertions.assertDoesNotThrow(() -> future.get(1, TimeUnit.MINUTES));
+            if (first == null) {
+                first = weatherInfo;
+            }
+            Assertions.assertSame(first, weatherInfo);
+        }
+        executor.shutdown();
+
+        Mockito.verify(httpClient, Mockito.times(1))
+                .send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any());
+    }
+
+    @Test
+    void Test_weatherRequestPolling_backgroundRefresh() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "POLLING_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("POLLING_API_KEY", OpenWeatherSDKMode.POLLING);
+        openWeatherSDK.setRefreshInterval(Duration.ofMillis(50));
+        openWeatherSDK.setRefreshJitter(Duration.ofMillis(10));
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        openWeatherSDK.getWeatherInfo("Kazan");
+
+        Mockito.verify(httpClient, Mockito.timeout(5000).atLeast(3))
+                .send(Mockito.eq(request), Mockito.any());
+
+        openWeatherSDK.releaseSDKObject();
+        Thread.sleep(200);
+        Mockito.clearInvocations(httpClient);
+        Thread.sleep(200);
+
+        Mockito.verify(httpClient, Mockito.never())
+                .send(Mockito.eq(request), Mockito.any());
+    }
+
+    @Test
+    void Test_getWeatherInfoAsync() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "ASYNC_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("ASYNC_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.sendAsync(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync());
+
+        WeatherInfo w1 = openWeatherSDK.getWeatherInfoAsync("Kazan").join();
+        CompletableFuture<WeatherInfo> cached = openWeatherSDK.getWeatherInfoAsync("Kazan");
+
+        Assertions.assertTrue(cached.isDone());
+        Assertions.assertEquals(w1, cached.join());
+        Assertions.assertEquals(w1, openWeatherSDK.getWeatherInfo("Kazan"));
+        Mockito.verify(httpClient, Mockito.times(1)).sendAsync(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient, Mockito.never()).send(Mockito.eq(request), Mockito.any());
+    }
+
+    @Test
+    void Test_getWeatherInfoAsync_notFound() {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Atlantis" + "&appid=" + "ASYNC_API_KEY");
+
+        openWeatherSDK = OpenWeatherSDK.factory("ASYNC_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.sendAsync(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync(404, "{\"cod\":\"404\",\"message\":\"city not found\"}"));
+
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> openWeatherSDK.getWeatherInfoAsync("Atlantis").get());
+
+        Assertions.assertInstanceOf(OpenWeatherSDKNotFoundException.class, exception.getCause());
+        Assertions.assertEquals("city not found", exception.getCause().getMessage());
+    }
+
+    @Test
+    void Test_batchWeatherRequest() throws IOException, InterruptedException {
+        openWeatherSDK = OpenWeatherSDK.factory("BATCH_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        URI cachedUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "BATCH_API_KEY");
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(cachedUri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+        openWeatherSDK.getWeatherInfo("Kazan");
+
+        List<String> cities = new ArrayList<>(List.of("Kazan", "Atlantis"));
+        for (int i = 0; i < 8; i++) {
+            String city = "batch" + i;
+            cities.add(city);
+            URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + city + "&appid=" + "BATCH_API_KEY");
+            Mockito.when(httpClient.sendAsync(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                    .thenAnswer(invocation -> CompletableFuture.supplyAsync(
+                            () -> HttpResponseMock.handle(invocation.getArgument(1), 200, HttpResponseMock.WEATHER)));
+        }
+        URI notFoundUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Atlantis" + "&appid=" + "BATCH_API_KEY");
+        Mockito.when(httpClient.sendAsync(Mockito.eq(HttpRequest.newBuilder(notFoundUri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync(404, "{\"cod\":\"404\",\"message\":\"city not found\"}"));
+
+        WeatherBatchResult result = openWeatherSDK.getWeatherInfo(cities, 3, Duration.ofSeconds(10));
+
+        Assertions.assertEquals(9, result.getWeather().size());
+        Assertions.assertEquals(1, result.getErrors().size());
+        Assertions.assertInstanceOf(OpenWeatherSDKNotFoundException.class, result.getErrors().get("Atlantis"));
+        Mockito.verify(httpClient, Mockito.never())
+                .sendAsync(Mockito.eq(HttpRequest.newBuilder(cachedUri).build()), Mockito.any());
+    }
+
+    @Test
+    void Test_batchWeatherRequest_blankCityName() throws IOException, InterruptedException {
+        openWeatherSDK = OpenWeatherSDK.factory("BATCH_BLANK_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "BATCH_BLANK_API_KEY");
+        Mockito.when(httpClient.sendAsync(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync());
+
+        WeatherBatchResult result = openWeatherSDK.getWeatherInfo(Arrays.asList("Kazan", " ", "", null), 2, Duration.ofSeconds(10));
+
+        Assertions.assertEquals(1, result.getWeather().size());
+        Assertions.assertEquals(3, result.getErrors().size());
+        Assertions.assertInstanceOf(IllegalArgumentException.class, result.getErrors().get(" "));
+        Assertions.assertInstanceOf(IllegalArgumentException.class, result.getErrors().get(""));
+        Assertions.assertInstanceOf(IllegalArgumentException.class, result.getErrors().get(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> openWeatherSDK.getWeatherInfo((String) null));
+    }
+
+    @Test
+    void Test_batchWeatherRequest_timeout() {
+        openWeatherSDK = OpenWeatherSDK.factory("BATCH_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Slowtown" + "&appid=" + "BATCH_API_KEY");
+        Mockito.when(httpClient.sendAsync(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                .thenReturn(new CompletableFuture<>());
+
+        WeatherBatchResult result = openWeatherSDK.getWeatherInfo(List.of("Slowtown"), 1, Duration.ofMillis(100));
+
+        Assertions.assertTrue(result.getWeather().isEmpty());
+        Assertions.assertInstanceOf(TimeoutException.class, result.getErrors().get("Slowtown"));
+    }
+
+    @Test
+    void Test_rateLimit_backoffAfter429() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "RATE_LIMIT_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("RATE_LIMIT_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        openWeatherSDK.setRateLimit(0);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(429, "{\"cod\":429,\"message\":\"rate limit exceeded\"}"));
+
+        OpenWeatherSDKTooManyRequestsException exception = Assertions.assertThrows(
+                OpenWeatherSDKTooManyRequestsException.class, () -> openWeatherSDK.getWeatherInfo("Kazan"));
+        Assertions.assertEquals("rate limit exceeded", exception.getMessage());
+        Assertions.assertThrows(OpenWeatherSDKTooManyRequestsException.class,
+                () -> openWeatherSDK.getWeatherInfo("Kazan"));
+
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        Assertions.assertEquals(new RateLimiterStats(0, 1, 0, 0), openWeatherSDK.getRateLimiterStats());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_rateLimit_backoffAfter429WithoutJsonBody() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "PLAIN_429_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        URI otherUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Moscow" + "&appid=" + "PLAIN_429_API_KEY");
+
+        openWeatherSDK = OpenWeatherSDK.factory("PLAIN_429_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        openWeatherSDK.setRateLimit(0);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(429, "<html><body>Too Many Requests</body></html>"));
+
+        OpenWeatherSDKTooManyRequestsException exception = Assertions.assertThrows(
+                OpenWeatherSDKTooManyRequestsException.class, () -> openWeatherSDK.getWeatherInfo("Kazan"));
+        Assertions.assertEquals("HTTP 429", exception.getMessage());
+        Assertions.assertThrows(OpenWeatherSDKTooManyRequestsException.class,
+                () -> openWeatherSDK.getWeatherInfo("Moscow"));
+
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient, Mockito.never()).send(Mockito.eq(HttpRequest.newBuilder(otherUri).build()), Mockito.any());
+        Assertions.assertEquals(new RateLimiterStats(0, 1, 0, 0), openWeatherSDK.getRateLimiterStats());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_rateLimit_servesStaleWeather() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "RATE_LIMIT_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        ConcurrentWeatherCache weatherCache = new ConcurrentWeatherCache(10);
+        WeatherInfo staleWeather = new WeatherInfo();
+        staleWeather.setName("Kazan");
+        weatherCache.put("q=kazan", new CachedWeather(staleWeather, System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        openWeatherSDK = OpenWeatherSDK.factory("RATE_LIMIT_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder().weatherCacheFactory(() -> weatherCache).build());
+        openWeatherSDK.setRateLimit(6, Duration.ZERO);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        URI otherUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Moscow" + "&appid=" + "RATE_LIMIT_API_KEY");
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(otherUri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+        openWeatherSDK.getWeatherInfo("Moscow");
+
+        Assertions.assertSame(staleWeather, openWeatherSDK.getWeatherInfo("Kazan"));
+        Assertions.assertSame(staleWeather, openWeatherSDK.getWeatherInfoAsync("Kazan").join());
+
+        Mockito.verify(httpClient, Mockito.never()).send(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient, Mockito.never()).sendAsync(Mockito.eq(request), Mockito.any());
+        Assertions.assertEquals(new RateLimiterStats(0, 0, 2, 2), openWeatherSDK.getRateLimiterStats());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_staleWhileRevalidate() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "SWR_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("SWR_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        openWeatherSDK.setSoftTtl(Duration.ZERO);
+        openWeatherSDK.setHardTtl(Duration.ofMinutes(10));
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+        Mockito.when(httpClient.sendAsync(Mockito.eq(request), Mockito.any()))
+                .thenReturn(new CompletableFuture<>());
+
+        WeatherInfo w1 = openWeatherSDK.getWeatherInfo("Kazan");
+        Thread.sleep(5);
+        WeatherInfo w2 = openWeatherSDK.getWeatherInfo("Kazan");
+        WeatherInfo w3 = openWeatherSDK.getWeatherInfo("Kazan");
+
+        Assertions.assertSame(w1, w2);
+        Assertions.assertSame(w1, w3);
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient, Mockito.times(1)).sendAsync(Mockito.eq(request), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_negativeCache() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Atlantis" + "&appid=" + "NEGATIVE_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("NEGATIVE_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(404, "{\"cod\":\"404\",\"message\":\"city not found\"}"));
+
+        for (int i = 0; i < 3; i++) {
+            OpenWeatherSDKNotFoundException exception = Assertions.assertThrows(
+                    OpenWeatherSDKNotFoundException.class, () -> openWeatherSDK.getWeatherInfo("Atlantis"));
+            Assertions.assertEquals("city not found", exception.getMessage());
+        }
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> openWeatherSDK.getWeatherInfoAsync("Atlantis").get());
+        Assertions.assertInstanceOf(OpenWeatherSDKNotFoundException.class, exception.getCause());
+
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient, Mockito.never()).sendAsync(Mockito.eq(request), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_factoryWithConfig() throws IOException, InterruptedException {
+        OpenWeatherSDKConfig config = OpenWeatherSDKConfig.builder()
+                .baseUri(URI.create("http://localhost:8080/"))
+                .threadPoolSize(2)
+                .requestTimeout(Duration.ofSeconds(1))
+                .build();
+        URI uri = URI.create("http://localhost:8080/data/2.5/weather?q=" + "Kazan" + "&appid=" + "CONFIG_API_KEY");
+
+        openWeatherSDK = OpenWeatherSDK.factory("CONFIG_API_KEY", OpenWeatherSDKMode.ON_DEMAND, config);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        Assertions.assertEquals("Kazan’", openWeatherSDK.getWeatherInfo("Kazan").getName());
+        Mockito.verify(httpClient).send(Mockito.argThat(request ->
+                request.timeout().equals(Optional.of(Duration.ofSeconds(1)))), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_weatherRequestByCoordinates_servesNearbyFromCache() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?lat=55.7887&lon=49.1221&appid=" + "GEO_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("GEO_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        WeatherInfo w1 = openWeatherSDK.getWeatherInfo(55.7887, 49.1221);
+        WeatherInfo w2 = openWeatherSDK.getWeatherInfo(55.7900, 49.1300);
+        WeatherInfo w3 = openWeatherSDK.getWeatherInfoAsync(55.7800, 49.1100).join();
+
+        Assertions.assertEquals(55.7887, w1.getCoord().getLat());
+        Assertions.assertSame(w1, w2);
+        Assertions.assertSame(w1, w3);
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.any(), Mockito.any());
+
+        openWeatherSDK.setNearbyRadiusMeters(0);
+        URI farUri = URI.create("https://api.openweathermap.org/data/2.5/weather?lat=55.79&lon=49.13&appid=" + "GEO_API_KEY");
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(farUri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+        openWeatherSDK.getWeatherInfo(55.79, 49.13);
+        Mockito.verify(httpClient, Mockito.times(2)).send(Mockito.any(), Mockito.any());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> openWeatherSDK.getWeatherInfo(91, 0));
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_weatherRequestById() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?id=551487&appid=" + "GEO_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("GEO_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        WeatherInfo w1 = openWeatherSDK.getWeatherInfoById(551487);
+        WeatherInfo w2 = openWeatherSDK.getWeatherInfoByIdAsync(551487).join();
+
+        Assertions.assertEquals(551487, w1.getId());
+        Assertions.assertSame(w1, w2);
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_batchWeatherRequestById_usesGroupEndpoint() throws IOException, InterruptedException {
+        openWeatherSDK = OpenWeatherSDK.factory("GROUP_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        List<Long> cityIds = new ArrayList<>();
+        for (long cityId = 1; cityId <= 25; cityId++) {
+            cityIds.add(cityId);
+        }
+        URI firstGroupUri = URI.create("https://api.openweathermap.org/data/2.5/group?id="
+                + "1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19,20" + "&appid=" + "GROUP_API_KEY");
+        URI secondGroupUri = URI.create("https://api.openweathermap.org/data/2.5/group?id="
+                + "21,22,23,24,25" + "&appid=" + "GROUP_API_KEY");
+        Mockito.when(httpClient.sendAsync(Mockito.eq(HttpRequest.newBuilder(firstGroupUri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync(200,
+                        groupBody(cityIds.subList(0, 20).stream().filter(cityId -> cityId != 7).toList())));
+        Mockito.when(httpClient.sendAsync(Mockito.eq(HttpRequest.newBuilder(secondGroupUri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync(200,
+                        groupBody(cityIds.subList(20, 25))));
+
+        WeatherBatchResult result = openWeatherSDK.getWeatherInfoById(cityIds, 4, Duration.ofSeconds(10));
+
+        Assertions.assertEquals(24, result.getWeather().size());
+        Assertions.assertEquals(25, result.getWeather().get("25").getId());
+        Assertions.assertEquals(10800, result.getWeather().get("1").getTimezone());
+        Assertions.assertInstanceOf(OpenWeatherSDKNotFoundException.class, result.getErrors().get("7"));
+        Mockito.verify(httpClient, Mockito.times(2)).sendAsync(Mockito.any(), Mockito.any());
+        Assertions.assertEquals(result.getWeather().get("24"), openWeatherSDK.getWeatherInfoById(24));
+        Mockito.verify(httpClient, Mockito.never()).send(Mockito.any(), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_batchWeatherRequestById_servesStaleWeatherWhenThrottled() throws IOException, InterruptedException {
+        ConcurrentWeatherCache weatherCache = new ConcurrentWeatherCache(10);
+        WeatherInfo staleWeather = new WeatherInfo();
+        staleWeather.setId(1L);
+        weatherCache.put("id=1", new CachedWeather(staleWeather, System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        openWeatherSDK = OpenWeatherSDK.factory("GROUP_STALE_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder().weatherCacheFactory(() -> weatherCache).build());
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.sendAsync(Mockito.any(), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync(429, "{\"cod\":429,\"message\":\"rate limit exceeded\"}"));
+
+        WeatherBatchResult result = openWeatherSDK.getWeatherInfoById(List.of(1L, 2L), Integer.MAX_VALUE, Duration.ofSeconds(10));
+
+        Assertions.assertSame(staleWeather, result.getWeather().get("1"));
+        Assertions.assertInstanceOf(OpenWeatherSDKTooManyRequestsException.class, result.getErrors().get("2"));
+        Mockito.verify(httpClient, Mockito.times(1)).sendAsync(Mockito.any(), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_weatherRequestPolling_groupRefresh() throws IOException, InterruptedException {
+        openWeatherSDK = OpenWeatherSDK.factory("GROUP_POLLING_API_KEY", OpenWeatherSDKMode.POLLING);
+        openWeatherSDK.setRefreshInterval(Duration.ofMillis(50));
+        openWeatherSDK.setRefreshJitter(Duration.ofMillis(10));
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        for (long cityId = 1; cityId <= 3; cityId++) {
+            URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?id=" + cityId + "&appid=" + "GROUP_POLLING_API_KEY");
+            Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                    .thenAnswer(HttpResponseMock.answer(200, groupEntry(cityId)));
+        }
+        Mockito.when(httpClient.send(Mockito.argThat(request -> request.uri().getPath().endsWith("/group")),
+                        Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(200, groupBody(List.of(1L, 2L, 3L))));
+
+        openWeatherSDK.getWeatherInfoById(1);
+        openWeatherSDK.getWeatherInfoById(2);
+        openWeatherSDK.getWeatherInfoById(3);
+
+        Mockito.verify(httpClient, Mockito.timeout(5000).atLeast(5)).send(Mockito.any(), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+
+        // Every refresh after the three initial lookups is a single group request for all three cities.
+        Mockito.verify(httpClient, Mockito.times(3)).send(
+                Mockito.argThat(request -> request.uri().getPath().endsWith("/weather")), Mockito.any());
+        Mockito.verify(httpClient, Mockito.atLeast(2)).send(
+                Mockito.argThat(request -> request.uri().getQuery().split(",").length == 3), Mockito.any());
+    }
+
+    @Test
+    void Test_gzipResponseInChunks() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "GZIP_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Accept-Encoding", "gzip").build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("GZIP_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder().gzip(true).build());
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(HttpResponseMock.WEATHER.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] body = compressed.toByteArray();
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int i = 0; i < body.length; i += 7) {
+            chunks.add(ByteBuffer.wrap(body, i, Math.min(7, body.length - i)));
+        }
+        HttpHeaders headers = HttpHeaders.of(Map.of("Content-Encoding", List.of("gzip"),
+                "Content-Length", List.of(String.valueOf(body.length))), (name, value) -> true);
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(invocation -> HttpResponseMock.handle(invocation.getArgument(1), 200, headers, chunks));
+
+        WeatherInfo weatherInfo = openWeatherSDK.getWeatherInfo("Kazan");
+
+        Assertions.assertEquals(WeatherInfo.fromJson(HttpResponseMock.WEATHER), weatherInfo);
+        Assertions.assertEquals("Kazan’", weatherInfo.getName());
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_malformedResponse() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "MALFORMED_API_KEY");
+
+        openWeatherSDK = OpenWeatherSDK.factory("MALFORMED_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(200, "{\"name\":"))
+                .thenAnswer(HttpResponseMock.answer(502, "<html>Bad Gateway</html>"));
+
+        Assertions.assertThrows(JSONException.class, () -> openWeatherSDK.getWeatherInfo("Kazan"));
+        Assertions.assertThrows(OpenWeatherSDKServerException.class, () -> openWeatherSDK.getWeatherInfo("Kazan"));
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_errorResponse_largeBodyIsTruncated() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "LARGE_ERROR_API_KEY");
+
+        openWeatherSDK = OpenWeatherSDK.factory("LARGE_ERROR_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        byte[] body = ("{\"cod\":503,\"message\":\"Service unavailable\",\"details\":\"" + "x".repeat(1024 * 1024) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int i = 0; i < body.length; i += 1000) {
+            chunks.add(ByteBuffer.wrap(body, i, Math.min(1000, body.length - i)));
+        }
+        HttpHeaders headers = HttpHeaders.of(Map.of("Content-Length", List.of(String.valueOf(body.length))),
+                (name, value) -> true);
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                .thenAnswer(invocation -> HttpResponseMock.handle(invocation.getArgument(1), 503, headers, chunks));
+
+        // Only the start of the body is kept, which still holds the message.
+        OpenWeatherSDKServerException exception = Assertions.assertThrows(OpenWeatherSDKServerException.class,
+                () -> openWeatherSDK.getWeatherInfo("Kazan"));
+        Assertions.assertEquals("Service unavailable", exception.getMessage());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_circuitBreaker_servesStaleWeatherWhileOpen() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Moscow" + "&appid=" + "CIRCUIT_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        URI staleUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "CIRCUIT_API_KEY");
+
+        ConcurrentWeatherCache weatherCache = new ConcurrentWeatherCache(10);
+        WeatherInfo staleWeather = new WeatherInfo();
+        staleWeather.setName("Kazan");
+        weatherCache.put("q=kazan", new CachedWeather(staleWeather, System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        openWeatherSDK = OpenWeatherSDK.factory("CIRCUIT_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder()
+                        .circuitBreaker(CircuitBreakerConfig.builder()
+                                .slidingWindowSize(4)
+                                .minimumCalls(2)
+                                .openDuration(Duration.ofMillis(200))
+                                .halfOpenProbes(1)
+                                .build())
+                        .weatherCacheFactory(() -> weatherCache)
+                        .build());
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(500, "{\"cod\":500,\"message\":\"Internal error\"}"))
+                .thenAnswer(HttpResponseMock.answer(500, "{\"cod\":500,\"message\":\"Internal error\"}"))
+                .thenAnswer(HttpResponseMock.answer());
+
+        Assertions.assertThrows(OpenWeatherSDKServerException.class, () -> openWeatherSDK.getWeatherInfo("Moscow"));
+        Assertions.assertThrows(OpenWeatherSDKServerException.class, () -> openWeatherSDK.getWeatherInfo("Moscow"));
+        Assertions.assertThrows(OpenWeatherSDKCircuitOpenException.class, () -> openWeatherSDK.getWeatherInfo("Moscow"));
+        Assertions.assertSame(staleWeather, openWeatherSDK.getWeatherInfo("Kazan"));
+        Assertions.assertSame(staleWeather, openWeatherSDK.getWeatherInfoAsync("Kazan").join());
+        Assertions.assertEquals(new CircuitBreakerStats(CircuitBreakerStats.State.OPEN, 0, 1, 3, 2),
+                openWeatherSDK.getCircuitBreakerStats());
+
+        Thread.sleep(250);
+        Assertions.assertEquals("Kazan’", openWeatherSDK.getWeatherInfo("Moscow").getName());
+        Assertions.assertEquals(CircuitBreakerStats.State.CLOSED, openWeatherSDK.getCircuitBreakerStats().getState());
+
+        Mockito.verify(httpClient, Mockito.times(3)).send(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient, Mockito.never()).send(Mockito.eq(HttpRequest.newBuilder(staleUri).build()), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_circuitBreaker_offByDefault() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Moscow" + "&appid=" + "NO_CIRCUIT_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("NO_CIRCUIT_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(500, "{\"cod\":500,\"message\":\"Internal error\"}"));
+
+        for (int i = 0; i < 30; i++) {
+            OpenWeatherSDKServerException e = Assertions.assertThrows(OpenWeatherSDKServerException.class,
+                    () -> openWeatherSDK.getWeatherInfo("Moscow"));
+            Assertions.assertFalse(e instanceof OpenWeatherSDKCircuitOpenException);
+        }
+        Assertions.assertEquals(CircuitBreakerStats.State.CLOSED, openWeatherSDK.getCircuitBreakerStats().getState());
+
+        Mockito.verify(httpClient, Mockito.times(30)).send(Mockito.eq(request), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_circuitBreaker_ignoresOutcomeOfEarlierGeneration() throws Exception {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Moscow" + "&appid=" + "GENERATION_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        URI slowUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "GENERATION_API_KEY");
+        HttpRequest slowRequest = HttpRequest.newBuilder(slowUri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("GENERATION_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder()
+                        .circuitBreaker(CircuitBreakerConfig.builder()
+                                .slidingWindowSize(4)
+                                .minimumCalls(2)
+                                .openDuration(Duration.ofMillis(200))
+                                .halfOpenProbes(1)
+                                .build())
+                        .build());
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        CountDownLatch sent = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(httpClient.send(Mockito.eq(slowRequest), Mockito.any())).thenAnswer(invocation -> {
+            sent.countDown();
+            release.await();
+            return HttpResponseMock.answer(500, "{\"cod\":500,\"message\":\"Internal error\"}").answer(invocation);
+        });
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(500, "{\"cod\":500,\"message\":\"Internal error\"}"))
+                .thenAnswer(HttpResponseMock.answer(500, "{\"cod\":500,\"message\":\"Internal error\"}"))
+                .thenAnswer(HttpResponseMock.answer());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> slow = executor.submit(() -> openWeatherSDK.getWeatherInfo("Kazan"));
+        Assertions.assertTrue(sent.await(5, TimeUnit.SECONDS));
+
+        Assertions.assertThrows(OpenWeatherSDKServerException.class, () -> openWeatherSDK.getWeatherInfo("Moscow"));
+        Assertions.assertThrows(OpenWeatherSDKServerException.class, () -> openWeatherSDK.getWeatherInfo("Moscow"));
+        Thread.sleep(250);
+        Assertions.assertEquals("Kazan’", openWeatherSDK.getWeatherInfo("Moscow").getName());
+
+        // The slow request was sent before the circuit opened, so its failure is not counted after it closed.
+        release.countDown();
+        ExecutionException failure = Assertions.assertThrows(ExecutionException.class, () -> slow.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(OpenWeatherSDKServerException.class, failure.getCause());
+        Assertions.assertEquals(new CircuitBreakerStats(CircuitBreakerStats.State.CLOSED, 0, 1, 0, 0),
+                openWeatherSDK.getCircuitBreakerStats());
+        executor.shutdown();
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_circuitBreaker_rejectsMinimumCallsAboveWindow() {
+        OpenWeatherSDKConfig config = OpenWeatherSDKConfig.builder()
+                .circuitBreaker(CircuitBreakerConfig.builder()
+                        .slidingWindowSize(4)
+                        .minimumCalls(5)
+                        .build())
+                .build();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> OpenWeatherSDK.factory("WINDOW_API_KEY", OpenWeatherSDKMode.ON_DEMAND, config));
+        // The failed creation registers nothing, so a valid configuration is accepted afterwards.
+        openWeatherSDK = OpenWeatherSDK.factory("WINDOW_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_cacheStats_countsEachLookupOnce() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "CACHE_STATS_API_KEY");
+
+        openWeatherSDK = OpenWeatherSDK.factory("CACHE_STATS_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        openWeatherSDK.getWeatherInfo("Kazan");
+        openWeatherSDK.getWeatherInfo("Kazan");
+
+        CacheStats stats = openWeatherSDK.getCacheStats();
+        Assertions.assertEquals(1, stats.getHitCount());
+        Assertions.assertEquals(1, stats.getMissCount());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_weatherCacheMaxSize_evictsLeastRecentlyUsedCity() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "CACHE_SIZE_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("CACHE_SIZE_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder()
+                        .weatherCacheMaxSize(2)
+                        .build());
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.any(), Mockito.any())).thenAnswer(HttpResponseMock.answer());
+
+        openWeatherSDK.getWeatherInfo("Kazan");
+        openWeatherSDK.getWeatherInfo("Moscow");
+        openWeatherSDK.getWeatherInfo("Kazan");
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+
+        openWeatherSDK.getWeatherInfo("London");
+        openWeatherSDK.getWeatherInfo("Paris");
+        openWeatherSDK.getWeatherInfo("Kazan");
+        Mockito.verify(httpClient, Mockito.times(2)).send(Mockito.eq(request), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_hedgedRequest_usesFirstResponse() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "HEDGE_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("HEDGE_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder().hedgeDelay(Duration.ofMillis(50)).build());
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        CompletableFuture<HttpResponse<Object>> stalled = new CompletableFuture<>();
+        Mockito.when(httpClient.sendAsync(Mockito.eq(request), Mockito.any()))
+                .thenReturn(stalled)
+                .thenAnswer(HttpResponseMock.answerAsync());
+
+        Assertions.assertEquals("Kazan’", openWeatherSDK.getWeatherInfo("Kazan").getName());
+
+        Mockito.verify(httpClient, Mockito.times(2)).sendAsync(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient, Mockito.never()).send(Mockito.any(), Mockito.any());
+        Assertions.assertTrue(stalled.isCancelled());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_cityNameNormalization() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "CITY_KEY_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        URI encodedUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Nizhny%20Novgorod%27" + "&appid=" + "CITY_KEY_API_KEY");
+        HttpRequest encodedRequest = HttpRequest.newBuilder(encodedUri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("CITY_KEY_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+        Mockito.when(httpClient.send(Mockito.eq(encodedRequest), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        WeatherInfo w1 = openWeatherSDK.getWeatherInfo("Kazan");
+        Assertions.assertSame(w1, openWeatherSDK.getWeatherInfo(" kazan "));
+        Assertions.assertSame(w1, openWeatherSDK.getWeatherInfo("KAZAN'"));
+        Assertions.assertSame(w1, openWeatherSDK.getWeatherInfoAsync("Kazan’").join());
+        WeatherInfo w2 = openWeatherSDK.getWeatherInfo(" Nizhny \t Novgorod' ");
+        Assertions.assertSame(w2, openWeatherSDK.getWeatherInfo("nizhny novgorod"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> openWeatherSDK.getWeatherInfo(" ' "));
+
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(encodedRequest), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_sharedWeatherStore(@TempDir Path directory) throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Moscow" + "&appid=" + "STORE_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        URI leasedUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "STORE_API_KEY");
+
+        OpenWeatherSDKRegistry registry1 = new OpenWeatherSDKRegistry();
+        OpenWeatherSDKRegistry registry2 = new OpenWeatherSDKRegistry();
+        OpenWeatherSDK node1 = registry1.acquire("STORE_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        OpenWeatherSDK node2 = registry2.acquire("STORE_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        FileWeatherStore store = new FileWeatherStore(directory);
+        node1.setWeatherStore(store);
+        node2.setWeatherStore(store);
+
+        HttpClient httpClient1 = Mockito.mock(HttpClient.class);
+        HttpClient httpClient2 = Mockito.mock(HttpClient.class);
+        node1.setHttpClient(httpClient1);
+        node2.setHttpClient(httpClient2);
+
+        Mockito.when(httpClient1.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        WeatherInfo weatherInfo = node1.getWeatherInfo("Moscow");
+        Assertions.assertEquals(weatherInfo, node2.getWeatherInfo("Moscow"));
+        Assertions.assertEquals(weatherInfo, node2.getWeatherInfoAsync("moscow").join());
+
+        // Another node holds the lease of an expired city: its stored weather is served until it is refreshed.
+        WeatherInfo staleWeather = new WeatherInfo();
+        staleWeather.setName("Kazan");
+        store.put("q=kazan", new CachedWeather(staleWeather, System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+        Assertions.assertTrue(store.tryAcquireLease("q=kazan", "node3", Duration.ofMinutes(1)));
+        Assertions.assertEquals("Kazan", node1.getWeatherInfo("Kazan").getName());
+
+        Mockito.verify(httpClient1, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        Mockito.verify(httpClient1, Mockito.never()).send(Mockito.eq(HttpRequest.newBuilder(leasedUri).build()), Mockito.any());
+        Mockito.verifyNoInteractions(httpClient2);
+        registry1.shutdownAll();
+        registry2.shutdownAll();
+    }
+
+    @Test
+    void Test_subscribe_pushesSignificantChanges() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "SUBSCRIBE_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("SUBSCRIBE_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        openWeatherSDK.setRefreshInterval(Duration.ofMillis(50));
+        openWeatherSDK.setRefreshJitter(Duration.ZERO);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        String warmer = HttpResponseMock.WEATHER.replace("\"temp\":267.43", "\"temp\":267.63");
+        String muchWarmer = HttpResponseMock.WEATHER.replace("\"temp\":267.43", "\"temp\":269.43");
+        Mockito.when(httpClient.sendAsync(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync());
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(200, HttpResponseMock.WEATHER))
+                .thenAnswer(HttpResponseMock.answer(200, warmer))
+                .thenAnswer(HttpResponseMock.answer(200, muchWarmer));
+
+        BlockingQueue<WeatherInfo> changes = new LinkedBlockingQueue<>();
+        WeatherSubscription subscription = openWeatherSDK.subscribe("Kazan", (cityName, weatherInfo) -> {
+            Assertions.assertEquals("Kazan", cityName);
+            changes.add(weatherInfo);
+        }, ChangeThresholds.builder().temperatureDelta(1).build());
+
+        Assertions.assertEquals(267.43, changes.poll(5, TimeUnit.SECONDS).getTemperature().getTemp());
+        Assertions.assertEquals(269.43, changes.poll(5, TimeUnit.SECONDS).getTemperature().getTemp());
+        Mockito.verify(httpClient, Mockito.timeout(5000).atLeast(4)).send(Mockito.eq(request), Mockito.any());
+        Assertions.assertNull(changes.poll(100, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(2, subscription.getDeliveredCount());
+
+        subscription.close();
+        Assertions.assertTrue(subscription.isClosed());
+        Thread.sleep(100);
+        Mockito.clearInvocations(httpClient);
+        Thread.sleep(200);
+        Mockito.verify(httpClient, Mockito.never()).send(Mockito.eq(request), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_subscribe_slowListenerDoesNotBlockOthers() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "SLOW_LISTENER_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("SLOW_LISTENER_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        openWeatherSDK.setRefreshInterval(Duration.ofMillis(20));
+        openWeatherSDK.setRefreshJitter(Duration.ZERO);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        double[] temperature = {267.43};
+        Mockito.when(httpClient.sendAsync(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync());
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any())).thenAnswer(invocation -> {
+            temperature[0] += 1;
+            return HttpResponseMock.answer(200, HttpResponseMock.WEATHER.replace("\"temp\":267.43",
+                    "\"temp\":" + temperature[0])).answer(invocation);
+        });
+
+        CountDownLatch release = new CountDownLatch(1);
+        WeatherSubscription slow = openWeatherSDK.subscribe("Kazan", (cityName, weatherInfo) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch fastChanges = new CountDownLatch(5);
+        WeatherSubscription fast = openWeatherSDK.subscribe("Kazan", (cityName, weatherInfo) -> fastChanges.countDown());
+
+        Assertions.assertTrue(fastChanges.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(slow.getConflatedCount() > 0);
+        Assertions.assertEquals(0, slow.getDeliveredCount());
+        release.countDown();
+        slow.close();
+        fast.close();
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_subscribe_concurrentCloseKeepsNewSubscription() throws Exception {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "RESUBSCRIBE_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("RESUBSCRIBE_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        openWeatherSDK.setRefreshInterval(Duration.ofMillis(10));
+        openWeatherSDK.setRefreshJitter(Duration.ZERO);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        AtomicInteger sends = new AtomicInteger();
+        Mockito.when(httpClient.sendAsync(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync());
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any())).thenAnswer(invocation ->
+                HttpResponseMock.answer(200, HttpResponseMock.WEATHER.replace("\"temp\":267.43",
+                        "\"temp\":" + (268 + sends.incrementAndGet()))).answer(invocation));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 20; i++) {
+                WeatherSubscription previous = openWeatherSDK.subscribe("Kazan", (cityName, weatherInfo) -> {
+                });
+                CountDownLatch changes = new CountDownLatch(2);
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> closed = executor.submit(() -> {
+                    barrier.await();
+                    previous.close();
+                    return null;
+                });
+                Future<WeatherSubscription> subscribed = executor.submit(() -> {
+                    barrier.await();
+                    return openWeatherSDK.subscribe("Kazan", (cityName, weatherInfo) -> changes.countDown());
+                });
+                closed.get(5, TimeUnit.SECONDS);
+                WeatherSubscription subscription = subscribed.get(5, TimeUnit.SECONDS);
+                // The cached weather and at least one refreshed change reach the new subscription.
+                Assertions.assertTrue(changes.await(5, TimeUnit.SECONDS));
+                subscription.close();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    @Test
+    void Test_shutdownAll_continuesAfterFailedSnapshot(@TempDir Path directory) throws IOException {
+        OpenWeatherSDKRegistry registry = new OpenWeatherSDKRegistry();
+        OpenWeatherSDK onDemand = registry.acquire("SHUTDOWN_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        OpenWeatherSDK polling = registry.acquire("SHUTDOWN_API_KEY", OpenWeatherSDKMode.POLLING);
+        Path snapshotDirectory = directory.resolve("snapshots");
+        onDemand.enablePersistence(snapshotDirectory.resolve("cache.bin"), Duration.ofHours(1));
+        polling.enablePersistence(snapshotDirectory.resolve("cache.bin"), Duration.ofHours(1));
+        // The final snapshots cannot be written where a file takes the place of their directory.
+        Files.writeString(snapshotDirectory, "");
+
+        UncheckedIOException failure = Assertions.assertThrows(UncheckedIOException.class, registry::shutdownAll);
+
+        Assertions.assertEquals(1, failure.getSuppressed().length);
+        Assertions.assertEquals(0, registry.size());
+        WeatherListener listener = (cityName, weatherInfo) -> {
+        };
+        Assertions.assertThrows(IllegalStateException.class, () -> onDemand.subscribe("Kazan", listener));
+        Assertions.assertThrows(IllegalStateException.class, () -> polling.subscribe("Kazan", listener));
+    }
+
+    @Test
+    void Test_persistence_usesConfiguredCache(@TempDir Path directory) throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "PERSISTENCE_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        Path snapshotFile = directory.resolve("cache.bin");
+
+        OpenWeatherSDKRegistry registry = new OpenWeatherSDKRegistry();
+        OpenWeatherSDK weatherSDK = registry.acquire("PERSISTENCE_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder().weatherCacheFactory(() -> new CompactWeatherCache(100)).build());
+        weatherSDK.enablePersistence(snapshotFile, Duration.ofHours(1));
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        weatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        weatherSDK.getWeatherInfo("Kazan");
+        weatherSDK.releaseSDKObject();
+
+        OpenWeatherSDK restarted = new OpenWeatherSDKRegistry().acquire("PERSISTENCE_API_KEY",
+                OpenWeatherSDKMode.ON_DEMAND);
+        Assertions.assertEquals(1, restarted.enablePersistence(snapshotFile, Duration.ofHours(1)));
+        restarted.releaseSDKObject();
+    }
+
+    @Test
+    void Test_rateLimit_sharedByBothModes() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "SHARED_LIMIT_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        OpenWeatherSDKRegistry registry = new OpenWeatherSDKRegistry();
+        OpenWeatherSDK onDemand = registry.acquire("SHARED_LIMIT_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+        OpenWeatherSDK polling = registry.acquire("SHARED_LIMIT_API_KEY", OpenWeatherSDKMode.POLLING);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        onDemand.setHttpClient(httpClient);
+        polling.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.any(), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        onDemand.setRateLimit(1, Duration.ZERO);
+        onDemand.getWeatherInfo("Kazan");
+        Assertions.assertThrows(OpenWeatherSDKTooManyRequestsException.class, () -> polling.getWeatherInfo("Moscow"));
+        Assertions.assertEquals(1, polling.getRateLimiterStats().getShedCount());
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.any(), Mockito.any());
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+        registry.shutdownAll();
+    }
+
+    @Test
+    void Test_subscribe_boundedDeliveryThreads() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "NOTIFIER_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        OpenWeatherSDKRegistry registry = new OpenWeatherSDKRegistry();
+        OpenWeatherSDK weatherSDK = registry.acquire("NOTIFIER_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder().notifierThreads(2).build());
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        weatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+        weatherSDK.getWeatherInfo("Kazan");
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(20);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 20; i++) {
+            weatherSDK.subscribe("Kazan", (cityName, weatherInfo) -> {
+                threads.add(Thread.currentThread().getName());
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                delivered.countDown();
+            });
+        }
+
+        Thread.sleep(200);
+        Assertions.assertEquals(2, threads.size());
+        release.countDown();
+        Assertions.assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, threads.size());
+        registry.shutdownAll();
+    }
+
+    @Test
+    void Test_subscribe_retriesRejectedDelivery() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "REJECTED_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+
+        OpenWeatherSDKRegistry registry = new OpenWeatherSDKRegistry();
+        ConcurrentWeatherCache weatherCache = new ConcurrentWeatherCache(10);
+        weatherCache.put("q=kazan", new CachedWeather(WeatherInfo.fromJson(HttpResponseMock.WEATHER),
+                System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        OpenWeatherSDK weatherSDK = registry.acquire("REJECTED_API_KEY", OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder().notifierThreads(1).weatherCacheFactory(() -> weatherCache).build());
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        weatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        // The only delivery thread is blocked and the delivery queue overflows, so the last subscriptions
+        // have their first change rejected.
+        int subscriptions = 10_100;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        weatherSDK.subscribe("Kazan", (cityName, weatherInfo) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.incrementAndGet();
+        });
+        for (int i = 1; i < subscriptions; i++) {
+            weatherSDK.subscribe("Kazan", (cityName, weatherInfo) -> delivered.incrementAndGet());
+        }
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (delivered.get() < 10_001 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(delivered.get() < subscriptions);
+
+        // The refreshed weather is unchanged, yet it retries the rejected deliveries.
+        weatherSDK.getWeatherInfo("Kazan");
+        while (delivered.get() < subscriptions && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(subscriptions, delivered.get());
+        registry.shutdownAll();
+    }
+
+    private static String groupEntry(long cityId) {
+        return new HttpResponseMock<String>().body().replace("\"id\":551487", "\"id\":" + cityId);
+    }
+
+    private static String groupBody(List<Long> cityIds) {
+        StringBuilder body = new StringBuilder("{\"cnt\":" + cityIds.size() + ",\"list\":[");
+        for (int i = 0; i < cityIds.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            // Multi-city responses carry the timezone in the sys object.
+            body.append(groupEntry(cityIds.get(i))
+                    .replace(",\"timezone\":10800", "")
+                    .replace("\"country\":\"RU\"", "\"country\":\"RU\",\"timezone\":10800"));
+        }
+        return body.append("]}").toString();
+    }
+
+    @Test
+    void Test_forecast_cachedWithOwnTtl() throws IOException, InterruptedException {
+        URI uri = URI.create("https://api.openweathermap.org/data/2.5/forecast?q=" + "Kazan" + "&appid=" + "FORECAST_API_KEY");
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        URI weatherUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Kazan" + "&appid=" + "FORECAST_API_KEY");
+        HttpRequest weatherRequest = HttpRequest.newBuilder(weatherUri).build();
+
+        openWeatherSDK = OpenWeatherSDK.factory("FORECAST_API_KEY", OpenWeatherSDKMode.ON_DEMAND);
+
+        httpClient = Mockito.mock(HttpClient.class);
+
+        openWeatherSDK.setHttpClient(httpClient);
+
+        Mockito.when(httpClient.send(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(200, HttpResponseMock.FORECAST));
+        Mockito.when(httpClient.sendAsync(Mockito.eq(request), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answerAsync(200, HttpResponseMock.FORECAST));
+        Mockito.when(httpClient.send(Mockito.eq(weatherRequest), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer());
+
+        WeatherInfo weatherInfo = openWeatherSDK.getWeatherInfo("Kazan");
+        ForecastSeries forecast = openWeatherSDK.getForecast("Kazan");
+        Assertions.assertEquals(3, forecast.size());
+        Assertions.assertSame(forecast, openWeatherSDK.getForecast("kazan'"));
+        Assertions.assertSame(forecast, openWeatherSDK.getForecastAsync("KAZAN").join());
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(request), Mockito.any());
+
+        openWeatherSDK.setForecastTtl(Duration.ZERO);
+        Assertions.assertNotSame(forecast, openWeatherSDK.getForecastAsync("Kazan").join());
+        Mockito.verify(httpClient, Mockito.times(1)).sendAsync(Mockito.eq(request), Mockito.any());
+        Assertions.assertSame(weatherInfo, openWeatherSDK.getWeatherInfo("Kazan"));
+        Mockito.verify(httpClient, Mockito.times(1)).send(Mockito.eq(weatherRequest), Mockito.any());
+        openWeatherSDK.releaseSDKObject();
     }
 }
@@ -0,0 +1,81 @@
+package io.github.fireg45;
+
+import io.github.fireg45.openweathersdk.geo.GridIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GridIndexTest {
+
+    @Test
+    void Test_distance() {
+        // Kazan to Moscow, about 719 km.
+        double distance = GridIndex.distanceMeters(55.7887, 49.1221, 55.7558, 37.6173);
+        Assertions.assertEquals(719_000, distance, 5_000);
+        Assertions.assertEquals(0, GridIndex.distanceMeters(10, 20, 10, 20), 1e-9);
+    }
+
+    @Test
+    void Test_nearestWithinRadius() {
+        GridIndex index = new GridIndex();
+        index.put("kazan", 55.7887, 49.1221);
+        index.put("kazan-north", 55.8000, 49.1221);
+        index.put("moscow", 55.7558, 37.6173);
+
+        Assertions.assertEquals("kazan", index.nearest(55.7890, 49.1230, 2000, key -> true));
+        Assertions.assertEquals("kazan-north", index.nearest(55.7990, 49.1221, 2000, key -> true));
+        Assertions.assertEquals("kazan-north", index.nearest(55.7890, 49.1230, 2000, key -> !key.equals("kazan")));
+        Assertions.assertNull(index.nearest(55.7887, 49.2000, 2000, key -> true));
+        Assertions.assertNull(index.nearest(55.7887, 49.1221, 0, key -> true));
+
+        index.remove("kazan");
+        index.remove("kazan-north");
+        Assertions.assertNull(index.nearest(55.7890, 49.1230, 2000, key -> true));
+        Assertions.assertEquals(1, index.size());
+    }
+
+    @Test
+    void Test_nearestAcrossCellBoundariesAndAntimeridian() {
+        GridIndex index = new GridIndex();
+        index.put("east", 0.0, 179.9999);
+        index.put("pole", 89.9999, 10);
+
+        Assertions.assertEquals("east", index.nearest(0.0, -179.9999, 2000, key -> true));
+        Assertions.assertEquals("pole", index.nearest(89.9999, -170, 2000, key -> true));
+    }
+
+    @Test
+    void Test_concurrentQueriesAndUpdates() throws Exception {
+        GridIndex index = new GridIndex();
+        index.put("kazan", 55.7887, 49.1221);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    if (thread == 0) {
+                        String key = "nearby" + (i % 50);
+                        index.put(key, 55.7887 + (i % 50 + 1) * 1e-4, 49.1221);
+                        if (i % 3 == 0) {
+                            index.remove(key);
+                        }
+                    } else {
+                        // The fixed key stays indexed, so it or a nearer key is always found.
+                        Assertions.assertNotNull(index.nearest(55.7887, 49.1221, 2000, key -> true));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Assertions.assertEquals("kazan", index.nearest(55.7887, 49.1221, 1, key -> true));
+    }
+}
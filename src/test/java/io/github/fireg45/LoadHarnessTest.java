@@ -0,0 +1,79 @@
+package io.github.fireg45;
+
+import io.github.fireg45.load.LoadHarness;
+import io.github.fireg45.load.LoadReport;
+import io.github.fireg45.mock.StubWeatherServer;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKMode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+public class LoadHarnessTest {
+
+    private final List<String> cities = List.of("Kazan", "Moscow", "London", "Paris", "Berlin", "Madrid", "Rome",
+            "Oslo");
+
+    @Test
+    void Test_loadHarness_bothModes() throws IOException, InterruptedException {
+        try (StubWeatherServer server = StubWeatherServer.start()) {
+            server.setLatency(Duration.ofMillis(5));
+            LoadHarness harness = new LoadHarness(server);
+
+            for (OpenWeatherSDKMode mode : OpenWeatherSDKMode.values()) {
+                LoadReport report = harness.run(mode, cities, 200, Duration.ofSeconds(1));
+
+                Assertions.assertEquals(200, report.getSent(), report.toString());
+                Assertions.assertEquals(200, report.getSucceeded(), report.toString());
+                // Every city is fetched once, then served from the cache.
+                Assertions.assertEquals(cities.size(), report.getUpstreamCalls(), report.toString());
+                Assertions.assertEquals(cities.size(), report.getUpstreamStatusCounts().get(200));
+                Assertions.assertTrue(report.getLatency(50).compareTo(report.getLatency(99)) <= 0);
+            }
+        }
+    }
+
+    @Test
+    void Test_loadHarness_rateLimitedServer() throws IOException, InterruptedException {
+        try (StubWeatherServer server = StubWeatherServer.start()) {
+            server.setRateLimit(2);
+            LoadHarness harness = new LoadHarness(server);
+
+            LoadReport report = harness.run(OpenWeatherSDKMode.ON_DEMAND, cities, 100, Duration.ofSeconds(1));
+
+            Assertions.assertEquals(100, report.getSent(), report.toString());
+            Assertions.assertTrue(report.getFailed() > 0, report.toString());
+            Assertions.assertTrue(report.getUpstreamStatusCounts().getOrDefault(429, 0L) >= 1, report.toString());
+            // After a 429 the SDK waits out the Retry-After delay instead of sending every lookup upstream.
+            Assertions.assertTrue(report.getUpstreamCalls() <= 2L * cities.size(), report.toString());
+        }
+    }
+
+    @Test
+    void Test_loadHarness_plainErrorBodies() throws IOException, InterruptedException {
+        try (StubWeatherServer server = StubWeatherServer.start()) {
+            server.setPlainErrorBodies(true);
+            server.setRateLimit(2);
+            LoadHarness harness = new LoadHarness(server);
+
+            LoadReport report = harness.run(OpenWeatherSDKMode.ON_DEMAND, cities, 100, Duration.ofSeconds(1));
+
+            Assertions.assertEquals(100, report.getSent(), report.toString());
+            Assertions.assertTrue(report.getFailed() > 0, report.toString());
+            Assertions.assertTrue(report.getUpstreamStatusCounts().getOrDefault(429, 0L) >= 1, report.toString());
+            // A 429 without a JSON body still makes the SDK wait out the Retry-After delay.
+            Assertions.assertTrue(report.getUpstreamCalls() <= 2L * cities.size(), report.toString());
+
+            server.setRateLimit(0);
+            server.setErrorRate(1);
+            report = harness.run(OpenWeatherSDKMode.POLLING, cities, 50, Duration.ofSeconds(1));
+
+            // Every lookup fails with the 503 instead of hanging on the empty body.
+            Assertions.assertEquals(50, report.getSent(), report.toString());
+            Assertions.assertEquals(50, report.getFailed(), report.toString());
+            Assertions.assertTrue(report.getUpstreamStatusCounts().getOrDefault(503, 0L) >= 1, report.toString());
+        }
+    }
+}
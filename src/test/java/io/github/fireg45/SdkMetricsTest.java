@@ -0,0 +1,94 @@
+package io.github.fireg45;
+
+import io.github.fireg45.mock.HttpResponseMock;
+import io.github.fireg45.openweathersdk.OpenWeatherSDK;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKConfig;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKMode;
+import io.github.fireg45.openweathersdk.exception.OpenWeatherSDKNotFoundException;
+import io.github.fireg45.openweathersdk.metrics.DefaultSdkMetrics;
+import io.github.fireg45.openweathersdk.metrics.HistogramSnapshot;
+import io.github.fireg45.openweathersdk.metrics.LatencyHistogram;
+import io.github.fireg45.openweathersdk.metrics.MetricsSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+public class SdkMetricsTest {
+
+    private static final String API_KEY = "METRICS_API_KEY";
+
+    @Test
+    void Test_latencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        Assertions.assertEquals(1000, snapshot.getCount());
+        Assertions.assertEquals(500_500, snapshot.getMean(), 1e-9);
+        assertWithinPrecision(1000, snapshot.getMin());
+        assertWithinPrecision(500_000, snapshot.valueAtPercentile(50));
+        assertWithinPrecision(990_000, snapshot.valueAtPercentile(99));
+        assertWithinPrecision(1_000_000, snapshot.getMax());
+    }
+
+    @Test
+    void Test_latencyHistogramEmpty() {
+        HistogramSnapshot snapshot = new LatencyHistogram().snapshot();
+
+        Assertions.assertEquals(0, snapshot.getCount());
+        Assertions.assertEquals(0, snapshot.valueAtPercentile(99));
+        Assertions.assertEquals(0, snapshot.getMax());
+    }
+
+    @Test
+    void Test_sdkRecordsMetrics() throws IOException, InterruptedException {
+        OpenWeatherSDK openWeatherSDK = OpenWeatherSDK.factory(API_KEY, OpenWeatherSDKMode.ON_DEMAND,
+                OpenWeatherSDKConfig.builder().weatherCacheMaxSize(1).build());
+        DefaultSdkMetrics metrics = new DefaultSdkMetrics();
+        openWeatherSDK.setMetrics(metrics);
+
+        HttpClient httpClient = Mockito.mock(HttpClient.class);
+        openWeatherSDK.setHttpClient(httpClient);
+
+        for (String city : new String[]{"Kazan", "Moscow"}) {
+            URI uri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + city + "&appid=" + API_KEY);
+            Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(uri).build()), Mockito.any()))
+                    .thenAnswer(HttpResponseMock.answer());
+        }
+        URI notFoundUri = URI.create("https://api.openweathermap.org/data/2.5/weather?q=" + "Atlantis" + "&appid=" + API_KEY);
+        Mockito.when(httpClient.send(Mockito.eq(HttpRequest.newBuilder(notFoundUri).build()), Mockito.any()))
+                .thenAnswer(HttpResponseMock.answer(404, "{\"cod\":\"404\",\"message\":\"city not found\"}"));
+
+        openWeatherSDK.getWeatherInfo("Kazan");
+        openWeatherSDK.getWeatherInfo("Kazan");
+        openWeatherSDK.getWeatherInfo("Moscow");
+        Assertions.assertThrows(OpenWeatherSDKNotFoundException.class, () -> openWeatherSDK.getWeatherInfo("Atlantis"));
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        Assertions.assertEquals(1, snapshot.getCacheHitCount());
+        Assertions.assertEquals(3, snapshot.getCacheMissCount());
+        Assertions.assertEquals(1, snapshot.getCacheEvictionCount());
+        Assertions.assertEquals(0, snapshot.getCacheExpirationCount());
+        Assertions.assertEquals(0, snapshot.getInFlightRequests());
+        Assertions.assertEquals(3, snapshot.getRequestLatency().getCount());
+        Assertions.assertEquals(2, snapshot.getParseLatency().getCount());
+        Assertions.assertEquals(Map.of(200, 2L, 404, 1L), snapshot.getStatusCodeCounts());
+        Assertions.assertEquals(Map.of(OpenWeatherSDKNotFoundException.class.getName(), 1L), snapshot.getErrorCounts());
+        openWeatherSDK.releaseSDKObject();
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        Assertions.assertEquals(expected, actual, expected / 32.0, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,271 @@
+package io.github.fireg45;
+
+import io.github.fireg45.mock.HttpResponseMock;
+import io.github.fireg45.openweathersdk.CachedWeather;
+import io.github.fireg45.openweathersdk.cache.CacheStats;
+import io.github.fireg45.openweathersdk.cache.CompactWeatherCache;
+import io.github.fireg45.openweathersdk.cache.ConcurrentWeatherCache;
+import io.github.fireg45.openweathersdk.cache.FileWeatherStore;
+import io.github.fireg45.openweathersdk.cache.WeatherCache;
+import io.github.fireg45.openweathersdk.cache.WeatherCachePersistence;
+import io.github.fireg45.openweathersdk.cache.WeatherStore;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WeatherCacheTest {
+
+    private static final int THREADS = 64;
+    private static final int OPERATIONS = 20_000;
+
+    @Test
+    void Test_evictsLeastRecentlyUsed() {
+        WeatherCache cache = new ConcurrentWeatherCache(2);
+
+        cache.put("city1", new CachedWeather(new WeatherInfo()));
+        cache.put("city2", new CachedWeather(new WeatherInfo()));
+        cache.get("city1");
+        cache.put("city3", new CachedWeather(new WeatherInfo()));
+
+        Assertions.assertNotNull(cache.get("city1"));
+        Assertions.assertNull(cache.get("city2"));
+        Assertions.assertNotNull(cache.get("city3"));
+        Assertions.assertEquals(2, cache.size());
+    }
+
+    @Test
+    void Test_stats() {
+        WeatherCache cache = new ConcurrentWeatherCache(1);
+
+        cache.put("city1", new CachedWeather(new WeatherInfo()));
+        cache.get("city1");
+        Assertions.assertNull(cache.peek("city2"));
+        cache.put("city2", new CachedWeather(new WeatherInfo()));
+        Assertions.assertNotNull(cache.peek("city2"));
+        cache.get("city1");
+
+        CacheStats stats = cache.stats();
+        Assertions.assertEquals(1, stats.getHitCount());
+        Assertions.assertEquals(1, stats.getMissCount());
+        Assertions.assertEquals(1, stats.getEvictionCount());
+    }
+
+    @Test
+    void Test_concurrentReadsAndWrites() throws InterruptedException {
+        int maximumSize = 50;
+        WeatherCache cache = new ConcurrentWeatherCache(maximumSize);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    String city = "city" + ((thread * 31 + i) % 200);
+                    if (i % 4 == 0) {
+                        cache.put(city, new CachedWeather(new WeatherInfo()));
+                    } else if (i % 97 == 0) {
+                        cache.remove(city);
+                    } else {
+                        cache.get(city);
+                    }
+                    for (String key : cache.keys()) {
+                        if (key == null) {
+                            throw new IllegalStateException();
+                        }
+                        break;
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+
+        for (Future<?> future : futures) {
+            Assertions.assertDoesNotThrow(() -> future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+
+        Assertions.assertTrue(cache.size() <= maximumSize);
+    }
+
+    @Test
+    void Test_snapshotRoundTrip(@TempDir Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("weather.snapshot");
+        WeatherInfo weatherInfo = WeatherInfo.fromJson(new HttpResponseMock<String>().body());
+        WeatherCache cache = new ConcurrentWeatherCache(10);
+        cache.put("Kazan", new CachedWeather(weatherInfo));
+        cache.put("Moscow", new CachedWeather(new WeatherInfo()));
+        cache.put("Expired", new CachedWeather(weatherInfo,
+                System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(11)));
+
+        new WeatherCachePersistence(cache, snapshotFile, Duration.ofMinutes(10)).save();
+
+        WeatherCache restored = new ConcurrentWeatherCache(10);
+        int loaded = new WeatherCachePersistence(restored, snapshotFile, Duration.ofMinutes(10)).load();
+
+        Assertions.assertEquals(2, loaded);
+        Assertions.assertEquals(cache.get("Kazan"), restored.get("Kazan"));
+        Assertions.assertEquals(cache.get("Moscow"), restored.get("Moscow"));
+        Assertions.assertNull(restored.get("Expired"));
+    }
+
+    @Test
+    void Test_snapshotMissingOrTruncated(@TempDir Path directory) throws IOException {
+        Path snapshotFile = directory.resolve("weather.snapshot");
+        WeatherCache cache = new ConcurrentWeatherCache(10);
+
+        Assertions.assertEquals(0, new WeatherCachePersistence(cache, snapshotFile, Duration.ofMinutes(10)).load());
+
+        cache.put("Kazan", new CachedWeather(new WeatherInfo()));
+        cache.put("Moscow", new CachedWeather(new WeatherInfo()));
+        new WeatherCachePersistence(cache, snapshotFile, Duration.ofMinutes(10)).save();
+        byte[] snapshot = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(snapshot, snapshot.length - 10));
+
+        WeatherCache restored = new ConcurrentWeatherCache(10);
+        Assertions.assertEquals(1, new WeatherCachePersistence(restored, snapshotFile, Duration.ofMinutes(10)).load());
+    }
+
+    @Test
+    void Test_fileStore_roundTrip(@TempDir Path directory) throws IOException {
+        WeatherInfo weatherInfo = WeatherInfo.fromJson(new HttpResponseMock<String>().body());
+        CachedWeather cachedWeather = new CachedWeather(weatherInfo, System.currentTimeMillis() - 1000);
+        WeatherStore store = new FileWeatherStore(directory.resolve("store"));
+
+        Assertions.assertNull(store.get("q=kazan"));
+        store.put("q=kazan", cachedWeather);
+        store.put("lat=55.7887&lon=49.1221", new CachedWeather(new WeatherInfo()));
+
+        WeatherStore otherStore = new FileWeatherStore(directory.resolve("store"));
+        Assertions.assertEquals(cachedWeather, otherStore.get("q=kazan"));
+        Assertions.assertEquals(new WeatherInfo(), otherStore.get("lat=55.7887&lon=49.1221").getWeatherInfo());
+        Assertions.assertNull(otherStore.get("q=Kazan"));
+    }
+
+    @Test
+    void Test_fileStore_leases(@TempDir Path directory) throws IOException, InterruptedException {
+        WeatherStore store = new FileWeatherStore(directory);
+        WeatherStore otherStore = new FileWeatherStore(directory);
+
+        Assertions.assertTrue(store.tryAcquireLease("q=kazan", "node1", Duration.ofMillis(200)));
+        Assertions.assertFalse(otherStore.tryAcquireLease("q=kazan", "node2", Duration.ofMillis(200)));
+        Assertions.assertTrue(otherStore.tryAcquireLease("q=moscow", "node2", Duration.ofMillis(200)));
+        Assertions.assertTrue(store.tryAcquireLease("q=kazan", "node1", Duration.ofMillis(200)));
+
+        Thread.sleep(300);
+        Assertions.assertTrue(otherStore.tryAcquireLease("q=kazan", "node2", Duration.ofMinutes(1)));
+        Assertions.assertFalse(store.tryAcquireLease("q=kazan", "node1", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void Test_compactCache_roundTrip() {
+        WeatherCache cache = new CompactWeatherCache(10);
+        CachedWeather cachedWeather = new CachedWeather(WeatherInfo.fromJson(new HttpResponseMock<String>().body()),
+                1234L);
+        CachedWeather empty = new CachedWeather(new WeatherInfo(), 5678L);
+
+        cache.put("q=Kazan", cachedWeather);
+        cache.put("q=Nowhere", empty);
+
+        CachedWeather restored = cache.get("q=Kazan");
+        Assertions.assertEquals(cachedWeather, restored);
+        Assertions.assertNotSame(cachedWeather, restored);
+        Assertions.assertEquals(cachedWeather.getWeatherInfo().getCoord(), restored.getWeatherInfo().getCoord());
+        Assertions.assertEquals(cachedWeather.getWeatherInfo().getId(), restored.getWeatherInfo().getId());
+        Assertions.assertEquals(cachedWeather.getJson(), restored.getJson());
+        Assertions.assertEquals(empty, cache.get("q=Nowhere"));
+        Assertions.assertTrue(cache.keys().contains("q=Kazan"));
+        Assertions.assertEquals(empty, cache.remove("q=Nowhere"));
+        Assertions.assertFalse(cache.keys().contains("q=Nowhere"));
+    }
+
+    @Test
+    void Test_compactCache_sharesWeatherStrings() {
+        WeatherCache cache = new CompactWeatherCache(10);
+        String body = new HttpResponseMock<String>().body();
+
+        cache.put("city1", new CachedWeather(WeatherInfo.fromJson(body)));
+        cache.put("city2", new CachedWeather(WeatherInfo.fromJson(body)));
+
+        Assertions.assertSame(cache.get("city1").getWeatherInfo().getWeather().getDescription(),
+                cache.get("city2").getWeatherInfo().getWeather().getDescription());
+    }
+
+    @Test
+    void Test_compactCache_evictsLeastRecentlyUsed() {
+        WeatherCache cache = new CompactWeatherCache(2);
+        List<String> evicted = new ArrayList<>();
+        cache.setEvictionListener(evicted::add);
+
+        cache.put("city1", new CachedWeather(new WeatherInfo()));
+        cache.put("city2", new CachedWeather(new WeatherInfo()));
+        cache.get("city1");
+        cache.put("city3", new CachedWeather(new WeatherInfo()));
+
+        Assertions.assertNotNull(cache.get("city1"));
+        Assertions.assertNull(cache.get("city2"));
+        Assertions.assertNotNull(cache.get("city3"));
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(List.of("city2"), evicted);
+        Assertions.assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    void Test_compactCache_matchesLinkedHashMap() {
+        int maximumSize = 100;
+        WeatherCache cache = new CompactWeatherCache(maximumSize);
+        Map<String, Long> expected = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maximumSize;
+            }
+        };
+        Random random = new Random(42);
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            String city = "city" + random.nextInt(300);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    cache.put(city, new CachedWeather(new WeatherInfo(), i));
+                    expected.put(city, (long) i);
+                }
+                case 1 -> {
+                    CachedWeather cachedWeather = cache.get(city);
+                    Long timestamp = expected.get(city);
+                    Assertions.assertEquals(timestamp, cachedWeather != null ? cachedWeather.getTimestampInMillis() : null);
+                }
+                default -> {
+                    CachedWeather cachedWeather = cache.remove(city);
+                    Long timestamp = expected.remove(city);
+                    Assertions.assertEquals(timestamp, cachedWeather != null ? cachedWeather.getTimestampInMillis() : null);
+                }
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), cache.size());
+        Assertions.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(cache.keys()));
+        Map<String, Long> visited = new LinkedHashMap<>();
+        cache.forEach((city, cachedWeather) -> visited.put(city, cachedWeather.getTimestampInMillis()));
+        Assertions.assertEquals(expected, visited);
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.fireg45;
+
+import io.github.fireg45.mock.HttpResponseMock;
+import io.github.fireg45.openweathersdk.dto.ForecastSeries;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.json.WeatherJsonReader;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WeatherJsonReaderTest {
+
+    private final String body = new HttpResponseMock<String>().body();
+
+    @Test
+    void Test_matchesJsonObjectTree() {
+        JSONObject jsonObject = new JSONObject(body);
+        WeatherInfo weatherInfo = WeatherInfo.fromJson(body);
+
+        Assertions.assertEquals(jsonObject.getJSONArray("weather").getJSONObject(0).getString("main"),
+                weatherInfo.getWeather().getMain());
+        Assertions.assertEquals(jsonObject.getJSONArray("weather").getJSONObject(0).getString("description"),
+                weatherInfo.getWeather().getDescription());
+        Assertions.assertEquals(jsonObject.getJSONObject("main").getDouble("temp"),
+                weatherInfo.getTemperature().getTemp());
+        Assertions.assertEquals(jsonObject.getJSONObject("main").getDouble("feels_like"),
+                weatherInfo.getTemperature().getFeels_like());
+        Assertions.assertEquals(jsonObject.getInt("visibility"), weatherInfo.getVisibility());
+        Assertions.assertEquals(jsonObject.getJSONObject("wind").getInt("speed"), weatherInfo.getWind().getSpeed());
+        Assertions.assertEquals(jsonObject.getLong("dt"), weatherInfo.getDatetime());
+        Assertions.assertEquals(jsonObject.getInt("timezone"), weatherInfo.getTimezone());
+        Assertions.assertEquals(jsonObject.getJSONObject("sys").getLong("sunrise"), weatherInfo.getSys().getSunrise());
+        Assertions.assertEquals(jsonObject.getJSONObject("sys").getLong("sunset"), weatherInfo.getSys().getSunset());
+        Assertions.assertEquals(jsonObject.getString("name"), weatherInfo.getName());
+    }
+
+    @Test
+    void Test_escapesAndNumbers() {
+        String json = "{\"name\":\"Saint \\\"Petersburg\\\" \\u0436\",\"visibility\":1e4,\"timezone\":-3600,"
+                + "\"dt\":1709924708,\"main\":{\"temp\":-1.25E1,\"feels_like\":0.1},\"wind\":{\"speed\":12},"
+                + "\"sys\":{\"sunrise\":1,\"sunset\":2},\"weather\":[{\"main\":\"Rain\",\"description\":\"rain\"},{}]}";
+
+        WeatherInfo weatherInfo = WeatherInfo.fromJson(json.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals("Saint \"Petersburg\" ж", weatherInfo.getName());
+        Assertions.assertEquals(10000, weatherInfo.getVisibility());
+        Assertions.assertEquals(-3600, weatherInfo.getTimezone());
+        Assertions.assertEquals(-12.5, weatherInfo.getTemperature().getTemp());
+        Assertions.assertEquals(0.1, weatherInfo.getTemperature().getFeels_like());
+        Assertions.assertEquals(12, weatherInfo.getWind().getSpeed());
+        Assertions.assertEquals("Rain", weatherInfo.getWeather().getMain());
+    }
+
+    @Test
+    void Test_errorMessage() {
+        byte[] body = "{\"cod\":\"404\",\"message\":\"city not found\"}".getBytes(StandardCharsets.UTF_8);
+
+        Assertions.assertEquals("city not found", WeatherJsonReader.readErrorMessage(body));
+    }
+
+    @Test
+    void Test_missingField() {
+        Assertions.assertThrows(JSONException.class, () -> WeatherInfo.fromJson("{\"name\":\"Kazan\"}"));
+        Assertions.assertThrows(JSONException.class, () -> WeatherInfo.fromJson("{\"name\":"));
+    }
+
+    @Test
+    void Test_weatherInfoList() {
+        String entry = body.replace(",\"timezone\":10800", "")
+                .replace("\"country\":\"RU\"", "\"country\":\"RU\",\"timezone\":10800");
+        byte[] list = ("{\"cnt\":2,\"list\":[" + entry + "," + entry.replace("\"id\":551487", "\"id\":524901")
+                + "]}").getBytes(StandardCharsets.UTF_8);
+        List<WeatherInfo> weatherInfos = new ArrayList<>();
+
+        Assertions.assertEquals(2, WeatherJsonReader.readWeatherInfoList(list, weatherInfos::add));
+        Assertions.assertEquals(551487, weatherInfos.get(0).getId());
+        Assertions.assertEquals(524901, weatherInfos.get(1).getId());
+        Assertions.assertEquals(10800, weatherInfos.get(1).getTimezone());
+        Assertions.assertEquals(WeatherInfo.fromJson(body).getName(), weatherInfos.get(1).getName());
+        Assertions.assertThrows(JSONException.class, () -> WeatherJsonReader.readWeatherInfoList(
+                "{\"cnt\":0}".getBytes(StandardCharsets.UTF_8), weatherInfos::add));
+    }
+
+    @Test
+    void Test_forecast() {
+        ForecastSeries forecast = ForecastSeries.fromJson(HttpResponseMock.FORECAST);
+
+        Assertions.assertEquals(3, forecast.size());
+        Assertions.assertEquals(551487, forecast.getCityId());
+        Assertions.assertEquals("Kazan’", forecast.getCityName());
+        Assertions.assertEquals(10800, forecast.getTimezone());
+        Assertions.assertEquals(55.7887, forecast.getCoord().getLat());
+        Assertions.assertEquals(1709942400, forecast.getTimestamp(1));
+        Assertions.assertEquals(265.2, forecast.getTemperature(1));
+        Assertions.assertEquals(261.8, forecast.getFeelsLike(1));
+        Assertions.assertEquals(3.15, forecast.getWindSpeed(1));
+        Assertions.assertEquals("Snow", forecast.getMain(1));
+        Assertions.assertEquals("light snow", forecast.getDescription(1));
+        Assertions.assertSame(forecast.getDescription(0), forecast.getDescription(2));
+        Assertions.assertEquals(264.75, forecast.minTemperature());
+        Assertions.assertEquals(266.9, forecast.maxTemperature());
+        Assertions.assertEquals(3.15, forecast.maxWindSpeed());
+
+        ForecastSeries night = forecast.range(Instant.ofEpochSecond(1709942400), Instant.ofEpochSecond(1709960000));
+        Assertions.assertEquals(2, night.size());
+        Assertions.assertEquals(1709953200, night.getTimestamp(1));
+        Assertions.assertEquals(3.15, night.maxWindSpeed());
+        Assertions.assertEquals(264.75,
+                night.range(Instant.ofEpochSecond(1709950000), Instant.MAX).getTemperature(0));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> night.getTemperature(2));
+
+        ForecastSeries empty = forecast.range(Instant.ofEpochSecond(1709960000), Instant.ofEpochSecond(1709900000));
+        Assertions.assertEquals(0, empty.size());
+        Assertions.assertTrue(Double.isNaN(empty.minTemperature()));
+        Assertions.assertThrows(JSONException.class, () -> ForecastSeries.fromJson("{\"cnt\":0}"));
+    }
+
+    @Test
+    void Test_forecastBuilderSortsSteps() {
+        ForecastSeries forecast = new ForecastSeries.Builder(1)
+                .add(20, 2.0, 1.0, 3.0, "Rain", null)
+                .add(10, 1.0, 0.5, 4.0, "Rain", "light rain")
+                .build();
+
+        Assertions.assertEquals(10, forecast.getTimestamp(0));
+        Assertions.assertEquals("light rain", forecast.getDescription(0));
+        Assertions.assertNull(forecast.getDescription(1));
+        Assertions.assertEquals(2.0, forecast.getTemperature(1));
+    }
+}
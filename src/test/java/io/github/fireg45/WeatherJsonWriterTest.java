@@ -0,0 +1,55 @@
+package io.github.fireg45;
+
+import io.github.fireg45.mock.HttpResponseMock;
+import io.github.fireg45.openweathersdk.CachedWeather;
+import io.github.fireg45.openweathersdk.dto.Weather;
+import io.github.fireg45.openweathersdk.dto.WeatherInfo;
+import io.github.fireg45.openweathersdk.json.WeatherJsonWriter;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WeatherJsonWriterTest {
+
+    private final WeatherInfo weatherInfo = WeatherInfo.fromJson(new HttpResponseMock<String>().body());
+
+    @Test
+    void Test_matchesBeanSerialization() {
+        JSONObject expected = new JSONObject(weatherInfo);
+
+        Assertions.assertTrue(expected.similar(new JSONObject(WeatherJsonWriter.toJsonString(weatherInfo))));
+        Assertions.assertTrue(expected.similar(weatherInfo.toJSON()));
+    }
+
+    @Test
+    void Test_documentedShape() {
+        Assertions.assertEquals("{\"weather\":{\"main\":\"Clouds\",\"description\":\"overcast clouds\"},"
+                        + "\"datetime\":1709924708,\"visibility\":1191,"
+                        + "\"temperature\":{\"temp\":267.43,\"feels_like\":264.26},"
+                        + "\"sys\":{\"sunrise\":1709867797,\"sunset\":1709908329},"
+                        + "\"wind\":{\"speed\":1},\"timezone\":10800,\"name\":\"Kazan’\"}",
+                weatherInfo.toJSONString());
+    }
+
+    @Test
+    void Test_escapesAndNulls() {
+        WeatherInfo info = new WeatherInfo();
+        info.setWeather(new Weather("Rain", "light \"rain\"\n"));
+
+        JSONObject parsed = new JSONObject(WeatherJsonWriter.toJsonString(info));
+
+        Assertions.assertEquals("light \"rain\"\n", parsed.getJSONObject("weather").getString("description"));
+        Assertions.assertFalse(parsed.has("name"));
+        Assertions.assertFalse(parsed.has("wind"));
+    }
+
+    @Test
+    void Test_cachedWeatherMemoizesJson() {
+        CachedWeather cachedWeather = new CachedWeather(weatherInfo);
+
+        Assertions.assertSame(cachedWeather.getJson(), cachedWeather.getJson());
+
+        cachedWeather.setWeatherInfo(new WeatherInfo());
+        Assertions.assertFalse(cachedWeather.getJson().contains("Kazan"));
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.fireg45.load;
+
+import io.github.fireg45.mock.StubWeatherServer;
+import io.github.fireg45.openweathersdk.OpenWeatherSDK;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKConfig;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKMode;
+import io.github.fireg45.openweathersdk.OpenWeatherSDKRegistry;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives an SDK object against a {@link StubWeatherServer} at a target rate of city lookups and reports the
+ * throughput, the latency percentiles and the calls that reached the server.
+ * <p>
+ * Lookups are sent open-loop: each one is started at its scheduled time with {@code getWeatherInfoAsync},
+ * whether or not the previous ones completed, and its latency is measured from that scheduled time, so a
+ * stalled SDK shows up in the percentiles instead of lowering the offered load.
+ * <p>
+ * Run {@code main} with the mode, the target QPS, the duration in seconds and optionally the server latency in
+ * milliseconds to compare builds offline.
+ */
+public class LoadHarness {
+    private static final String API_KEY = "LOAD_API_KEY";
+    private static final Duration COMPLETION_TIMEOUT = Duration.ofSeconds(30);
+
+    private final StubWeatherServer server;
+
+    public LoadHarness(StubWeatherServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Run a load test against a new SDK object of the given mode, configured for the stub server, with a weather
+     * cache large enough to hold every city.
+     *
+     * @param mode      The mode of the SDK object.
+     * @param cities    The cities looked up, in turn.
+     * @param targetQps The number of lookups started per second.
+     * @param duration  The time lookups are started for.
+     * @return LoadReport of the run.
+     */
+    public LoadReport run(OpenWeatherSDKMode mode, List<String> cities, int targetQps, Duration duration)
+            throws InterruptedException {
+        OpenWeatherSDKConfig config = OpenWeatherSDKConfig.builder()
+                .baseUri(server.getUri())
+                .httpVersion(HttpClient.Version.HTTP_1_1)
+                .weatherCacheMaxSize(Math.max(cities.size(), 10))
+                .build();
+        OpenWeatherSDK openWeatherSDK = new OpenWeatherSDKRegistry().acquire(API_KEY, mode, config);
+        try {
+            return run(openWeatherSDK, mode.name(), cities, targetQps, duration);
+        } finally {
+            openWeatherSDK.releaseSDKObject();
+        }
+    }
+
+    /**
+     * Run a load test against an SDK object configured for the stub server.
+     *
+     * @param openWeatherSDK The SDK object.
+     * @param name           The name of the run in the report.
+     * @param cities         The cities looked up, in turn.
+     * @param targetQps      The number of lookups started per second.
+     * @param duration       The time lookups are started for.
+     * @return LoadReport of the run.
+     */
+    public LoadReport run(OpenWeatherSDK openWeatherSDK, String name, List<String> cities, int targetQps,
+                          Duration duration) throws InterruptedException {
+        int total = (int) Math.max(1, targetQps * duration.toMillis() / 1000);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / targetQps;
+        long[] latencyNanos = new long[total];
+        Arrays.fill(latencyNanos, -1);
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch completed = new CountDownLatch(total);
+        long upstreamCallsBefore = server.getRequestCount();
+        Map<Integer, Long> statusCountsBefore = server.getStatusCounts();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        long startNanos = System.nanoTime();
+        try {
+            scheduler.scheduleAtFixedRate(() -> {
+                int index = next.getAndIncrement();
+                if (index >= total) {
+                    return;
+                }
+                long scheduledNanos = startNanos + index * intervalNanos;
+                try {
+                    openWeatherSDK.getWeatherInfoAsync(cities.get(index % cities.size()))
+                            .whenComplete((weatherInfo, throwable) -> {
+                                if (throwable != null) {
+                                    failed.incrementAndGet();
+                                }
+                                latencyNanos[index] = System.nanoTime() - scheduledNanos;
+                                completed.countDown();
+                            });
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    latencyNanos[index] = System.nanoTime() - scheduledNanos;
+                    completed.countDown();
+                }
+            }, 0, intervalNanos, TimeUnit.NANOSECONDS);
+            completed.await(duration.plus(COMPLETION_TIMEOUT).toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            scheduler.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+        long[] finished = Arrays.stream(latencyNanos).filter(latency -> latency >= 0).toArray();
+        Map<Integer, Long> statusCounts = new HashMap<>();
+        server.getStatusCounts().forEach((statusCode, count) ->
+                statusCounts.put(statusCode, count - statusCountsBefore.getOrDefault(statusCode, 0L)));
+        statusCounts.values().removeIf(count -> count == 0);
+        return new LoadReport(name, Math.min(next.get(), total), failed.get(), elapsed, finished,
+                server.getRequestCount() - upstreamCallsBefore, statusCounts);
+    }
+
+    /**
+     * Run a load test from the command line and print its report.
+     *
+     * @param args The mode, the target QPS, the duration in seconds and optionally the server latency in
+     *             milliseconds and the number of cities.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: LoadHarness <ON_DEMAND|POLLING> <qps> <seconds> [latencyMillis] [cities]");
+            System.exit(2);
+        }
+        OpenWeatherSDKMode mode = OpenWeatherSDKMode.valueOf(args[0]);
+        int targetQps = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        int cityCount = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < cityCount; i++) {
+            cities.add("City " + i);
+        }
+        try (StubWeatherServer server = StubWeatherServer.start()) {
+            if (args.length > 3) {
+                server.setLatency(Duration.ofMillis(Long.parseLong(args[3])));
+            }
+            System.out.println(new LoadHarness(server).run(mode, cities, targetQps, duration));
+        }
+    }
+}
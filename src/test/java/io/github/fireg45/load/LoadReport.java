@@ -0,0 +1,99 @@
+package io.github.fireg45.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Outcome of a run of the {@link LoadHarness}: throughput, latency percentiles and the calls that reached the
+ * stub server.
+ */
+public class LoadReport {
+    private final String mode;
+    private final long sent;
+    private final long failed;
+    private final Duration elapsed;
+    private final long[] sortedLatencyNanos;
+    private final long upstreamCalls;
+    private final Map<Integer, Long> upstreamStatusCounts;
+
+    LoadReport(String mode, long sent, long failed, Duration elapsed, long[] latencyNanos, long upstreamCalls,
+               Map<Integer, Long> upstreamStatusCounts) {
+        this.mode = mode;
+        this.sent = sent;
+        this.failed = failed;
+        this.elapsed = elapsed;
+        this.sortedLatencyNanos = latencyNanos.clone();
+        Arrays.sort(sortedLatencyNanos);
+        this.upstreamCalls = upstreamCalls;
+        this.upstreamStatusCounts = upstreamStatusCounts;
+    }
+
+    /**
+     * Get the number of lookups sent to the SDK.
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * Get the number of lookups that completed with weather information.
+     */
+    public long getSucceeded() {
+        return sortedLatencyNanos.length - failed;
+    }
+
+    /**
+     * Get the number of lookups that completed with an exception.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Get the number of completed lookups per second of the run.
+     */
+    public double getThroughput() {
+        return sortedLatencyNanos.length / (elapsed.toNanos() / 1e9);
+    }
+
+    /**
+     * Get a latency percentile of the completed lookups, measured from the time each lookup was scheduled.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency, or zero if no lookup completed.
+     */
+    public Duration getLatency(double percentile) {
+        if (sortedLatencyNanos.length == 0) {
+            return Duration.ZERO;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sortedLatencyNanos.length) - 1;
+        return Duration.ofNanos(sortedLatencyNanos[Math.max(0, Math.min(index, sortedLatencyNanos.length - 1))]);
+    }
+
+    /**
+     * Get the number of requests the stub server received during the run.
+     */
+    public long getUpstreamCalls() {
+        return upstreamCalls;
+    }
+
+    /**
+     * Get the number of responses the stub server sent during the run per status code.
+     */
+    public Map<Integer, Long> getUpstreamStatusCounts() {
+        return upstreamStatusCounts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: sent=%d, succeeded=%d, failed=%d, throughput=%.1f/s, p50=%.2fms, p90=%.2fms, "
+                        + "p99=%.2fms, max=%.2fms, upstreamCalls=%d, upstreamStatus=%s",
+                mode, sent, getSucceeded(), failed, getThroughput(), millis(getLatency(50)), millis(getLatency(90)),
+                millis(getLatency(99)), millis(getLatency(100)), upstreamCalls, upstreamStatusCounts);
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1e6;
+    }
+}
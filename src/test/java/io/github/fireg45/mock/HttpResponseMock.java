@@ -1,18 +1,125 @@
 package io.github.fireg45.mock;
 
+import org.mockito.stubbing.Answer;
+
 import javax.net.ssl.SSLSession;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 public class HttpResponseMock<T> implements HttpResponse<T> {
 
+    public static final String WEATHER = "{\"coord\":{\"lon\":49.1221,\"lat\":55.7887},\"weather\":[{\"id\":804,\"main\":\"Clouds\",\"description\":\"overcast clouds\",\"icon\":\"04n\"}],\"base\":\"stations\",\"main\":{\"temp\":267.43,\"feels_like\":264.26,\"temp_min\":267.38,\"temp_max\":267.49,\"pressure\":1007,\"humidity\":98,\"sea_level\":1007,\"grnd_level\":999},\"visibility\":1191,\"wind\":{\"speed\":1.85,\"deg\":284,\"gust\":2.35},\"snow\":{\"1h\":0.1},\"clouds\":{\"all\":85},\"dt\":1709924708,\"sys\":{\"type\":2,\"id\":48937,\"country\":\"RU\",\"sunrise\":1709867797,\"sunset\":1709908329},\"timezone\":10800,\"id\":551487,\"name\":\"Kazan’\",\"cod\":200}";
+
+    public static final String FORECAST = "{\"cod\":\"200\",\"message\":0,\"cnt\":3,\"list\":[{\"dt\":1709931600,\"main\":{\"temp\":266.9,\"feels_like\":263.1,\"pressure\":1007,\"humidity\":97},\"weather\":[{\"id\":804,\"main\":\"Clouds\",\"description\":\"overcast clouds\",\"icon\":\"04n\"}],\"wind\":{\"speed\":2.4,\"deg\":280},\"dt_txt\":\"2024-03-08 21:00:00\"},{\"dt\":1709942400,\"main\":{\"temp\":265.2,\"feels_like\":261.8,\"pressure\":1008,\"humidity\":96},\"weather\":[{\"id\":600,\"main\":\"Snow\",\"description\":\"light snow\",\"icon\":\"13n\"}],\"wind\":{\"speed\":3.15,\"deg\":290},\"dt_txt\":\"2024-03-09 00:00:00\"},{\"dt\":1709953200,\"main\":{\"temp\":264.75,\"feels_like\":260.4,\"pressure\":1009,\"humidity\":95},\"weather\":[{\"id\":804,\"main\":\"Clouds\",\"description\":\"overcast clouds\",\"icon\":\"04n\"}],\"wind\":{\"speed\":2.9,\"deg\":300},\"dt_txt\":\"2024-03-09 03:00:00\"}],\"city\":{\"id\":551487,\"name\":\"Kazan’\",\"coord\":{\"lat\":55.7887,\"lon\":49.1221},\"country\":\"RU\",\"timezone\":10800,\"sunrise\":1709867797,\"sunset\":1709908329}}";
+
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+
+    private final int statusCode;
+
+    private final T body;
+
+    private final HttpHeaders headers;
+
+    @SuppressWarnings("unchecked")
+    public HttpResponseMock() {
+        this(200, (T) WEATHER);
+    }
+
+    public HttpResponseMock(int statusCode, T body) {
+        this(statusCode, body, null);
+    }
+
+    public HttpResponseMock(int statusCode, T body, HttpHeaders headers) {
+        this.statusCode = statusCode;
+        this.body = body;
+        this.headers = headers;
+    }
+
+    /**
+     * Answer a stubbed {@code send} call with the weather response, read by the body handler of the call.
+     */
+    public static Answer<Object> answer() {
+        return answer(200, WEATHER);
+    }
+
+    /**
+     * Answer a stubbed {@code send} call with the given response, read by the body handler of the call.
+     */
+    public static Answer<Object> answer(int statusCode, String body) {
+        return invocation -> handle(invocation.getArgument(1), statusCode, body);
+    }
+
+    /**
+     * Answer a stubbed {@code sendAsync} call with the weather response, read by the body handler of the call.
+     */
+    public static Answer<Object> answerAsync() {
+        return answerAsync(200, WEATHER);
+    }
+
+    /**
+     * Answer a stubbed {@code sendAsync} call with the given response, read by the body handler of the call.
+     */
+    public static Answer<Object> answerAsync(int statusCode, String body) {
+        return invocation -> CompletableFuture.completedFuture(handle(invocation.getArgument(1), statusCode, body));
+    }
+
+    /**
+     * Push a response body through a body handler in one chunk, like the HttpClient does for a small response.
+     */
+    public static <T> HttpResponse<T> handle(HttpResponse.BodyHandler<T> handler, int statusCode, String body) {
+        return handle(handler, statusCode, NO_HEADERS, List.of(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * Push a response body through a body handler in the given chunks.
+     */
+    public static <T> HttpResponse<T> handle(HttpResponse.BodyHandler<T> handler, int statusCode, HttpHeaders headers,
+                                             List<ByteBuffer> chunks) {
+        HttpResponse.BodySubscriber<T> subscriber = handler.apply(new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return statusCode;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        });
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (ByteBuffer chunk : chunks) {
+            subscriber.onNext(List.of(chunk));
+        }
+        subscriber.onComplete();
+        return new HttpResponseMock<>(statusCode, subscriber.getBody().toCompletableFuture().join(), headers);
+    }
+
     @Override
     public int statusCode() {
-        return 200;
+        return statusCode;
     }
 
     @Override
@@ -27,12 +134,12 @@ public class HttpResponseMock<T> implements HttpResponse<T> {
 
     @Override
     public HttpHeaders headers() {
-        return null;
+        return headers;
     }
 
     @Override
     public T body() {
-        return (T) "{\"coord\":{\"lon\":49.1221,\"lat\":55.7887},\"weather\":[{\"id\":804,\"main\":\"Clouds\",\"description\":\"overcast clouds\",\"icon\":\"04n\"}],\"base\":\"stations\",\"main\":{\"temp\":267.43,\"feels_like\":264.26,\"temp_min\":267.38,\"temp_max\":267.49,\"pressure\":1007,\"humidity\":98,\"sea_level\":1007,\"grnd_level\":999},\"visibility\":1191,\"wind\":{\"speed\":1.85,\"deg\":284,\"gust\":2.35},\"snow\":{\"1h\":0.1},\"clouds\":{\"all\":85},\"dt\":1709924708,\"sys\":{\"type\":2,\"id\":48937,\"country\":\"RU\",\"sunrise\":1709867797,\"sunset\":1709908329},\"timezone\":10800,\"id\":551487,\"name\":\"Kazan’\",\"cod\":200}";
+        return body;
     }
 
     @Override
@@ -0,0 +1,231 @@
+package io.github.fireg45.mock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded OpenWeatherMap API on a local port, serving the canned weather and forecast payloads over real
+ * sockets. Latency, the rate of 5xx errors, a per-second rate limit answered with 429 and the format of the
+ * error bodies can be changed while it runs; every request and status code is counted.
+ */
+public class StubWeatherServer implements AutoCloseable {
+    private static final String ERROR = "{\"cod\":%d,\"message\":\"%s\"}";
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String PLAIN_TEXT = "text/plain; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder requestCount = new LongAdder();
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final AtomicLong windowStartMillis = new AtomicLong();
+    private final AtomicLong windowCount = new AtomicLong();
+    private volatile String weatherPayload = HttpResponseMock.WEATHER;
+    private volatile String forecastPayload = HttpResponseMock.FORECAST;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile int requestsPerSecond;
+    private volatile boolean plainErrorBodies;
+
+    private StubWeatherServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Start a server on a free port of the loopback interface.
+     */
+    public static StubWeatherServer start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // Requests wait out their latency on their own thread, so slow responses do not queue behind each other.
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-weather-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        StubWeatherServer stub = new StubWeatherServer(server, executor);
+        server.createContext("/data/2.5/", stub::handle);
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    /**
+     * Get the base URI to configure the SDK with.
+     */
+    public URI getUri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort());
+    }
+
+    /**
+     * Set the body of the weather responses.
+     */
+    public void setWeatherPayload(String weatherPayload) {
+        this.weatherPayload = weatherPayload;
+    }
+
+    /**
+     * Set the body of the forecast responses.
+     */
+    public void setForecastPayload(String forecastPayload) {
+        this.forecastPayload = forecastPayload;
+    }
+
+    /**
+     * Delay every response by the given time.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Answer the given fraction of the requests, between 0 and 1, with 503.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Answer the requests beyond the given number per second with 429 and a {@code Retry-After} of one second,
+     * or accept every request if the limit is 0.
+     */
+    public void setRateLimit(int requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * Answer 429 with a plain-text body and 503 with an empty body, as a proxy or load balancer in front of the
+     * API does, instead of the JSON error bodies of the API.
+     */
+    public void setPlainErrorBodies(boolean plainErrorBodies) {
+        this.plainErrorBodies = plainErrorBodies;
+    }
+
+    /**
+     * Get the number of requests received.
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * Get the number of responses sent with the given status code.
+     */
+    public long getStatusCount(int statusCode) {
+        LongAdder count = statusCounts.get(statusCode);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Get the number of responses sent per status code.
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> counts = new ConcurrentHashMap<>();
+        statusCounts.forEach((statusCode, count) -> counts.put(statusCode, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestCount.increment();
+            if (!latency.isZero()) {
+                TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+            }
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query == null || !query.contains("appid=")) {
+                respond(exchange, 401, String.format(ERROR, 401, "Invalid API key"));
+            } else if (!tryAcquire()) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                if (plainErrorBodies) {
+                    respond(exchange, 429, "Too many requests", PLAIN_TEXT);
+                } else {
+                    respond(exchange, 429, String.format(ERROR, 429, "Too many requests"));
+                }
+            } else if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                if (plainErrorBodies) {
+                    respond(exchange, 503, "", PLAIN_TEXT);
+                } else {
+                    respond(exchange, 503, String.format(ERROR, 503, "Service unavailable"));
+                }
+            } else if (path.equals("/data/2.5/weather")) {
+                respond(exchange, 200, weatherPayload);
+            } else if (path.equals("/data/2.5/forecast")) {
+                respond(exchange, 200, forecastPayload);
+            } else {
+                respond(exchange, 404, String.format(ERROR, 404, "Not found"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Count a request in the current one-second window of the rate limit.
+     */
+    private boolean tryAcquire() {
+        int limit = requestsPerSecond;
+        if (limit <= 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        long windowStart = windowStartMillis.get();
+        if (now - windowStart >= 1000 && windowStartMillis.compareAndSet(windowStart, now)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= limit;
+    }
+
+    private void respond(HttpExchange exchange, int statusCode, String body) throws IOException {
+        respond(exchange, statusCode, body, JSON);
+    }
+
+    private void respond(HttpExchange exchange, int statusCode, String body, String contentType)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (bytes.length > 0 && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        if (bytes.length == 0) {
+            // A length of -1 sends no body at all.
+            exchange.sendResponseHeaders(statusCode, -1);
+        } else {
+            exchange.sendResponseHeaders(statusCode, bytes.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(bytes);
+            }
+        }
+        statusCounts.computeIfAbsent(statusCode, key -> new LongAdder()).increment();
+    }
+}